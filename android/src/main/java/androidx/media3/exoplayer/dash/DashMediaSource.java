@@ -2,9 +2,11 @@ package androidx.media3.exoplayer.dash;
 
 import androidx.media3.common.MediaItem;
 import androidx.media3.datasource.DataSource;
+import androidx.media3.exoplayer.dash.manifest.DashManifest;
 import androidx.media3.exoplayer.drm.DrmSessionManagerProvider;
 import androidx.media3.exoplayer.source.MediaSource;
 import androidx.media3.exoplayer.upstream.LoadErrorHandlingPolicy;
+import androidx.media3.exoplayer.upstream.ParsingLoadable;
 
 public class DashMediaSource {
     public static class Factory implements MediaSource.Factory {
@@ -12,6 +14,10 @@ public class DashMediaSource {
         public Factory(DefaultDashChunkSource.Factory factory, DataSource.Factory factory1) {
         }
 
+        public Factory setManifestParser(ParsingLoadable.Parser<? extends DashManifest> manifestParser) {
+            return this;
+        }
+
         @Override
         public MediaSource.Factory setDrmSessionManagerProvider(DrmSessionManagerProvider drmSessionManagerProvider) {
             return null;
@@ -31,6 +37,10 @@ public class DashMediaSource {
         public MediaSource createMediaSource(MediaItem mediaItem) {
             return null;
         }
+
+        public MediaSource createMediaSource(DashManifest manifest, MediaItem mediaItem) {
+            return null;
+        }
     }
 }
 
@@ -1,6 +1,9 @@
 package androidx.media3.exoplayer.dash.manifest;
 
 public class DashManifest {
+    public boolean dynamic;
+    public long minUpdatePeriodMs;
+
     public DashManifest() {
 
     }
@@ -0,0 +1,18 @@
+package androidx.media3.exoplayer.dash.manifest;
+
+import android.net.Uri;
+
+import androidx.media3.exoplayer.upstream.ParsingLoadable;
+
+import java.io.InputStream;
+
+public class DashManifestParser implements ParsingLoadable.Parser<DashManifest> {
+    public DashManifestParser() {
+
+    }
+
+    @Override
+    public DashManifest parse(Uri uri, InputStream inputStream) {
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+package com.brentvatne.common.api
+
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetFloat
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetInt
+import com.brentvatne.common.toolbox.ReactBridgeUtils.safeGetString
+import com.facebook.react.bridge.ReadableMap
+
+/**
+ * Class representing the adaptive bitrate configuration of a source.
+ * Only generic code here, no reference to the player.
+ */
+data class AbrConfig(
+    val mode: Mode = Mode.THROUGHPUT,
+    /** share of the estimated throughput renditions may use, throughput and hybrid modes */
+    val bandwidthFraction: Float = DEFAULT_BANDWIDTH_FRACTION,
+    /** buffer level at which the highest rendition is selected, buffer and hybrid modes */
+    val bufferTargetMs: Int = DEFAULT_BUFFER_TARGET_MS
+) {
+    enum class Mode(val value: String) {
+        /** rendition chosen from the estimated throughput, the player default */
+        THROUGHPUT("throughput"),
+
+        /** rendition chosen from the buffer level (BOLA) */
+        BUFFER("buffer"),
+
+        /** throughput while the buffer is low, buffer level once it is filled */
+        HYBRID("hybrid")
+    }
+
+    companion object {
+        const val DEFAULT_BANDWIDTH_FRACTION = 0.7f
+        const val DEFAULT_BUFFER_TARGET_MS = 30_000
+
+        private const val PROP_ABR_MODE = "mode"
+        private const val PROP_ABR_BANDWIDTH_FRACTION = "bandwidthFraction"
+        private const val PROP_ABR_BUFFER_TARGET_MS = "bufferTargetMs"
+
+        @JvmStatic
+        fun parse(src: ReadableMap?): AbrConfig? {
+            if (src == null) return null
+
+            val modeValue = safeGetString(src, PROP_ABR_MODE, Mode.THROUGHPUT.value)
+            return AbrConfig(
+                mode = Mode.values().firstOrNull { it.value == modeValue } ?: Mode.THROUGHPUT,
+                bandwidthFraction = safeGetFloat(src, PROP_ABR_BANDWIDTH_FRACTION, DEFAULT_BANDWIDTH_FRACTION).coerceIn(0.1f, 1f),
+                bufferTargetMs = safeGetInt(src, PROP_ABR_BUFFER_TARGET_MS, DEFAULT_BUFFER_TARGET_MS)
+            )
+        }
+    }
+}
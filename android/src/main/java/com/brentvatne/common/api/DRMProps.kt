@@ -36,12 +36,24 @@ class DRMProps {
      */
     var multiDrm: Boolean = false
 
+    /**
+     * Content identifier used to store the offline license, the source uri is used if not set
+     */
+    var contentId: String? = null
+
+    /**
+     * Flag to store an offline license and restore it on next plays
+     */
+    var persistentLicense: Boolean = false
+
     /** return true if this and src are equals  */
     override fun equals(other: Any?): Boolean {
         if (other == null || other !is DRMProps) return false
         return drmType == other.drmType &&
             drmLicenseServer == other.drmLicenseServer &&
             multiDrm == other.multiDrm &&
+            contentId == other.contentId &&
+            persistentLicense == other.persistentLicense &&
             drmLicenseHeader.contentDeepEquals(other.drmLicenseHeader) // drmLicenseHeader is never null
     }
 
@@ -52,6 +64,8 @@ class DRMProps {
         private const val PROP_DRM_HEADERS_KEY = "key"
         private const val PROP_DRM_HEADERS_VALUE = "value"
         private const val PROP_DRM_MULTI_DRM = "multiDrm"
+        private const val PROP_DRM_CONTENT_ID = "contentId"
+        private const val PROP_DRM_PERSISTENT_LICENSE = "persistentLicense"
 
         /** parse the source ReadableMap received from app */
         @JvmStatic
@@ -62,6 +76,8 @@ class DRMProps {
                 drm.drmType = safeGetString(src, PROP_DRM_TYPE)
                 drm.drmLicenseServer = safeGetString(src, PROP_DRM_LICENSE_SERVER)
                 drm.multiDrm = safeGetBool(src, PROP_DRM_MULTI_DRM, false)
+                drm.contentId = safeGetString(src, PROP_DRM_CONTENT_ID)
+                drm.persistentLicense = safeGetBool(src, PROP_DRM_PERSISTENT_LICENSE, false)
                 val drmHeadersArray = safeGetArray(src, PROP_DRM_HEADERS)
                 if (drm.drmType != null && drm.drmLicenseServer != null) {
                     if (drmHeadersArray != null) {
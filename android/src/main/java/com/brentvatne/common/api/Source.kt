@@ -85,6 +85,16 @@ class Source {
      */
     var bufferConfig = BufferConfig()
 
+    /**
+     * adaptive bitrate configuration, null to use the one of ReactExoplayerConfig
+     */
+    var abrConfig: AbrConfig? = null
+
+    /**
+     * base urls of the CDNs serving the source, requests are sent to the healthiest one
+     */
+    var cdnBaseUrls: List<String> = emptyList()
+
     /**
      * The list of sideLoaded text tracks
      */
@@ -109,7 +119,9 @@ class Source {
                 minLoadRetryCount == other.minLoadRetryCount &&
                 isLocalAssetFile == other.isLocalAssetFile &&
                 isAsset == other.isAsset &&
-                bufferConfig == other.bufferConfig
+                bufferConfig == other.bufferConfig &&
+                abrConfig == other.abrConfig &&
+                cdnBaseUrls == other.cdnBaseUrls
             )
     }
 
@@ -181,6 +193,8 @@ class Source {
         private const val PROP_SRC_TEXT_TRACKS = "textTracks"
         private const val PROP_SRC_MIN_LOAD_RETRY_COUNT = "minLoadRetryCount"
         private const val PROP_SRC_BUFFER_CONFIG = "bufferConfig"
+        private const val PROP_SRC_ABR = "abr"
+        private const val PROP_SRC_CDN_BASE_URLS = "cdnBaseUrls"
 
         @SuppressLint("DiscouragedApi")
         private fun getUriFromAssetId(context: Context, uriString: String): Uri? {
@@ -249,6 +263,8 @@ class Source {
                 source.sideLoadedTextTracks = SideLoadedTextTrackList.parse(safeGetArray(src, PROP_SRC_TEXT_TRACKS))
                 source.minLoadRetryCount = safeGetInt(src, PROP_SRC_MIN_LOAD_RETRY_COUNT, 3)
                 source.bufferConfig = BufferConfig.parse(safeGetMap(src, PROP_SRC_BUFFER_CONFIG))
+                source.abrConfig = AbrConfig.parse(safeGetMap(src, PROP_SRC_ABR))
+                source.cdnBaseUrls = safeGetArray(src, PROP_SRC_CDN_BASE_URLS)?.toArrayList()?.filterIsInstance<String>().orEmpty()
 
                 val propSrcHeadersArray = safeGetArray(src, PROP_SRC_HEADERS)
                 if (propSrcHeadersArray != null) {
@@ -1,8 +1,16 @@
 package com.brentvatne.common.react
 
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import androidx.core.util.Pools
 import com.brentvatne.common.api.TimedMetadata
 import com.brentvatne.common.api.Track
 import com.brentvatne.common.api.VideoTrack
+import com.brentvatne.exoplayer.RNVAbrTrackSelection
+import com.brentvatne.exoplayer.RNVCacheMetrics
+import com.brentvatne.exoplayer.RNVLoadControl
+import com.brentvatne.exoplayer.RNVRequestTimings
 import com.brentvatne.exoplayer.ReactExoplayerView
 import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.WritableArray
@@ -13,13 +21,18 @@ import com.facebook.react.uimanager.events.Event
 import com.facebook.react.uimanager.events.EventDispatcher
 import java.io.PrintWriter
 import java.io.StringWriter
+import java.util.concurrent.atomic.AtomicLong
 
-enum class EventTypes(val eventName: String) {
+/**
+ * @param coalescing only the latest event of this type is delivered when JS doesn't keep up, for events carrying a state
+ * @param throttled events of this type are deferred above the maxEventRate of the view, only the latest is sent when the interval expires
+ */
+enum class EventTypes(val eventName: String, val coalescing: Boolean = false, val throttled: Boolean = false) {
     EVENT_LOAD_START("onVideoLoadStart"),
     EVENT_LOAD("onVideoLoad"),
     EVENT_ERROR("onVideoError"),
-    EVENT_PROGRESS("onVideoProgress"),
-    EVENT_BANDWIDTH("onVideoBandwidthUpdate"),
+    EVENT_PROGRESS("onVideoProgress", coalescing = true, throttled = true),
+    EVENT_BANDWIDTH("onVideoBandwidthUpdate", coalescing = true, throttled = true),
     EVENT_CONTROLS_VISIBILITY_CHANGE("onControlsVisibilityChange"),
     EVENT_SEEK("onVideoSeek"),
     EVENT_END("onVideoEnd"),
@@ -29,7 +42,7 @@ enum class EventTypes(val eventName: String) {
     EVENT_FULLSCREEN_DID_DISMISS("onVideoFullscreenPlayerDidDismiss"),
 
     EVENT_READY("onReadyForDisplay"),
-    EVENT_BUFFER("onVideoBuffer"),
+    EVENT_BUFFER("onVideoBuffer", coalescing = true),
     EVENT_PLAYBACK_STATE_CHANGED("onVideoPlaybackStateChanged"),
     EVENT_IDLE("onVideoIdle"),
     EVENT_TIMED_METADATA("onTimedMetadata"),
@@ -43,7 +56,11 @@ enum class EventTypes(val eventName: String) {
     EVENT_TEXT_TRACK_DATA_CHANGED("onTextTrackDataChanged"),
     EVENT_VIDEO_TRACKS("onVideoTracks"),
     EVENT_ON_RECEIVE_AD_EVENT("onReceiveAdEvent"),
-    EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED("onPictureInPictureStatusChanged");
+    EVENT_PICTURE_IN_PICTURE_STATUS_CHANGED("onPictureInPictureStatusChanged"),
+    EVENT_CACHE_METRICS("onVideoCacheMetrics", coalescing = true),
+    EVENT_BUFFER_DECISION("onVideoBufferDecision", coalescing = true),
+    EVENT_ABR_SWITCH("onVideoAbrSwitch"),
+    EVENT_REQUEST_TIMINGS("onVideoRequestTimings", coalescing = true);
 
     companion object {
         fun toMap() =
@@ -56,6 +73,28 @@ enum class EventTypes(val eventName: String) {
 }
 
 class VideoEventEmitter {
+    /**
+     * Event counters of one view
+     */
+    class Stats {
+        val dispatched = AtomicLong()
+        val coalesced = AtomicLong()
+        val dropped = AtomicLong()
+
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putDouble("dispatched", dispatched.get().toDouble())
+                putDouble("coalesced", coalesced.get().toDouble())
+                putDouble("dropped", dropped.get().toDouble())
+            }
+    }
+
+    val stats = Stats()
+
+    /** max events per second of each throttled event type, 0 for no limit */
+    @Volatile
+    var maxEventRate = 0f
+
     lateinit var onVideoLoadStart: () -> Unit
     lateinit var onVideoLoad: (
         duration: Long,
@@ -92,13 +131,17 @@ class VideoEventEmitter {
     lateinit var onTextTrackDataChanged: (textTrackData: String) -> Unit
     lateinit var onReceiveAdEvent: (adEvent: String, adData: Map<String?, String?>?) -> Unit
     lateinit var onPictureInPictureStatusChanged: (isActive: Boolean) -> Unit
+    lateinit var onCacheMetrics: (metrics: RNVCacheMetrics.Snapshot) -> Unit
+    lateinit var onBufferDecision: (decision: RNVLoadControl.Decision) -> Unit
+    lateinit var onAbrSwitch: (switch: RNVAbrTrackSelection.Switch) -> Unit
+    lateinit var onRequestTimings: (summary: RNVRequestTimings.Summary) -> Unit
 
     fun addEventEmitters(reactContext: ThemedReactContext, view: ReactExoplayerView) {
         val dispatcher = UIManagerHelper.getEventDispatcherForReactTag(reactContext, view.id)
         val surfaceId = UIManagerHelper.getSurfaceId(reactContext)
 
         if (dispatcher != null) {
-            val event = EventBuilder(surfaceId, view.id, dispatcher)
+            val event = EventBuilder(surfaceId, view.id, dispatcher, this)
 
             onVideoLoadStart = {
                 event.dispatch(EventTypes.EVENT_LOAD_START)
@@ -285,15 +328,126 @@ class VideoEventEmitter {
                     putBoolean("isActive", isActive)
                 }
             }
+            onCacheMetrics = { metrics ->
+                event.dispatch(EventTypes.EVENT_CACHE_METRICS) {
+                    merge(metrics.toWritableMap())
+                }
+            }
+            onBufferDecision = { decision ->
+                event.dispatch(EventTypes.EVENT_BUFFER_DECISION) {
+                    merge(decision.toWritableMap())
+                }
+            }
+            onAbrSwitch = { switch ->
+                event.dispatch(EventTypes.EVENT_ABR_SWITCH) {
+                    merge(switch.toWritableMap())
+                }
+            }
+            onRequestTimings = { summary ->
+                event.dispatch(EventTypes.EVENT_REQUEST_TIMINGS) {
+                    merge(summary.toWritableMap())
+                }
+            }
+        }
+    }
+
+    private class EventBuilder(
+        private val surfaceId: Int,
+        private val viewId: Int,
+        private val dispatcher: EventDispatcher,
+        private val emitter: VideoEventEmitter
+    ) {
+        private val handler = Handler(Looper.getMainLooper())
+        private val lastDispatchTimesMs = LongArray(EventTypes.values().size)
+
+        // latest throttled event of each type, sent when its interval expires
+        private val hasPending = BooleanArray(EventTypes.values().size)
+        private val pendingSetters = arrayOfNulls<(WritableMap.() -> Unit)>(EventTypes.values().size)
+
+        fun dispatch(event: EventTypes, paramsSetter: (WritableMap.() -> Unit)? = null) {
+            val maxEventRate = emitter.maxEventRate
+            if (event.throttled && maxEventRate > 0) {
+                synchronized(this) {
+                    val nowMs = SystemClock.uptimeMillis()
+                    val nextDispatchTimeMs = lastDispatchTimesMs[event.ordinal] + (1000 / maxEventRate).toLong()
+                    if (nowMs < nextDispatchTimeMs) {
+                        if (hasPending[event.ordinal]) {
+                            // replaced by this one
+                            emitter.stats.dropped.incrementAndGet()
+                        } else {
+                            handler.postAtTime({ dispatchPending(event) }, nextDispatchTimeMs)
+                        }
+                        hasPending[event.ordinal] = true
+                        pendingSetters[event.ordinal] = paramsSetter
+                        return
+                    }
+                    lastDispatchTimesMs[event.ordinal] = nowMs
+                }
+            }
+            send(event, paramsSetter)
+        }
+
+        private fun dispatchPending(event: EventTypes) {
+            val paramsSetter = synchronized(this) {
+                if (!hasPending[event.ordinal]) {
+                    return
+                }
+                hasPending[event.ordinal] = false
+                lastDispatchTimesMs[event.ordinal] = SystemClock.uptimeMillis()
+                pendingSetters[event.ordinal].also { pendingSetters[event.ordinal] = null }
+            }
+            send(event, paramsSetter)
+        }
+
+        private fun send(event: EventTypes, paramsSetter: (WritableMap.() -> Unit)?) {
+            emitter.stats.dispatched.incrementAndGet()
+            dispatcher.dispatchEvent(VideoEvent.obtain(surfaceId, viewId, event, paramsSetter, emitter.stats))
         }
     }
 
-    private class EventBuilder(private val surfaceId: Int, private val viewId: Int, private val dispatcher: EventDispatcher) {
-        fun dispatch(event: EventTypes, paramsSetter: (WritableMap.() -> Unit)? = null) =
-            dispatcher.dispatchEvent(object : Event<Event<*>>(surfaceId, viewId) {
-                override fun getEventName() = "top${event.eventName.removePrefix("on")}"
-                override fun getEventData() = Arguments.createMap().apply(paramsSetter ?: {})
-            })
+    /**
+     * Pooled event, its data is only built when it is delivered, so coalesced events don't allocate any map
+     */
+    private class VideoEvent private constructor() : Event<VideoEvent>() {
+        private var type: EventTypes? = null
+        private var paramsSetter: (WritableMap.() -> Unit)? = null
+        private var stats: Stats? = null
+
+        private fun setUp(surfaceId: Int, viewId: Int, type: EventTypes, paramsSetter: (WritableMap.() -> Unit)?, stats: Stats) {
+            init(surfaceId, viewId)
+            this.type = type
+            this.paramsSetter = paramsSetter
+            this.stats = stats
+        }
+
+        override fun getEventName() = "top${type!!.eventName.removePrefix("on")}"
+
+        override fun canCoalesce() = type!!.coalescing
+
+        // one key per event type, so that the dispatcher only merges events of the same type
+        override fun getCoalescingKey() = type!!.ordinal.toShort()
+
+        override fun coalesce(otherEvent: VideoEvent): VideoEvent {
+            stats?.coalesced?.incrementAndGet()
+            return super.coalesce(otherEvent)
+        }
+
+        override fun getEventData(): WritableMap = Arguments.createMap().apply(paramsSetter ?: {})
+
+        override fun onDispose() {
+            type = null
+            paramsSetter = null
+            stats = null
+            EVENT_POOL.release(this)
+        }
+
+        companion object {
+            private const val EVENT_POOL_SIZE = 16
+            private val EVENT_POOL = Pools.SynchronizedPool<VideoEvent>(EVENT_POOL_SIZE)
+
+            fun obtain(surfaceId: Int, viewId: Int, type: EventTypes, paramsSetter: (WritableMap.() -> Unit)?, stats: Stats): VideoEvent =
+                (EVENT_POOL.acquire() ?: VideoEvent()).apply { setUp(surfaceId, viewId, type, paramsSetter, stats) }
+        }
     }
 
     private fun audioTracksToArray(audioTracks: java.util.ArrayList<Track>?): WritableArray =
@@ -1,7 +1,9 @@
 package com.brentvatne.exoplayer
 
+import androidx.media3.common.MediaItem
 import androidx.media3.common.MediaItem.LiveConfiguration
 import androidx.media3.common.MediaMetadata
+import androidx.media3.common.util.Util
 import com.brentvatne.common.api.BufferConfig
 import com.brentvatne.common.api.BufferConfig.Live
 import com.brentvatne.common.api.Source
@@ -53,4 +55,27 @@ object ConfigurationUtils {
         }
         return customMetadata
     }
+
+    /**
+     * Create a MediaItem without player specific configuration, used to load a source outside of a player (preload, download)
+     */
+    @JvmStatic
+    fun buildMediaItem(source: Source): MediaItem =
+        MediaItem.Builder()
+            .setUri(source.uri)
+            .setMimeType(Util.getAdaptiveMimeTypeForContentType(inferContentType(source)))
+            .build()
+
+    /**
+     * return the C.ContentType of a network source, from its type prop or its uri
+     */
+    @JvmStatic
+    fun inferContentType(source: Source): Int {
+        val extension = source.extension
+        return if (!extension.isNullOrEmpty()) {
+            Util.inferContentTypeForExtension(extension)
+        } else {
+            Util.inferContentType(source.uri!!)
+        }
+    }
 }
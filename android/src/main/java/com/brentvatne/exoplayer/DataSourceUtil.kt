@@ -1,26 +1,61 @@
 package com.brentvatne.exoplayer
 
-import android.net.Uri
 import androidx.media3.common.util.Util
-import androidx.media3.datasource.AssetDataSource
 import androidx.media3.datasource.DataSource
-import androidx.media3.datasource.DataSpec
 import androidx.media3.datasource.DefaultDataSource
 import androidx.media3.datasource.HttpDataSource
 import androidx.media3.datasource.okhttp.OkHttpDataSource
 import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import com.brentvatne.react.ReactNativeVideoManager
 import com.facebook.react.bridge.ReactContext
 import com.facebook.react.modules.network.CookieJarContainer
 import com.facebook.react.modules.network.ForwardingCookieHandler
 import com.facebook.react.modules.network.OkHttpClientProvider
 import okhttp3.Call
 import okhttp3.JavaNetCookieJar
+import okhttp3.OkHttpClient
+import okhttp3.Request
 
+/**
+ * Data source factories shared by players, preloads and downloads.
+ * Factories are cached by request headers, bandwidth meter and CDN base urls, all of them use the OkHttpClient of react native,
+ * so sources share its connection pool.
+ */
 object DataSourceUtil {
-    private var defaultDataSourceFactory: DataSource.Factory? = null
-    private var defaultHttpDataSourceFactory: HttpDataSource.Factory? = null
+    /**
+     * Call factory of the requests of a one-off task, cancelling all of them at once.
+     * Reads blocked on a socket don't see thread interrupts, cancelling their call unblocks them.
+     */
+    class CancellableCallFactory(private val client: OkHttpClient) : Call.Factory {
+        private val calls = ArrayList<Call>()
+        private var isCancelled = false
+
+        @Synchronized
+        override fun newCall(request: Request): Call =
+            client.newCall(request).also {
+                if (isCancelled) it.cancel() else calls.add(it)
+            }
+
+        @Synchronized
+        fun cancel() {
+            isCancelled = true
+            calls.forEach { it.cancel() }
+            calls.clear()
+        }
+    }
+
+    private data class FactoryKey(val requestHeaders: Map<String, String>, val bandwidthMeter: DefaultBandwidthMeter?, val cdnBaseUrls: List<String>)
+
+    private val dataSourceFactories = buildLruMap<DataSource.Factory>()
+    private val httpDataSourceFactories = buildLruMap<HttpDataSource.Factory>()
+    private var cookieJarClient: OkHttpClient? = null
     private var userAgent: String? = null
 
+    private fun <T> buildLruMap(): LinkedHashMap<FactoryKey, T> =
+        object : LinkedHashMap<FactoryKey, T>(MAX_CACHED_FACTORIES, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<FactoryKey, T>?): Boolean = size > MAX_CACHED_FACTORIES
+        }
+
     private fun getUserAgent(context: ReactContext): String {
         if (userAgent == null) {
             userAgent = Util.getUserAgent(context, context.packageName)
@@ -28,42 +63,74 @@ object DataSourceUtil {
         return userAgent as String
     }
 
+    /**
+     * return the OkHttpClient of react native, with its cookie jar forwarding to the react native cookies
+     */
     @JvmStatic
-    fun getDefaultDataSourceFactory(context: ReactContext, bandwidthMeter: DefaultBandwidthMeter?, requestHeaders: Map<String, String>?): DataSource.Factory {
-        if (defaultDataSourceFactory == null || !requestHeaders.isNullOrEmpty()) {
-            defaultDataSourceFactory = buildDataSourceFactory(context, bandwidthMeter, requestHeaders)
+    @Synchronized
+    fun getOkHttpClient(context: ReactContext): OkHttpClient {
+        val client = OkHttpClientProvider.getOkHttpClient()
+        // the cookie jar is installed once per client, installing it again would drop the cookie handler state
+        if (client !== cookieJarClient) {
+            (client.cookieJar as? CookieJarContainer)?.setCookieJar(JavaNetCookieJar(ForwardingCookieHandler(context)))
+            cookieJarClient = client
         }
-        return defaultDataSourceFactory as DataSource.Factory
+        return client
     }
 
     @JvmStatic
-    fun getDefaultHttpDataSourceFactory(
+    @JvmOverloads
+    @Synchronized
+    fun getDefaultDataSourceFactory(
         context: ReactContext,
         bandwidthMeter: DefaultBandwidthMeter?,
-        requestHeaders: Map<String, String>?
-    ): HttpDataSource.Factory {
-        if (defaultHttpDataSourceFactory == null || !requestHeaders.isNullOrEmpty()) {
-            defaultHttpDataSourceFactory = buildHttpDataSourceFactory(context, bandwidthMeter, requestHeaders)
+        requestHeaders: Map<String, String>?,
+        cdnBaseUrls: List<String> = emptyList()
+    ): DataSource.Factory =
+        dataSourceFactories.getOrPut(FactoryKey(requestHeaders.orEmpty().toMap(), bandwidthMeter, cdnBaseUrls.toList())) {
+            DefaultDataSource.Factory(context, getDefaultHttpDataSourceFactory(context, bandwidthMeter, requestHeaders, cdnBaseUrls))
         }
-        return defaultHttpDataSourceFactory as HttpDataSource.Factory
-    }
 
-    private fun buildDataSourceFactory(
+    /**
+     * return a factory of http data sources, sending the requests to the healthiest of `cdnBaseUrls` when there are several
+     */
+    @JvmStatic
+    @JvmOverloads
+    @Synchronized
+    fun getDefaultHttpDataSourceFactory(
         context: ReactContext,
         bandwidthMeter: DefaultBandwidthMeter?,
-        requestHeaders: Map<String, String>?
-    ): DataSource.Factory = DefaultDataSource.Factory(context, buildHttpDataSourceFactory(context, bandwidthMeter, requestHeaders))
+        requestHeaders: Map<String, String>?,
+        cdnBaseUrls: List<String> = emptyList()
+    ): HttpDataSource.Factory =
+        httpDataSourceFactories.getOrPut(FactoryKey(requestHeaders.orEmpty().toMap(), bandwidthMeter, cdnBaseUrls.toList())) {
+            val factory = buildHttpDataSourceFactory(context, getOkHttpClient(context), bandwidthMeter, requestHeaders)
+            if (cdnBaseUrls.size > 1) {
+                val videoManager = ReactNativeVideoManager.getInstance()
+                RNVFailoverDataSource.Factory(factory, cdnBaseUrls, videoManager.hostHealth, videoManager.connectivity)
+            } else {
+                factory
+            }
+        }
+
+    /**
+     * return a factory of http data sources whose requests are made with `callFactory`, it isn't cached
+     */
+    @JvmStatic
+    @Synchronized
+    fun buildCancellableHttpDataSourceFactory(
+        context: ReactContext,
+        requestHeaders: Map<String, String>?,
+        callFactory: CancellableCallFactory
+    ): HttpDataSource.Factory = buildHttpDataSourceFactory(context, callFactory, null, requestHeaders)
 
     private fun buildHttpDataSourceFactory(
         context: ReactContext,
+        callFactory: Call.Factory,
         bandwidthMeter: DefaultBandwidthMeter?,
         requestHeaders: Map<String, String>?
     ): HttpDataSource.Factory {
-        val client = OkHttpClientProvider.getOkHttpClient()
-        val container = client.cookieJar as CookieJarContainer
-        val handler = ForwardingCookieHandler(context)
-        container.setCookieJar(JavaNetCookieJar(handler))
-        val okHttpDataSourceFactory = OkHttpDataSource.Factory(client as Call.Factory)
+        val okHttpDataSourceFactory = OkHttpDataSource.Factory(callFactory)
             .setTransferListener(bandwidthMeter)
 
         if (requestHeaders != null) {
@@ -75,14 +142,15 @@ object DataSourceUtil {
             okHttpDataSourceFactory.setUserAgent(getUserAgent(context))
         }
 
-        return okHttpDataSourceFactory
+        // requests wait for the network while the retry policy holds them
+        return RNVConnectivity.GatedDataSource.Factory(okHttpDataSourceFactory, ReactNativeVideoManager.getInstance().connectivity)
     }
 
+    /**
+     * return a factory of memory mapped data sources, for assets, raw resources and files
+     */
     @JvmStatic
-    fun buildAssetDataSourceFactory(context: ReactContext?, srcUri: Uri?): DataSource.Factory {
-        val dataSpec = DataSpec(srcUri!!)
-        val rawResourceDataSource = AssetDataSource(context!!)
-        rawResourceDataSource.open(dataSpec)
-        return DataSource.Factory { rawResourceDataSource }
-    }
+    fun buildLocalDataSourceFactory(context: ReactContext): DataSource.Factory = RNVLocalDataSource.Factory(context)
+
+    private const val MAX_CACHED_FACTORIES = 16
 }
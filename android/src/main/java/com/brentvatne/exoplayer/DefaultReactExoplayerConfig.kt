@@ -2,20 +2,23 @@ package com.brentvatne.exoplayer
 
 import android.content.Context
 import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
-import androidx.media3.exoplayer.upstream.DefaultLoadErrorHandlingPolicy
 import androidx.media3.exoplayer.upstream.LoadErrorHandlingPolicy
+import com.brentvatne.common.api.AbrConfig
+import com.brentvatne.react.ReactNativeVideoManager
 
 class DefaultReactExoplayerConfig(context: Context) : ReactExoplayerConfig {
 
-    private var bandWidthMeter: DefaultBandwidthMeter = DefaultBandwidthMeter.Builder(context).build()
+    override val bandwidthHistory = RNVBandwidthHistory(context, ReactNativeVideoManager.getInstance().workerPool)
+
     override var disableDisconnectError: Boolean = false
+    override var defaultAbrConfig: AbrConfig = AbrConfig()
     override val bandwidthMeter: DefaultBandwidthMeter
-        get() = bandWidthMeter
+        get() = bandwidthHistory.bandwidthMeter
+
+    init {
+        ReactNativeVideoManager.getInstance().connectivity.register(context)
+    }
 
     override fun buildLoadErrorHandlingPolicy(minLoadRetryCount: Int): LoadErrorHandlingPolicy =
-        if (disableDisconnectError) {
-            ReactExoplayerLoadErrorHandlingPolicy(minLoadRetryCount)
-        } else {
-            DefaultLoadErrorHandlingPolicy(minLoadRetryCount)
-        }
+        ReactExoplayerLoadErrorHandlingPolicy(minLoadRetryCount, disableDisconnectError)
 }
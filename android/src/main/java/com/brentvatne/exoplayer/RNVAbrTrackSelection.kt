@@ -0,0 +1,195 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import androidx.media3.common.C
+import androidx.media3.common.Timeline
+import androidx.media3.common.TrackGroup
+import androidx.media3.exoplayer.source.MediaSource
+import androidx.media3.exoplayer.source.chunk.MediaChunk
+import androidx.media3.exoplayer.source.chunk.MediaChunkIterator
+import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection
+import androidx.media3.exoplayer.trackselection.BaseTrackSelection
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection
+import androidx.media3.exoplayer.trackselection.TrackSelectionUtil
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import com.brentvatne.common.api.AbrConfig
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import kotlin.math.ln
+
+/**
+ * Adaptive track selection of the buffer and hybrid ABR modes.
+ * - buffer: BOLA, the rendition maximizing (Vp * (utility + gp) - bufferLevel) / bitrate, utility being ln(bitrate / lowest bitrate) + 1.
+ *   Vp and gp are derived from the configured buffer target, so that the highest rendition is selected when the buffer reaches it.
+ * - hybrid: throughput until the buffer reaches HYBRID_BUFFER_MODE_ENTER_MS, buffer level until it drops below HYBRID_BUFFER_MODE_EXIT_MS.
+ * The first selection of every mode uses the throughput, the buffer is empty at that time.
+ * The reason of each decision is given as selection data, so that it is reported with the loaded chunks.
+ */
+class RNVAbrTrackSelection(
+    group: TrackGroup,
+    tracks: IntArray,
+    type: Int,
+    private val bandwidthMeter: BandwidthMeter,
+    private val config: AbrConfig
+) : BaseTrackSelection(group, tracks, type) {
+    /**
+     * Track selection factory of a player, the ABR mode applies to the track selections created after it is set
+     */
+    class Factory : ExoTrackSelection.Factory {
+        @Volatile
+        var abrConfig = AbrConfig()
+
+        override fun createTrackSelections(
+            definitions: Array<out ExoTrackSelection.Definition?>,
+            bandwidthMeter: BandwidthMeter,
+            mediaPeriodId: MediaSource.MediaPeriodId,
+            timeline: Timeline
+        ): Array<ExoTrackSelection?> {
+            val config = abrConfig
+            if (config.mode == AbrConfig.Mode.THROUGHPUT) {
+                return AdaptiveTrackSelection.Factory(
+                    AdaptiveTrackSelection.DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS,
+                    AdaptiveTrackSelection.DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS,
+                    AdaptiveTrackSelection.DEFAULT_MIN_DURATION_TO_RETAIN_AFTER_DISCARD_MS,
+                    config.bandwidthFraction
+                ).createTrackSelections(definitions, bandwidthMeter, mediaPeriodId, timeline)
+            }
+            return TrackSelectionUtil.createTrackSelectionsForDefinitions(definitions) { definition ->
+                RNVAbrTrackSelection(definition.group, definition.tracks, definition.type, bandwidthMeter, config)
+            }
+        }
+    }
+
+    /**
+     * A rendition switch, as reported to JS
+     */
+    data class Switch(
+        val mode: AbrConfig.Mode,
+        val reason: String,
+        val bitrate: Int,
+        val previousBitrate: Int,
+        val width: Int,
+        val height: Int,
+        val estimatedThroughput: Long,
+        val bufferMs: Long
+    ) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putString("mode", mode.value)
+                putString("reason", reason)
+                putInt("bitrate", bitrate)
+                putInt("previousBitrate", previousBitrate)
+                putInt("width", width)
+                putInt("height", height)
+                putDouble("estimatedThroughput", estimatedThroughput.toDouble())
+                putDouble("bufferMs", bufferMs.toDouble())
+            }
+    }
+
+    private var selectedIndex = 0
+    private var selectionReason = C.SELECTION_REASON_INITIAL
+    private var decisionReason = REASON_INITIAL
+    private var isBufferModeActive = config.mode == AbrConfig.Mode.BUFFER
+
+    init {
+        selectedIndex = selectByThroughput(SystemClock.elapsedRealtime())
+    }
+
+    override fun getSelectedIndex(): Int = selectedIndex
+
+    override fun getSelectionReason(): Int = selectionReason
+
+    override fun getSelectionData(): Any = decisionReason
+
+    override fun updateSelectedTrack(
+        playbackPositionUs: Long,
+        bufferedDurationUs: Long,
+        availableDurationUs: Long,
+        queue: List<MediaChunk>,
+        mediaChunkIterators: Array<out MediaChunkIterator>
+    ) {
+        val nowMs = SystemClock.elapsedRealtime()
+        val bufferedMs = bufferedDurationUs / 1000
+        if (config.mode == AbrConfig.Mode.HYBRID) {
+            isBufferModeActive = if (isBufferModeActive) bufferedMs >= HYBRID_BUFFER_MODE_EXIT_MS else bufferedMs >= HYBRID_BUFFER_MODE_ENTER_MS
+        }
+        if (selectionReason == C.SELECTION_REASON_INITIAL && queue.isEmpty()) {
+            // nothing loaded yet, the buffer level means nothing
+            selectedIndex = selectByThroughput(nowMs)
+            return
+        }
+        selectedIndex = if (isBufferModeActive) selectByBuffer(bufferedMs, nowMs) else selectByThroughput(nowMs)
+        selectionReason = C.SELECTION_REASON_ADAPTIVE
+        decisionReason = if (isBufferModeActive) REASON_BUFFER else REASON_THROUGHPUT
+    }
+
+    /**
+     * return the highest rendition fitting in the share of the estimated throughput, or the lowest one
+     */
+    private fun selectByThroughput(nowMs: Long): Int {
+        val effectiveBitrate = (bandwidthMeter.bitrateEstimate * config.bandwidthFraction).toLong()
+        var lowestIndex = 0
+        for (i in 0 until length) {
+            if (!isTrackExcluded(i, nowMs)) {
+                if (getFormat(i).bitrate <= effectiveBitrate) {
+                    return i
+                }
+                lowestIndex = i
+            }
+        }
+        return lowestIndex
+    }
+
+    /**
+     * return the BOLA rendition for the buffer level, formats are sorted by decreasing bitrate
+     */
+    private fun selectByBuffer(bufferedMs: Long, nowMs: Long): Int {
+        val lowestBitrate = getFormat(length - 1).bitrate.coerceAtLeast(1).toDouble()
+        val highestUtility = ln(getFormat(0).bitrate.coerceAtLeast(1) / lowestBitrate) + 1
+        if (highestUtility <= 1) {
+            // all renditions have the same bitrate
+            return selectByThroughput(nowMs)
+        }
+        val bufferTargetS = maxOf(config.bufferTargetMs / 1000.0, BOLA_MIN_BUFFER_S * 2)
+        val gp = (highestUtility - 1) / (bufferTargetS / BOLA_MIN_BUFFER_S - 1)
+        val vp = BOLA_MIN_BUFFER_S / gp
+        val bufferedS = bufferedMs / 1000.0
+        var bestIndex = -1
+        var bestScore = Double.NEGATIVE_INFINITY
+        for (i in 0 until length) {
+            if (isTrackExcluded(i, nowMs)) {
+                continue
+            }
+            val bitrate = getFormat(i).bitrate.coerceAtLeast(1).toDouble()
+            val score = (vp * (ln(bitrate / lowestBitrate) + 1 + gp) - bufferedS) / bitrate
+            if (score > bestScore) {
+                bestScore = score
+                bestIndex = i
+            }
+        }
+        return if (bestIndex >= 0) bestIndex else length - 1
+    }
+
+    companion object {
+        const val REASON_INITIAL = "initial"
+        const val REASON_THROUGHPUT = "throughput"
+        const val REASON_BUFFER = "buffer"
+
+        private const val BOLA_MIN_BUFFER_S = 10.0
+        private const val HYBRID_BUFFER_MODE_ENTER_MS = 10_000L
+        private const val HYBRID_BUFFER_MODE_EXIT_MS = 5_000L
+
+        /**
+         * return the reason of a decision made by any track selection
+         */
+        @JvmStatic
+        fun getDecisionReason(trackSelectionReason: Int, trackSelectionData: Any?): String =
+            trackSelectionData as? String ?: when (trackSelectionReason) {
+                C.SELECTION_REASON_INITIAL -> REASON_INITIAL
+                C.SELECTION_REASON_ADAPTIVE -> REASON_THROUGHPUT
+                C.SELECTION_REASON_MANUAL -> "manual"
+                C.SELECTION_REASON_TRICK_PLAY -> "trickPlay"
+                else -> "unknown"
+            }
+    }
+}
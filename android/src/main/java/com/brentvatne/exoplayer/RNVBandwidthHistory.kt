@@ -0,0 +1,196 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.os.Handler
+import android.os.Looper
+import androidx.media3.common.C
+import androidx.media3.common.util.NetworkTypeObserver
+import androidx.media3.exoplayer.upstream.BandwidthMeter
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.react.ReactNativeVideoManager
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
+
+/**
+ * Bandwidth estimates persisted per network type, so that the first rendition of a cold start matches the last known throughput.
+ * - seed: the stored estimates are given as initial estimates of the bandwidth meter, each for its network type,
+ * - attach: the estimates of the meter are stored for the current network type, at most every STORE_INTERVAL_MS.
+ * Wi-Fi is a single bucket (no SSID), cellular networks are split by generation.
+ * Estimates older than MAX_AGE_MS are ignored.
+ * The store is read on a worker thread from creation, the bandwidth meter is built on first use, once it is read,
+ * so that all players share a single meter.
+ */
+class RNVBandwidthHistory(context: Context, workerPool: RNVWorkerPool) {
+    private class Estimate(val bitrate: Long, val timeMs: Long)
+
+    private val appContext = context.applicationContext
+    private val handler = Handler(Looper.getMainLooper())
+    private val seeds = HashMap<Int, Estimate>()
+
+    // main thread only
+    private val lastStoreTimesMs = HashMap<Int, Long>()
+    private var lastEstimate = 0L
+
+    // null until read
+    @Volatile
+    private var store: SharedPreferences? = null
+
+    @Volatile
+    private var storedEstimates: Map<Int, Estimate> = emptyMap()
+
+    @Volatile
+    private var isCleared = false
+
+    private var meter: DefaultBandwidthMeter? = null
+
+    private val listener = BandwidthMeter.EventListener { _, _, bitrateEstimate -> onEstimate(bitrateEstimate) }
+
+    private val readTask: Future<*>? = workerPool.tryExecute(WORKER_OWNER, "read bandwidth history") {
+        val store = appContext.getSharedPreferences(STORE, Context.MODE_PRIVATE)
+        storedEstimates = readEstimates(store)
+        handler.post { onStoreRead(store) }
+    }
+
+    /**
+     * Bandwidth meter shared by all players, starting from the stored estimates.
+     * Built on first use, which waits for the store at most READ_TIMEOUT_MS, the first player is usually created after it is read.
+     */
+    val bandwidthMeter: DefaultBandwidthMeter
+        @Synchronized get() = meter ?: newBandwidthMeter(awaitStoredEstimates()).also { meter = it }
+
+    /**
+     * Store the estimates of `bandwidthMeter`
+     */
+    fun attach(bandwidthMeter: DefaultBandwidthMeter) {
+        bandwidthMeter.addEventListener(Handler(Looper.getMainLooper()), listener)
+    }
+
+    /**
+     * return the estimate seeded for the current network type, with its age, and the current estimate
+     */
+    fun toWritableMap(bandwidthMeter: BandwidthMeter): WritableMap {
+        val networkType = getNetworkType()
+        val seed = synchronized(seeds) { seeds[networkType] }
+        return Arguments.createMap().apply {
+            putString("networkType", NETWORK_TYPES[networkType] ?: "unknown")
+            putDouble("seededBitrate", (seed?.bitrate ?: 0L).toDouble())
+            putDouble("seededAgeMs", if (seed != null) (System.currentTimeMillis() - seed.timeMs).toDouble() else -1.0)
+            putDouble("bitrateEstimate", bandwidthMeter.bitrateEstimate.toDouble())
+        }
+    }
+
+    /**
+     * Forget the stored estimates, the bandwidth meter is replaced by an unseeded one for the players created after.
+     * Idle pooled players are released, as they are matched by bandwidth meter.
+     */
+    fun clear() {
+        isCleared = true
+        synchronized(this) {
+            if (meter != null) {
+                meter = newBandwidthMeter(emptyMap())
+            }
+        }
+        handler.post {
+            lastStoreTimesMs.clear()
+            lastEstimate = 0L
+            ReactNativeVideoManager.getInstance().playerPool.clear()
+            // cleared once read otherwise
+            store?.edit()?.clear()?.apply()
+        }
+    }
+
+    private fun onStoreRead(store: SharedPreferences) {
+        this.store = store
+        if (isCleared) {
+            store.edit().clear().apply()
+        }
+    }
+
+    private fun awaitStoredEstimates(): Map<Int, Estimate> {
+        if (readTask == null) {
+            // estimates are neither seeded nor stored this session
+            DebugLog.w(TAG, "bandwidth history not read, too many background tasks")
+            return emptyMap()
+        }
+        try {
+            readTask.get(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+        } catch (e: Exception) {
+            DebugLog.w(TAG, "bandwidth history not read: $e")
+        }
+        return if (isCleared) emptyMap() else storedEstimates
+    }
+
+    private fun newBandwidthMeter(estimates: Map<Int, Estimate>): DefaultBandwidthMeter {
+        val builder = DefaultBandwidthMeter.Builder(appContext)
+            // the initial estimate of the new network type replaces the one of the previous network
+            .setResetOnNetworkTypeChange(true)
+        estimates.forEach { (networkType, estimate) -> builder.setInitialBitrateEstimate(networkType, estimate.bitrate) }
+        synchronized(seeds) {
+            seeds.clear()
+            seeds.putAll(estimates)
+        }
+        return builder.build().also { attach(it) }
+    }
+
+    private fun onEstimate(bitrateEstimate: Long) {
+        val store = store ?: return
+        val networkType = getNetworkType()
+        if (bitrateEstimate <= 0 || !NETWORK_TYPES.containsKey(networkType) || bitrateEstimate == lastEstimate) {
+            return
+        }
+        lastEstimate = bitrateEstimate
+        val nowMs = System.currentTimeMillis()
+        if (nowMs - (lastStoreTimesMs[networkType] ?: 0L) < STORE_INTERVAL_MS) {
+            return
+        }
+        lastStoreTimesMs[networkType] = nowMs
+        store.edit()
+            .putString(networkType.toString(), "$nowMs:$bitrateEstimate")
+            .apply()
+    }
+
+    private fun readEstimates(store: SharedPreferences): Map<Int, Estimate> {
+        val nowMs = System.currentTimeMillis()
+        val estimates = HashMap<Int, Estimate>()
+        for (networkType in NETWORK_TYPES.keys) {
+            val estimate = readEstimate(store, networkType) ?: continue
+            if (nowMs - estimate.timeMs <= MAX_AGE_MS) {
+                estimates[networkType] = estimate
+            }
+        }
+        return estimates
+    }
+
+    private fun readEstimate(store: SharedPreferences, networkType: Int): Estimate? {
+        val value = store.getString(networkType.toString(), null) ?: return null
+        val timeMs = value.substringBefore(':').toLongOrNull() ?: return null
+        val bitrate = value.substringAfter(':').toLongOrNull() ?: return null
+        return if (bitrate > 0) Estimate(bitrate, timeMs) else null
+    }
+
+    private fun getNetworkType(): Int = NetworkTypeObserver.getInstance(appContext).networkType
+
+    companion object {
+        private const val TAG = "RNVBandwidthHistory"
+        private const val WORKER_OWNER = "RNVBandwidthHistory"
+        private const val STORE = "RNVBandwidthHistory"
+        private const val STORE_INTERVAL_MS = 30_000L
+        private const val READ_TIMEOUT_MS = 200L
+        private const val MAX_AGE_MS = 7 * 24 * 60 * 60 * 1000L
+
+        // network types having a meaningful estimate, with their JS names
+        private val NETWORK_TYPES = mapOf(
+            C.NETWORK_TYPE_WIFI to "wifi",
+            C.NETWORK_TYPE_ETHERNET to "ethernet",
+            C.NETWORK_TYPE_2G to "2g",
+            C.NETWORK_TYPE_3G to "3g",
+            C.NETWORK_TYPE_4G to "4g",
+            C.NETWORK_TYPE_5G_NSA to "5gNsa",
+            C.NETWORK_TYPE_5G_SA to "5gSa"
+        )
+    }
+}
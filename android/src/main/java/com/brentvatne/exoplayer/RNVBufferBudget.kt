@@ -0,0 +1,133 @@
+package com.brentvatne.exoplayer
+
+import android.app.ActivityManager
+import android.content.Context
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import java.util.Collections
+import java.util.WeakHashMap
+
+/**
+ * Process-wide buffer budget, owned by ReactNativeVideoManager.
+ * Every live RNVLoadControl registers here and receives a quota of the budget weighted by its priority,
+ * so that a visible playing player gets more memory than a paused one, and a paused one more than an offscreen one.
+ * When quotas shrink, players above their quota stop loading and their allocators release idle segments.
+ * Thread safe.
+ */
+class RNVBufferBudget {
+    enum class Priority(val weight: Int) {
+        OFFSCREEN(1),
+        PAUSED(2),
+        PLAYING(4)
+    }
+
+    /**
+     * Snapshot of the budget and the quota of each player
+     */
+    data class Stats(val maxBytes: Long, val allocatedBytes: Long, val players: List<PlayerStats>) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putDouble("maxBytes", maxBytes.toDouble())
+                putDouble("allocatedBytes", allocatedBytes.toDouble())
+                putArray(
+                    "players",
+                    Arguments.createArray().apply {
+                        players.forEach { player ->
+                            pushMap(
+                                Arguments.createMap().apply {
+                                    putString("priority", player.priority.name.lowercase())
+                                    putDouble("allocatedBytes", player.allocatedBytes.toDouble())
+                                    putDouble("quotaBytes", player.quotaBytes.toDouble())
+                                }
+                            )
+                        }
+                    }
+                )
+            }
+    }
+
+    data class PlayerStats(val priority: Priority, val allocatedBytes: Long, val quotaBytes: Long)
+
+    private val loadControls = Collections.newSetFromMap(WeakHashMap<RNVLoadControl, Boolean>())
+    private var defaultMaxBytes = 0L
+    private var configuredMaxBytes = 0L
+
+    /** budget shared by all players, in bytes */
+    val maxBytes: Long
+        @Synchronized get() = if (configuredMaxBytes > 0) configuredMaxBytes else defaultMaxBytes
+
+    /**
+     * Start tracking `loadControl`, the default budget is computed from the heap size on first call
+     */
+    @Synchronized
+    fun register(context: Context, loadControl: RNVLoadControl) {
+        if (defaultMaxBytes == 0L) {
+            val activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+            defaultMaxBytes = (activityManager.memoryClass * DEFAULT_HEAP_RATIO * 1024 * 1024).toLong()
+        }
+        loadControls.add(loadControl)
+        reclaim()
+    }
+
+    @Synchronized
+    fun unregister(loadControl: RNVLoadControl) {
+        loadControls.remove(loadControl)
+    }
+
+    /**
+     * Change the budget, 0 restores the default one
+     */
+    @Synchronized
+    fun setMaxBytes(maxBytes: Long) {
+        configuredMaxBytes = maxBytes.coerceAtLeast(0)
+        reclaim()
+    }
+
+    /**
+     * return the bytes `loadControl` may allocate
+     */
+    @Synchronized
+    fun getQuota(loadControl: RNVLoadControl): Long {
+        val totalWeight = loadControls.sumOf { it.priority.weight }
+        return if (totalWeight > 0) maxBytes * loadControl.priority.weight / totalWeight else maxBytes
+    }
+
+    /**
+     * return the bytes allocated by all live players
+     */
+    @Synchronized
+    fun getTotalBytesAllocated(): Long = loadControls.sumOf { it.allocator.totalBytesAllocated.toLong() }
+
+    @Synchronized
+    fun getPlayerCount(): Int = loadControls.size
+
+    @Synchronized
+    fun getStats(): Stats {
+        val players = loadControls.map { PlayerStats(it.priority, it.allocator.totalBytesAllocated.toLong(), getQuota(it)) }
+        return Stats(maxBytes, players.sumOf { it.allocatedBytes }, players)
+    }
+
+    /**
+     * Called when a player priority changed, players above their new quota release their idle segments
+     */
+    @Synchronized
+    fun reclaim() {
+        loadControls.forEach {
+            if (it.allocator.totalBytesAllocated >= getQuota(it)) {
+                it.releaseIdleSegments()
+            }
+        }
+    }
+
+    /**
+     * Release the idle segments of all players
+     */
+    @Synchronized
+    fun trim() {
+        loadControls.forEach { it.releaseIdleSegments() }
+    }
+
+    companion object {
+        private const val DEFAULT_HEAP_RATIO = 0.25
+    }
+}
@@ -0,0 +1,204 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import androidx.media3.database.DatabaseProvider
+import androidx.media3.database.StandaloneDatabaseProvider
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.datasource.TransferListener
+import androidx.media3.datasource.cache.CacheDataSource
+import androidx.media3.datasource.cache.SimpleCache
+import com.brentvatne.common.toolbox.DebugLog
+import java.io.File
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Media cache shared by all players, owned by ReactNativeVideoManager.
+ * The cache is created by the first source setting bufferConfig.cacheSizeMB,
+ * it grows when a source requests a bigger size and can be resized, cleared or released from JS.
+ * Thread safe.
+ */
+class RNVCache {
+    /**
+     * Snapshot of cache counters
+     */
+    data class Stats(
+        val maxBytes: Long,
+        val bytesUsed: Long,
+        val cachedBytesRead: Long,
+        val upstreamBytesRead: Long,
+        val evictions: Long,
+        val evictedBytes: Long
+    ) {
+        val hitRatio: Double
+            get() = if (cachedBytesRead + upstreamBytesRead > 0) cachedBytesRead.toDouble() / (cachedBytesRead + upstreamBytesRead) else 0.0
+    }
+
+    private var simpleCache: SimpleCache? = null
+    private var evictor: RNVCacheEvictor? = null
+    private var databaseProvider: DatabaseProvider? = null
+
+    val cacheKeyFactory = RNVCacheKeyFactory()
+
+    private val cachedBytesRead = AtomicLong()
+    private val upstreamBytesRead = AtomicLong()
+
+    private val cacheEventListener = object : CacheDataSource.EventListener {
+        override fun onCachedBytesRead(cacheSizeBytes: Long, cachedBytesRead: Long) {
+            this@RNVCache.cachedBytesRead.addAndGet(cachedBytesRead)
+        }
+
+        override fun onCacheIgnored(reason: Int) {
+            // Do nothing.
+        }
+    }
+
+    private val upstreamTransferListener = object : TransferListener {
+        override fun onTransferInitializing(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+            // Do nothing.
+        }
+
+        override fun onTransferStart(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+            // Do nothing.
+        }
+
+        override fun onBytesTransferred(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean, bytesTransferred: Int) {
+            upstreamBytesRead.addAndGet(bytesTransferred.toLong())
+        }
+
+        override fun onTransferEnd(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+            // Do nothing.
+        }
+    }
+
+    /**
+     * Create the cache if needed, or grow it to `cacheSizeMB`
+     * @return true if the cache is available
+     */
+    @Synchronized
+    fun setup(context: Context, cacheSizeMB: Int): Boolean {
+        if (cacheSizeMB <= 0) {
+            return simpleCache != null
+        }
+        val maxBytes = cacheSizeMB.toLong() * 1024 * 1024
+        val cache = simpleCache
+        if (cache == null) {
+            val newEvictor = RNVCacheEvictor(maxBytes)
+            simpleCache = SimpleCache(getCacheDirectory(context), newEvictor, getDatabaseProvider(context))
+            evictor = newEvictor
+        } else if (maxBytes > evictor!!.maxBytes) {
+            evictor!!.setMaxBytes(cache, maxBytes)
+        }
+        return true
+    }
+
+    /**
+     * Change cache size, spans are evicted immediately if needed
+     */
+    @Synchronized
+    fun setMaxSize(context: Context, cacheSizeMB: Int) {
+        val cache = simpleCache
+        if (cache == null) {
+            setup(context, cacheSizeMB)
+        } else if (cacheSizeMB > 0) {
+            evictor!!.setMaxBytes(cache, cacheSizeMB.toLong() * 1024 * 1024)
+        }
+    }
+
+    /**
+     * Remove all cached content, the cache stays available
+     */
+    @Synchronized
+    fun clear() {
+        val cache = simpleCache ?: return
+        cache.keys.toList().forEach { cache.removeResource(it) }
+    }
+
+    /**
+     * Release the cache, it will be created again by the next source setting cacheSizeMB.
+     * Players still reading the cache will fail, so it shall be called when no video is playing.
+     */
+    @Synchronized
+    fun release() {
+        val cache = simpleCache ?: return
+        try {
+            cache.release()
+        } catch (e: Exception) {
+            DebugLog.w(TAG, "cannot release cache: " + e.message)
+        }
+        simpleCache = null
+        evictor = null
+    }
+
+    @Synchronized
+    fun getStats(): Stats {
+        val currentEvictor = evictor
+        return Stats(
+            currentEvictor?.maxBytes ?: 0,
+            simpleCache?.cacheSpace ?: 0,
+            cachedBytesRead.get(),
+            upstreamBytesRead.get(),
+            currentEvictor?.evictedSpans ?: 0,
+            currentEvictor?.evictedBytes ?: 0
+        )
+    }
+
+    /**
+     * return a factory reading and writing the cache, or `factory` if the cache is not created
+     * @param metrics optional counters of the player using the factory
+     */
+    fun getCacheFactory(factory: HttpDataSource.Factory, metrics: RNVCacheMetrics?): DataSource.Factory {
+        val cacheFactory = getCacheDataSourceFactory(factory, true) ?: return factory
+        if (metrics == null) {
+            return cacheFactory
+        }
+        cacheFactory.setEventListener(object : CacheDataSource.EventListener {
+            override fun onCachedBytesRead(cacheSizeBytes: Long, cachedBytesRead: Long) {
+                cacheEventListener.onCachedBytesRead(cacheSizeBytes, cachedBytesRead)
+            }
+
+            override fun onCacheIgnored(reason: Int) {
+                cacheEventListener.onCacheIgnored(reason)
+                metrics.onCacheIgnored(reason)
+            }
+        })
+        return DataSource.Factory { cacheFactory.createDataSource().also { it.addTransferListener(metrics) } }
+    }
+
+    /**
+     * return a factory reading and writing the cache, or null if the cache is not created
+     * @param trackStats false to not count the transfers in hit ratio, for preloads
+     */
+    @Synchronized
+    fun getCacheDataSourceFactory(factory: HttpDataSource.Factory, trackStats: Boolean): CacheDataSource.Factory? {
+        val cache = simpleCache ?: return null
+        val cacheFactory = CacheDataSource.Factory()
+            .setCache(cache)
+            .setCacheKeyFactory(cacheKeyFactory)
+        if (trackStats) {
+            cacheFactory
+                .setUpstreamDataSourceFactory {
+                    factory.createDataSource().also { it.addTransferListener(upstreamTransferListener) }
+                }
+                .setEventListener(cacheEventListener)
+        } else {
+            cacheFactory.setUpstreamDataSourceFactory(factory)
+        }
+        return cacheFactory
+    }
+
+    /**
+     * Database shared by the media cache and offline downloads
+     */
+    @Synchronized
+    fun getDatabaseProvider(context: Context): DatabaseProvider =
+        databaseProvider ?: StandaloneDatabaseProvider(context.applicationContext).also { databaseProvider = it }
+
+    companion object {
+        private const val TAG = "RNVCache"
+        private const val CACHE_DIRECTORY = "RNVCache"
+
+        fun getCacheDirectory(context: Context): File = File(context.cacheDir, CACHE_DIRECTORY)
+    }
+}
@@ -0,0 +1,98 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.common.C
+import androidx.media3.datasource.cache.Cache
+import androidx.media3.datasource.cache.CacheEvictor
+import androidx.media3.datasource.cache.CacheSpan
+import java.util.TreeSet
+
+/**
+ * Least recently used evictor with a size which can be changed at runtime.
+ * Manifests and initialization segments are only evicted once no media segment is left,
+ * they are small and needed again as soon as the content is replayed.
+ * Callbacks are invoked with the cache lock held.
+ */
+class RNVCacheEvictor(maxBytes: Long) : CacheEvictor {
+    private val mediaSpans = TreeSet<CacheSpan> { lhs, rhs -> compare(lhs, rhs) }
+    private val durableSpans = TreeSet<CacheSpan> { lhs, rhs -> compare(lhs, rhs) }
+    private var currentSize = 0L
+
+    @Volatile
+    var maxBytes: Long = maxBytes
+        private set
+
+    @Volatile
+    var evictedSpans = 0L
+        private set
+
+    @Volatile
+    var evictedBytes = 0L
+        private set
+
+    /**
+     * Update maximum size, spans are evicted immediately if cache is too big
+     */
+    fun setMaxBytes(cache: Cache, maxBytes: Long) {
+        synchronized(cache) {
+            this.maxBytes = maxBytes
+            evictCache(cache, 0)
+        }
+    }
+
+    override fun requiresCacheSpanTouches(): Boolean = true
+
+    override fun onCacheInitialized() {
+        // Do nothing.
+    }
+
+    override fun onStartFile(cache: Cache, key: String, position: Long, length: Long) {
+        if (length != C.LENGTH_UNSET.toLong()) {
+            evictCache(cache, length)
+        }
+    }
+
+    override fun onSpanAdded(cache: Cache, span: CacheSpan) {
+        spansOf(span).add(span)
+        currentSize += span.length
+        evictCache(cache, 0)
+    }
+
+    override fun onSpanRemoved(cache: Cache, span: CacheSpan) {
+        spansOf(span).remove(span)
+        currentSize -= span.length
+    }
+
+    override fun onSpanTouched(cache: Cache, oldSpan: CacheSpan, newSpan: CacheSpan) {
+        onSpanRemoved(cache, oldSpan)
+        onSpanAdded(cache, newSpan)
+    }
+
+    private fun spansOf(span: CacheSpan): TreeSet<CacheSpan> = if (isDurable(span.key)) durableSpans else mediaSpans
+
+    private fun evictCache(cache: Cache, requiredSpace: Long) {
+        while (currentSize + requiredSpace > maxBytes) {
+            val span = (if (mediaSpans.isNotEmpty()) mediaSpans.first() else durableSpans.firstOrNull()) ?: return
+            cache.removeSpan(span)
+            evictedSpans++
+            evictedBytes += span.length
+        }
+    }
+
+    companion object {
+        private val DURABLE_EXTENSIONS = listOf(".mpd", ".m3u8", ".ism", "/manifest")
+
+        private fun compare(lhs: CacheSpan, rhs: CacheSpan): Int {
+            val lastTouchTimestampDelta = lhs.lastTouchTimestamp - rhs.lastTouchTimestamp
+            return if (lastTouchTimestampDelta == 0L) lhs.compareTo(rhs) else if (lastTouchTimestampDelta < 0) -1 else 1
+        }
+
+        /**
+         * return true if the cache key looks like a manifest or an initialization segment
+         */
+        fun isDurable(key: String): Boolean {
+            val path = key.substringBefore('?').lowercase()
+            val fileName = path.substringAfterLast('/')
+            return DURABLE_EXTENSIONS.any { path.endsWith(it) } || fileName.contains("init")
+        }
+    }
+}
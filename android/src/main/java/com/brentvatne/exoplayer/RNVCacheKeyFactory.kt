@@ -0,0 +1,66 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.cache.CacheKeyFactory
+
+/**
+ * Build cache keys from the request uri without its authentication query parameters,
+ * so that the same content requested with different signed urls shares the same cache entries.
+ * A key set explicitly on the DataSpec is always used as is.
+ */
+class RNVCacheKeyFactory : CacheKeyFactory {
+    @Volatile
+    private var ignoredQueryParameters: Set<String> = DEFAULT_IGNORED_QUERY_PARAMETERS
+
+    /**
+     * Replace the list of query parameter names (case insensitive) removed from cache keys.
+     * A name ending with '*' matches all parameters starting with that prefix.
+     */
+    fun setIgnoredQueryParameters(names: Collection<String>) {
+        ignoredQueryParameters = names.map { it.lowercase() }.toSet()
+    }
+
+    override fun buildCacheKey(dataSpec: DataSpec): String = dataSpec.key ?: buildCacheKey(dataSpec.uri)
+
+    fun buildCacheKey(uri: Uri): String {
+        if (uri.isOpaque || uri.encodedQuery == null) {
+            return uri.toString()
+        }
+        val names = uri.queryParameterNames
+        if (names.none { isIgnored(it) }) {
+            return uri.toString()
+        }
+        val builder = uri.buildUpon().clearQuery()
+        for (name in names) {
+            if (!isIgnored(name)) {
+                uri.getQueryParameters(name).forEach { builder.appendQueryParameter(name, it) }
+            }
+        }
+        return builder.build().toString()
+    }
+
+    private fun isIgnored(name: String): Boolean {
+        val lowerName = name.lowercase()
+        return ignoredQueryParameters.any {
+            if (it.endsWith('*')) lowerName.startsWith(it.dropLast(1)) else lowerName == it
+        }
+    }
+
+    companion object {
+        val DEFAULT_IGNORED_QUERY_PARAMETERS = setOf(
+            "token",
+            "signature",
+            "sig",
+            "expires",
+            "policy",
+            "key-pair-id",
+            "hdnts",
+            "hdnea",
+            "auth",
+            "auth_key",
+            "x-amz-*",
+            "x-goog-*"
+        )
+    }
+}
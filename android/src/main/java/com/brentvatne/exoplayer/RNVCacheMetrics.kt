@@ -0,0 +1,144 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.TransferListener
+import androidx.media3.datasource.cache.CacheDataSource
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+
+/**
+ * Cache I/O counters of one player instance.
+ * Added as transfer listener to each CacheDataSource of the player, it receives the transfers of both
+ * the cache file source (isNetwork = false) and the upstream source (isNetwork = true).
+ * Latencies are measured between the opening of a transfer and its first byte.
+ * Callbacks come from loading threads, snapshots are taken from the main thread.
+ */
+class RNVCacheMetrics(val instanceId: String) :
+    TransferListener,
+    CacheDataSource.EventListener {
+
+    /**
+     * Snapshot of the counters
+     */
+    data class Snapshot(
+        val instanceId: String,
+        val cachedBytesRead: Long,
+        val upstreamBytesRead: Long,
+        val cacheReads: Long,
+        val upstreamReads: Long,
+        val ignoredForError: Long,
+        val ignoredForUnsetLength: Long,
+        val averageCacheLatencyMs: Double,
+        val averageUpstreamLatencyMs: Double,
+        val maxUpstreamLatencyMs: Long
+    ) {
+        val hitRatio: Double
+            get() = if (cachedBytesRead + upstreamBytesRead > 0) cachedBytesRead.toDouble() / (cachedBytesRead + upstreamBytesRead) else 0.0
+
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putString("instanceId", instanceId)
+                putDouble("cachedBytesRead", cachedBytesRead.toDouble())
+                putDouble("upstreamBytesRead", upstreamBytesRead.toDouble())
+                putDouble("hitRatio", hitRatio)
+                putDouble("cacheReads", cacheReads.toDouble())
+                putDouble("upstreamReads", upstreamReads.toDouble())
+                putDouble("ignoredForError", ignoredForError.toDouble())
+                putDouble("ignoredForUnsetLength", ignoredForUnsetLength.toDouble())
+                putDouble("averageCacheLatencyMs", averageCacheLatencyMs)
+                putDouble("averageUpstreamLatencyMs", averageUpstreamLatencyMs)
+                putDouble("maxUpstreamLatencyMs", maxUpstreamLatencyMs.toDouble())
+            }
+    }
+
+    // transfers which fail to open never end, the oldest open times are dropped
+    private val openTimes = object : LinkedHashMap<DataSpec, Long>() {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<DataSpec, Long>?): Boolean = size > MAX_OPEN_TRANSFERS
+    }
+
+    private var cachedBytesRead = 0L
+    private var upstreamBytesRead = 0L
+    private var cacheReads = 0L
+    private var upstreamReads = 0L
+    private var ignoredForError = 0L
+    private var ignoredForUnsetLength = 0L
+    private var cacheLatencySumMs = 0L
+    private var upstreamLatencySumMs = 0L
+    private var maxUpstreamLatencyMs = 0L
+
+    /** incremented on each change, used to skip events when nothing happened */
+    @Volatile
+    var version = 0L
+        private set
+
+    @Synchronized
+    override fun onTransferInitializing(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        openTimes[dataSpec] = SystemClock.elapsedRealtime()
+    }
+
+    override fun onTransferStart(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        // Do nothing.
+    }
+
+    @Synchronized
+    override fun onBytesTransferred(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean, bytesTransferred: Int) {
+        // first bytes of the transfer
+        openTimes.remove(dataSpec)?.let { openTime ->
+            val latencyMs = SystemClock.elapsedRealtime() - openTime
+            if (isNetwork) {
+                upstreamReads++
+                upstreamLatencySumMs += latencyMs
+                maxUpstreamLatencyMs = maxOf(maxUpstreamLatencyMs, latencyMs)
+            } else {
+                cacheReads++
+                cacheLatencySumMs += latencyMs
+            }
+        }
+        if (isNetwork) {
+            upstreamBytesRead += bytesTransferred
+        } else {
+            cachedBytesRead += bytesTransferred
+        }
+        version++
+    }
+
+    @Synchronized
+    override fun onTransferEnd(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        openTimes.remove(dataSpec)
+    }
+
+    override fun onCachedBytesRead(cacheSizeBytes: Long, cachedBytesRead: Long) {
+        // Already counted by onBytesTransferred.
+    }
+
+    @Synchronized
+    override fun onCacheIgnored(reason: Int) {
+        when (reason) {
+            CacheDataSource.CACHE_IGNORED_REASON_ERROR -> ignoredForError++
+            CacheDataSource.CACHE_IGNORED_REASON_UNSET_LENGTH -> ignoredForUnsetLength++
+        }
+        version++
+    }
+
+    @Synchronized
+    fun snapshot(): Snapshot =
+        Snapshot(
+            instanceId,
+            cachedBytesRead,
+            upstreamBytesRead,
+            cacheReads,
+            upstreamReads,
+            ignoredForError,
+            ignoredForUnsetLength,
+            if (cacheReads > 0) cacheLatencySumMs.toDouble() / cacheReads else 0.0,
+            if (upstreamReads > 0) upstreamLatencySumMs.toDouble() / upstreamReads else 0.0,
+            maxUpstreamLatencyMs
+        )
+
+    companion object {
+        // a player has a few loads at once, each opening a cache and an upstream transfer
+        private const val MAX_OPEN_TRANSFERS = 32
+    }
+}
@@ -0,0 +1,271 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import android.os.SystemClock
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.ReactContext
+import com.facebook.react.bridge.WritableArray
+import com.facebook.react.bridge.WritableMap
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.Connection
+import okhttp3.EventListener
+import okhttp3.Handshake
+import okhttp3.Headers.Companion.toHeaders
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import java.io.IOException
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.TimeUnit
+
+/**
+ * Opens the connections a source needs before the player requests them, owned by ReactNativeVideoManager.
+ * A HEAD request is sent to the manifest, license server and known segment hosts of the source, on the OkHttpClient of react native,
+ * so that DNS resolution, TCP and TLS handshakes are done and the connections are pooled when the player starts.
+ * Requests are enqueued on the OkHttp dispatcher, not run on RNVWorkerPool threads, and give up after WARMUP_TIMEOUT_MS.
+ * Segment hosts are learned from the requests of the players, per manifest host.
+ * The time of each phase is recorded for the last MAX_TIMINGS warmups.
+ * Thread safe.
+ */
+class RNVConnectionPrewarmer {
+    data class Timing(
+        val origin: String,
+        val protocol: String?,
+        val reused: Boolean,
+        val dnsMs: Long,
+        val connectMs: Long,
+        val tlsMs: Long,
+        val responseMs: Long,
+        val totalMs: Long,
+        val error: String?
+    ) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putString("origin", origin)
+                putString("protocol", protocol)
+                putBoolean("reused", reused)
+                putDouble("dnsMs", dnsMs.toDouble())
+                putDouble("connectMs", connectMs.toDouble())
+                putDouble("tlsMs", tlsMs.toDouble())
+                putDouble("responseMs", responseMs.toDouble())
+                putDouble("totalMs", totalMs.toDouble())
+                putString("error", error)
+            }
+    }
+
+    /**
+     * Phase times of one warmup call, -1 for the phases which didn't happen
+     */
+    private class TimingListener : EventListener() {
+        var callStartMs = -1L
+        var dnsStartMs = -1L
+        var dnsEndMs = -1L
+        var connectStartMs = -1L
+        var secureConnectStartMs = -1L
+        var secureConnectEndMs = -1L
+        var connectEndMs = -1L
+        var requestStartMs = -1L
+        var responseStartMs = -1L
+        var protocol: Protocol? = null
+
+        override fun callStart(call: Call) {
+            callStartMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun dnsStart(call: Call, domainName: String) {
+            dnsStartMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun dnsEnd(call: Call, domainName: String, inetAddressList: List<InetAddress>) {
+            dnsEndMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+            connectStartMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun secureConnectStart(call: Call) {
+            secureConnectStartMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun secureConnectEnd(call: Call, handshake: Handshake?) {
+            secureConnectEndMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun connectEnd(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy, protocol: Protocol?) {
+            connectEndMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun connectionAcquired(call: Call, connection: Connection) {
+            protocol = connection.protocol()
+        }
+
+        override fun requestHeadersStart(call: Call) {
+            requestStartMs = SystemClock.elapsedRealtime()
+        }
+
+        override fun responseHeadersStart(call: Call) {
+            responseStartMs = SystemClock.elapsedRealtime()
+        }
+
+        fun toTiming(origin: String, error: String?): Timing =
+            Timing(
+                origin,
+                protocol?.toString(),
+                connectStartMs < 0,
+                duration(dnsStartMs, dnsEndMs),
+                duration(connectStartMs, connectEndMs),
+                duration(secureConnectStartMs, secureConnectEndMs),
+                duration(requestStartMs, responseStartMs),
+                duration(callStartMs, SystemClock.elapsedRealtime()),
+                error
+            )
+
+        private fun duration(startMs: Long, endMs: Long): Long = if (startMs >= 0 && endMs >= startMs) endMs - startMs else -1
+    }
+
+    private val warmTimesMs = HashMap<String, Long>()
+    private val segmentOrigins = object : LinkedHashMap<String, LinkedHashSet<String>>(MAX_MANIFEST_ORIGINS, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, LinkedHashSet<String>>?): Boolean = size > MAX_MANIFEST_ORIGINS
+    }
+    private val timings = ArrayDeque<Timing>()
+    private var baseClient: OkHttpClient? = null
+    private var warmupClient: OkHttpClient? = null
+
+    /**
+     * Open the connections to the hosts of `source`, and to `extraUris`, in background
+     */
+    @JvmOverloads
+    fun prewarm(context: ReactContext, source: Source, extraUris: List<Uri> = emptyList()) {
+        val sourceUri = source.uri ?: return
+        val uris = ArrayList<Uri>()
+        uris.add(sourceUri)
+        source.drmProps?.drmLicenseServer?.let { uris.add(Uri.parse(it)) }
+        uris.addAll(extraUris)
+        val nowMs = SystemClock.elapsedRealtime()
+        val targets = LinkedHashMap<String, Uri>()
+        synchronized(this) {
+            getOrigin(sourceUri)?.let { segmentOrigins[it] }?.forEach { uris.add(Uri.parse(it)) }
+            for (uri in uris) {
+                val origin = getOrigin(uri) ?: continue
+                if (targets.containsKey(origin) || nowMs - (warmTimesMs[origin] ?: -WARM_TTL_MS) < WARM_TTL_MS) {
+                    continue
+                }
+                warmTimesMs[origin] = nowMs
+                // the source itself is requested, other hosts at their root, they only need to accept the connection
+                targets[origin] = if (uri === sourceUri) uri else Uri.parse("$origin/")
+            }
+        }
+        if (targets.isEmpty()) {
+            return
+        }
+        val client = getWarmupClient(context)
+        for ((origin, uri) in targets) {
+            // the source headers are only meant for the source host
+            val headers = if (uri === sourceUri) source.headers.toMap() else emptyMap()
+            warm(client, origin, uri, headers)
+        }
+    }
+
+    /**
+     * Remember the host of a request made for `sourceUri`, its next warmups will include it
+     */
+    fun recordRequest(sourceUri: Uri, requestUri: Uri) {
+        val sourceOrigin = getOrigin(sourceUri) ?: return
+        val requestOrigin = getOrigin(requestUri) ?: return
+        if (sourceOrigin == requestOrigin) {
+            return
+        }
+        synchronized(this) {
+            val origins = segmentOrigins.getOrPut(sourceOrigin) { LinkedHashSet() }
+            if (origins.add(requestOrigin) && origins.size > MAX_SEGMENT_ORIGINS) {
+                origins.remove(origins.first())
+            }
+        }
+    }
+
+    @Synchronized
+    fun getTimings(): WritableArray = Arguments.createArray().apply { timings.forEach { pushMap(it.toWritableMap()) } }
+
+    private fun warm(client: OkHttpClient, origin: String, uri: Uri, headers: Map<String, String>) {
+        val listener = TimingListener()
+        val request = try {
+            Request.Builder()
+                .url(uri.toString())
+                .headers(headers.toHeaders())
+                .head()
+                .tag(TimingListener::class.java, listener)
+                .build()
+        } catch (e: IllegalArgumentException) {
+            onWarmed(origin, listener, e)
+            return
+        }
+        client.newCall(request).enqueue(object : Callback {
+            override fun onResponse(call: Call, response: Response) {
+                // the response status doesn't matter, the connection is pooled once it is established
+                response.close()
+                onWarmed(origin, listener, null)
+            }
+
+            override fun onFailure(call: Call, e: IOException) {
+                onWarmed(origin, listener, e)
+            }
+        })
+    }
+
+    private fun onWarmed(origin: String, listener: TimingListener, exception: Exception?) {
+        val error = exception?.let { it.message ?: it.javaClass.simpleName }
+        if (error != null) {
+            DebugLog.w(TAG, "failed to prewarm $origin: $error")
+        }
+        val timing = listener.toTiming(origin, error)
+        synchronized(this) {
+            timings.addLast(timing)
+            if (timings.size > MAX_TIMINGS) {
+                timings.removeFirst()
+            }
+        }
+    }
+
+    /**
+     * return a client sharing the connection pool of the react native one, reporting the phases of its calls
+     */
+    @Synchronized
+    private fun getWarmupClient(context: ReactContext): OkHttpClient {
+        val client = DataSourceUtil.getOkHttpClient(context)
+        if (client !== baseClient || warmupClient == null) {
+            baseClient = client
+            warmupClient = client.newBuilder()
+                .callTimeout(WARMUP_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .eventListenerFactory { call -> call.request().tag(TimingListener::class.java) ?: EventListener.NONE }
+                .build()
+        }
+        return warmupClient!!
+    }
+
+    companion object {
+        private const val TAG = "RNVConnectionPrewarmer"
+        private const val WARMUP_TIMEOUT_MS = 10_000L
+        private const val WARM_TTL_MS = 60_000L
+        private const val MAX_TIMINGS = 32
+        private const val MAX_MANIFEST_ORIGINS = 32
+        private const val MAX_SEGMENT_ORIGINS = 4
+
+        /**
+         * return scheme://host[:port] of http and https uris, null for other uris
+         */
+        private fun getOrigin(uri: Uri): String? {
+            val scheme = uri.scheme?.lowercase()
+            if ((scheme != "http" && scheme != "https") || uri.host.isNullOrEmpty()) {
+                return null
+            }
+            return if (uri.port != -1) "$scheme://${uri.host}:${uri.port}" else "$scheme://${uri.host}"
+        }
+    }
+}
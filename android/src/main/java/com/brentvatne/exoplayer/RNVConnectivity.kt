@@ -0,0 +1,147 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.net.ConnectivityManager
+import android.net.Network
+import android.net.NetworkCapabilities
+import android.net.NetworkRequest
+import android.os.SystemClock
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.HttpDataSource
+import com.brentvatne.common.toolbox.DebugLog
+import java.io.InterruptedIOException
+
+/**
+ * Network availability shared by all players, owned by ReactNativeVideoManager.
+ * Networks are tracked with a ConnectivityManager.NetworkCallback, so that loads waiting for the network resume as soon as one is available:
+ * once a load error happens offline, the retry policy holds the requests, they block in open until a network is available,
+ * or at most OFFLINE_WAIT_MS, instead of being retried periodically.
+ * Thread safe.
+ */
+class RNVConnectivity {
+    /**
+     * Http data source waiting for the network before opening the requests, while they are held
+     */
+    class GatedDataSource(private val upstream: HttpDataSource, private val connectivity: RNVConnectivity) : HttpDataSource by upstream {
+        class Factory(private val upstream: HttpDataSource.Factory, private val connectivity: RNVConnectivity) : HttpDataSource.Factory {
+            override fun createDataSource(): HttpDataSource = GatedDataSource(upstream.createDataSource(), connectivity)
+
+            override fun setDefaultRequestProperties(defaultRequestProperties: Map<String, String>): HttpDataSource.Factory {
+                upstream.setDefaultRequestProperties(defaultRequestProperties)
+                return this
+            }
+        }
+
+        override fun open(dataSpec: DataSpec): Long {
+            connectivity.awaitNetwork()
+            return upstream.open(dataSpec)
+        }
+    }
+
+    private val networks = HashSet<Network>()
+    private val lock = Object()
+    private var registered = false
+
+    // assumed online until the connectivity manager tells otherwise
+    @Volatile
+    private var online = true
+
+    @Volatile
+    private var holdRequests = false
+
+    private val networkCallback = object : ConnectivityManager.NetworkCallback() {
+        override fun onAvailable(network: Network) {
+            synchronized(lock) {
+                networks.add(network)
+                updateOnline()
+            }
+        }
+
+        override fun onLost(network: Network) {
+            synchronized(lock) {
+                networks.remove(network)
+                updateOnline()
+            }
+        }
+    }
+
+    /** false when no network with internet access is available */
+    val isOnline: Boolean
+        get() = online
+
+    /**
+     * Register the network callback, on first call only
+     */
+    fun register(context: Context) {
+        synchronized(lock) {
+            if (registered) {
+                return
+            }
+            registered = true
+        }
+        val connectivityManager = context.applicationContext.getSystemService(Context.CONNECTIVITY_SERVICE) as? ConnectivityManager ?: return
+        try {
+            val request = NetworkRequest.Builder().addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET).build()
+            synchronized(lock) {
+                online = connectivityManager.activeNetwork != null
+            }
+            connectivityManager.registerNetworkCallback(request, networkCallback)
+        } catch (e: RuntimeException) {
+            // missing ACCESS_NETWORK_STATE permission or too many callbacks registered, requests are never held
+            DebugLog.w(TAG, "failed to track network availability: ${e.message}")
+            synchronized(lock) {
+                online = true
+            }
+        }
+    }
+
+    /**
+     * Hold the requests until a network is available, called by the retry policy for the errors happening offline
+     */
+    fun holdUntilOnline() {
+        synchronized(lock) {
+            if (!online) {
+                holdRequests = true
+            }
+        }
+    }
+
+    /**
+     * Block while requests are held, until a network is available or OFFLINE_WAIT_MS elapsed
+     */
+    fun awaitNetwork() {
+        if (!holdRequests) {
+            return
+        }
+        val deadlineMs = SystemClock.elapsedRealtime() + OFFLINE_WAIT_MS
+        synchronized(lock) {
+            while (holdRequests) {
+                val remainingMs = deadlineMs - SystemClock.elapsedRealtime()
+                if (remainingMs <= 0) {
+                    return
+                }
+                try {
+                    lock.wait(remainingMs)
+                } catch (e: InterruptedException) {
+                    // the load is canceled
+                    Thread.currentThread().interrupt()
+                    throw InterruptedIOException()
+                }
+            }
+        }
+    }
+
+    private fun updateOnline() {
+        online = networks.isNotEmpty()
+        if (online && holdRequests) {
+            DebugLog.d(TAG, "network available, resuming held requests")
+            holdRequests = false
+            lock.notifyAll()
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVConnectivity"
+        private const val OFFLINE_WAIT_MS = 30_000L
+    }
+}
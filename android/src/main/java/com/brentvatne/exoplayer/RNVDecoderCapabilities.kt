@@ -0,0 +1,87 @@
+package com.brentvatne.exoplayer
+
+import androidx.media3.common.Format
+import androidx.media3.common.MimeTypes
+import androidx.media3.exoplayer.mediacodec.MediaCodecInfo
+import androidx.media3.exoplayer.mediacodec.MediaCodecUtil
+import com.brentvatne.common.toolbox.DebugLog
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Video decoder capabilities shared by the players and the decoder info module, owned by ReactNativeVideoManager.
+ * Decoder lists are loaded once per mime type, the first ones asynchronously at startup,
+ * and the support of each (mime, width, height, frame rate, secure) query is memoized.
+ * Thread safe.
+ */
+class RNVDecoderCapabilities(private val workerPool: RNVWorkerPool) {
+    enum class Support(val value: String) {
+        UNSUPPORTED("unsupported"),
+        SOFTWARE("software"),
+        HARDWARE("hardware"),
+
+        /** decoders couldn't be listed */
+        UNKNOWN("unknown")
+    }
+
+    data class Query(val mimeType: String, val width: Int, val height: Int, val frameRate: Float = Format.NO_VALUE.toFloat(), val secure: Boolean = false)
+
+    private val supports = ConcurrentHashMap<Query, Support>()
+
+    @Volatile
+    private var isWarmUpStarted = false
+
+    /**
+     * Load the decoder lists of the common video codecs in background, the first call to MediaCodecUtil scans all the codecs
+     */
+    fun warmUp() {
+        if (isWarmUpStarted) {
+            return
+        }
+        isWarmUpStarted = true
+        // lists are loaded on first use if the pool is full
+        workerPool.tryExecute(WORKER_OWNER, "decoder capabilities") {
+            for (mimeType in WARM_UP_MIME_TYPES) {
+                getDecoders(mimeType, false)
+            }
+        }
+    }
+
+    fun getSupport(query: Query): Support =
+        supports.getOrPut(query) {
+            val decoders = getDecoders(query.mimeType, query.secure) ?: return@getOrPut Support.UNKNOWN
+            val width = if (query.width == Format.NO_VALUE) 0 else query.width
+            val height = if (query.height == Format.NO_VALUE) 0 else query.height
+            // frame rates below 1 (unset) only check the size
+            val decoder = decoders.firstOrNull { width == 0 || height == 0 || it.isVideoSizeAndRateSupportedV21(width, height, query.frameRate.toDouble()) }
+            when {
+                decoder == null -> Support.UNSUPPORTED
+                decoder.hardwareAccelerated -> Support.HARDWARE
+                else -> Support.SOFTWARE
+            }
+        }
+
+    fun getSupports(queries: List<Query>): List<Support> = queries.map { getSupport(it) }
+
+    /**
+     * return whether `format` can be decoded, formats without sample mime type or whose decoders can't be listed are assumed to be
+     */
+    fun isFormatSupported(format: Format): Boolean {
+        val mimeType = format.sampleMimeType ?: return true
+        return getSupport(Query(mimeType, format.width, format.height, format.frameRate)) != Support.UNSUPPORTED
+    }
+
+    private fun getDecoders(mimeType: String, secure: Boolean): List<MediaCodecInfo>? =
+        try {
+            // decoder lists are cached by MediaCodecUtil
+            MediaCodecUtil.getDecoderInfos(mimeType, secure, false)
+        } catch (e: MediaCodecUtil.DecoderQueryException) {
+            DebugLog.w(TAG, "failed to list $mimeType decoders: ${e.message}")
+            null
+        }
+
+    companion object {
+        private const val TAG = "RNVDecoderCapabilities"
+        private const val WORKER_OWNER = "RNVDecoderCapabilities"
+        private val WARM_UP_MIME_TYPES = listOf(MimeTypes.VIDEO_H264, MimeTypes.VIDEO_H265, MimeTypes.VIDEO_VP9, MimeTypes.VIDEO_AV1)
+    }
+}
@@ -0,0 +1,350 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.content.Intent
+import android.net.Uri
+import android.os.Handler
+import android.os.Looper
+import androidx.media3.common.util.Util
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.cache.CacheDataSource
+import androidx.media3.datasource.cache.NoOpCacheEvictor
+import androidx.media3.datasource.cache.SimpleCache
+import androidx.media3.datasource.okhttp.OkHttpDataSource
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.offline.DefaultDownloadIndex
+import androidx.media3.exoplayer.offline.DefaultDownloaderFactory
+import androidx.media3.exoplayer.offline.Download
+import androidx.media3.exoplayer.offline.DownloadHelper
+import androidx.media3.exoplayer.offline.DownloadManager
+import androidx.media3.exoplayer.offline.DownloadRequest
+import androidx.media3.exoplayer.offline.DownloadService
+import androidx.media3.exoplayer.offline.DownloaderFactory
+import androidx.media3.exoplayer.scheduler.Requirements
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.facebook.react.bridge.ReactContext
+import com.facebook.react.modules.network.OkHttpClientProvider
+import okhttp3.Call
+import org.json.JSONObject
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+
+/**
+ * Offline downloads, owned by ReactNativeVideoManager.
+ * Downloads are stored in a cache which is never evicted, next to RNVCache and sharing its database.
+ * Players read completed downloads transparently, see getDownloadRequest and getPlaybackDataSourceFactory.
+ * If the application declares RNVDownloadService in its manifest, downloads are run by this foreground service,
+ * else they only progress while the application is alive.
+ * The DownloadManager, with its cache and index, is created once in background by initialize, if something was ever downloaded.
+ * All methods must be called from the main thread, except initialize and getDownloadManager.
+ */
+class RNVDownloadManager(private val cache: RNVCache, private val workerPool: RNVWorkerPool) {
+    /**
+     * Subset of tracks to download, DASH and HLS only.
+     * Progressive streams are always fully downloaded.
+     */
+    class TrackOptions(val maxBitrate: Int, val maxHeight: Int, val audioLanguages: List<String>, val textLanguages: List<String>)
+
+    interface Listener {
+        /** called on state changes and periodically while downloads progress */
+        fun onDownloadsChanged(downloads: List<Download>)
+    }
+
+    @Volatile
+    private var downloadManager: DownloadManager? = null
+
+    @Volatile
+    private var downloadCache: SimpleCache? = null
+
+    @Volatile
+    private var hasDownloadService = false
+
+    // completed downloads by cache key of their uri, read by players
+    private val completedDownloads = ConcurrentHashMap<String, Download>()
+    private val handler = Handler(Looper.getMainLooper())
+    private val progressRunnable = Runnable { notifyProgress() }
+
+    private var maxParallelDownloads = DEFAULT_MAX_PARALLEL_DOWNLOADS
+    private var requirements = Requirements(Requirements.NETWORK)
+
+    @Volatile
+    var listener: Listener? = null
+
+    private val downloadListener = object : DownloadManager.Listener {
+        override fun onInitialized(downloadManager: DownloadManager) {
+            // downloads restored from the index, possibly by the download service, report their progress from now on
+            notifyProgress()
+        }
+
+        override fun onDownloadChanged(downloadManager: DownloadManager, download: Download, finalException: Exception?) {
+            val key = cache.cacheKeyFactory.buildCacheKey(download.request.uri)
+            if (download.state == Download.STATE_COMPLETED) {
+                completedDownloads[key] = download
+            } else {
+                completedDownloads.remove(key)
+            }
+            if (finalException != null) {
+                DebugLog.w(TAG, "download ${download.request.id} failed: " + finalException.message)
+            }
+            notifyProgress()
+        }
+
+        override fun onDownloadRemoved(downloadManager: DownloadManager, download: Download) {
+            completedDownloads.remove(cache.cacheKeyFactory.buildCacheKey(download.request.uri))
+            notifyProgress()
+        }
+    }
+
+    /**
+     * Create the DownloadManager in background if something was ever downloaded, so that players find completed downloads
+     * and restored downloads report their progress without creating it on the main thread
+     */
+    fun initialize(context: Context) {
+        if (downloadManager != null) {
+            return
+        }
+        val appContext = context.applicationContext
+        // it is created on first use if the pool is full
+        workerPool.tryExecute(WORKER_OWNER, "initialize downloads") {
+            if (getDownloadDirectory(appContext).exists()) {
+                getDownloadManager(appContext)
+            }
+        }
+    }
+
+    /**
+     * Return the DownloadManager, it is created on first call
+     */
+    @Synchronized
+    fun getDownloadManager(context: Context): DownloadManager {
+        downloadManager?.let { return it }
+        val appContext = context.applicationContext
+        val databaseProvider = cache.getDatabaseProvider(appContext)
+        val newCache = SimpleCache(getDownloadDirectory(appContext), NoOpCacheEvictor(), databaseProvider)
+        val executor = Executors.newFixedThreadPool(DOWNLOAD_THREADS) { Thread(it, "RNVDownload") }
+        val userAgent = Util.getUserAgent(appContext, appContext.packageName)
+        val downloaderFactory = DownloaderFactory { request ->
+            val upstreamFactory = OkHttpDataSource.Factory(OkHttpClientProvider.getOkHttpClient() as Call.Factory)
+                .setUserAgent(userAgent)
+                .setDefaultRequestProperties(getRequestHeaders(request))
+            val cacheFactory = CacheDataSource.Factory()
+                .setCache(newCache)
+                .setCacheKeyFactory(cache.cacheKeyFactory)
+                .setUpstreamDataSourceFactory(upstreamFactory)
+            DefaultDownloaderFactory(cacheFactory, executor).createDownloader(request)
+        }
+        val manager = DownloadManager(appContext, DefaultDownloadIndex(databaseProvider), downloaderFactory)
+        manager.maxParallelDownloads = maxParallelDownloads
+        manager.requirements = requirements
+        manager.addListener(downloadListener)
+        manager.downloadIndex.getDownloads(Download.STATE_COMPLETED).use { cursor ->
+            while (cursor.moveToNext()) {
+                val download = cursor.download
+                completedDownloads[cache.cacheKeyFactory.buildCacheKey(download.request.uri)] = download
+            }
+        }
+        hasDownloadService = appContext.packageManager.queryIntentServices(Intent(appContext, RNVDownloadService::class.java), 0).isNotEmpty()
+        downloadCache = newCache
+        downloadManager = manager
+        return manager
+    }
+
+    /**
+     * Update parallel downloads count and whether downloads require an unmetered network
+     */
+    fun configure(context: Context, maxParallelDownloads: Int, requireUnmeteredNetwork: Boolean) {
+        this.maxParallelDownloads = maxParallelDownloads.coerceAtLeast(1)
+        requirements = Requirements(if (requireUnmeteredNetwork) Requirements.NETWORK_UNMETERED else Requirements.NETWORK)
+        val manager = getDownloadManager(context)
+        manager.maxParallelDownloads = this.maxParallelDownloads
+        if (hasDownloadService) {
+            DownloadService.sendSetRequirements(context, RNVDownloadService::class.java, requirements, false)
+        } else {
+            manager.requirements = requirements
+        }
+    }
+
+    /**
+     * Resolve `source` tracks and start downloading the subset matching `trackOptions`.
+     * `callback` receives the download id, or an error message.
+     */
+    fun download(context: ReactContext, source: Source, id: String?, trackOptions: TrackOptions, callback: (id: String?, error: String?) -> Unit) {
+        val uri = source.uri
+        if (uri == null || !(uri.scheme == "http" || uri.scheme == "https")) {
+            callback(null, "only network sources can be downloaded")
+            return
+        }
+        val downloadId = id ?: cache.cacheKeyFactory.buildCacheKey(uri)
+        val helper = DownloadHelper.forMediaItem(
+            context,
+            ConfigurationUtils.buildMediaItem(source),
+            DefaultRenderersFactory(context),
+            DataSourceUtil.getDefaultHttpDataSourceFactory(context, null, source.headers, source.cdnBaseUrls)
+        )
+        helper.prepare(object : DownloadHelper.Callback {
+            override fun onPrepared(helper: DownloadHelper) {
+                try {
+                    val parameters = DownloadHelper.getDefaultTrackSelectorParameters(context).buildUpon()
+                        .setMaxVideoBitrate(trackOptions.maxBitrate)
+                        .setMaxVideoSize(Int.MAX_VALUE, trackOptions.maxHeight)
+                        .build()
+                    for (periodIndex in 0 until helper.periodCount) {
+                        helper.replaceTrackSelections(periodIndex, parameters)
+                    }
+                    if (trackOptions.audioLanguages.isNotEmpty()) {
+                        helper.addAudioLanguagesToSelection(*trackOptions.audioLanguages.toTypedArray())
+                    }
+                    if (trackOptions.textLanguages.isNotEmpty()) {
+                        helper.addTextLanguagesToSelection(false, *trackOptions.textLanguages.toTypedArray())
+                    }
+                    addDownload(context, helper.getDownloadRequest(downloadId, encodeRequestHeaders(source.headers)))
+                    callback(downloadId, null)
+                } catch (e: Exception) {
+                    callback(null, e.message ?: "cannot select tracks to download")
+                } finally {
+                    helper.release()
+                }
+            }
+
+            override fun onPrepareError(helper: DownloadHelper, e: IOException) {
+                helper.release()
+                callback(null, e.message ?: "cannot load $uri")
+            }
+        })
+    }
+
+    fun addDownload(context: Context, request: DownloadRequest) {
+        val manager = getDownloadManager(context)
+        if (hasDownloadService) {
+            DownloadService.sendAddDownload(context, RNVDownloadService::class.java, request, false)
+        } else {
+            manager.addDownload(request)
+        }
+    }
+
+    fun removeDownload(context: Context, id: String) {
+        val manager = getDownloadManager(context)
+        if (hasDownloadService) {
+            DownloadService.sendRemoveDownload(context, RNVDownloadService::class.java, id, false)
+        } else {
+            manager.removeDownload(id)
+        }
+    }
+
+    /**
+     * Pause one download, or all downloads if `id` is null
+     */
+    fun pause(context: Context, id: String?) {
+        val manager = getDownloadManager(context)
+        when {
+            id != null -> setStopReason(context, manager, id, STOP_REASON_PAUSED)
+            hasDownloadService -> DownloadService.sendPauseDownloads(context, RNVDownloadService::class.java, false)
+            else -> manager.pauseDownloads()
+        }
+    }
+
+    /**
+     * Resume one download, or all downloads if `id` is null
+     */
+    fun resume(context: Context, id: String?) {
+        val manager = getDownloadManager(context)
+        when {
+            id != null -> setStopReason(context, manager, id, Download.STOP_REASON_NONE)
+            hasDownloadService -> DownloadService.sendResumeDownloads(context, RNVDownloadService::class.java, false)
+            else -> manager.resumeDownloads()
+        }
+    }
+
+    private fun setStopReason(context: Context, manager: DownloadManager, id: String, stopReason: Int) {
+        if (hasDownloadService) {
+            DownloadService.sendSetStopReason(context, RNVDownloadService::class.java, id, stopReason, false)
+        } else {
+            manager.setStopReason(id, stopReason)
+        }
+    }
+
+    /**
+     * Return all known downloads, including completed and failed ones
+     */
+    fun getDownloads(context: Context): List<Download> {
+        val downloads = ArrayList<Download>()
+        getDownloadManager(context).downloadIndex.getDownloads().use { cursor ->
+            while (cursor.moveToNext()) {
+                downloads.add(cursor.download)
+            }
+        }
+        return downloads
+    }
+
+    /**
+     * Return the request of the completed download of `uri`, or null if this uri is not downloaded.
+     * The DownloadManager is not created if nothing was ever downloaded, it is created by initialize otherwise:
+     * this call only waits for it when a player starts before the background initialization is done.
+     */
+    fun getDownloadRequest(context: Context, uri: Uri): DownloadRequest? {
+        if (downloadManager == null && !getDownloadDirectory(context.applicationContext).exists()) {
+            return null
+        }
+        getDownloadManager(context)
+        return completedDownloads[cache.cacheKeyFactory.buildCacheKey(uri)]?.request
+    }
+
+    /**
+     * Return a factory reading downloaded data, missing data is read from `upstreamFactory`
+     */
+    fun getPlaybackDataSourceFactory(upstreamFactory: DataSource.Factory): DataSource.Factory {
+        val currentCache = downloadCache ?: return upstreamFactory
+        return CacheDataSource.Factory()
+            .setCache(currentCache)
+            .setCacheKeyFactory(cache.cacheKeyFactory)
+            .setUpstreamDataSourceFactory(upstreamFactory)
+            .setCacheWriteDataSinkFactory(null)
+    }
+
+    private fun notifyProgress() {
+        handler.removeCallbacks(progressRunnable)
+        val manager = downloadManager ?: return
+        val downloads = manager.currentDownloads
+        listener?.onDownloadsChanged(downloads)
+        if (downloads.any { it.state == Download.STATE_DOWNLOADING }) {
+            handler.postDelayed(progressRunnable, PROGRESS_UPDATE_INTERVAL_MS)
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVDownloadManager"
+        private const val WORKER_OWNER = "RNVDownloadManager"
+        private const val DOWNLOAD_DIRECTORY = "RNVDownloads"
+        private const val DEFAULT_MAX_PARALLEL_DOWNLOADS = 2
+        private const val DOWNLOAD_THREADS = 4
+        private const val PROGRESS_UPDATE_INTERVAL_MS = 1000L
+
+        /** stop reason used when a single download is paused */
+        const val STOP_REASON_PAUSED = 1
+
+        /** downloads are kept in files directory, they shall not be removed by the system like cache files */
+        fun getDownloadDirectory(context: Context): File = File(context.filesDir, DOWNLOAD_DIRECTORY)
+
+        /**
+         * Store request headers in DownloadRequest.data, downloads may be resumed after an application restart
+         */
+        fun encodeRequestHeaders(headers: Map<String, String>): ByteArray? =
+            if (headers.isEmpty()) null else JSONObject(headers).toString().toByteArray(Charsets.UTF_8)
+
+        private fun getRequestHeaders(request: DownloadRequest): Map<String, String> {
+            val data = request.data
+            if (data.isEmpty()) {
+                return emptyMap()
+            }
+            return try {
+                val json = JSONObject(String(data, Charsets.UTF_8))
+                json.keys().asSequence().associateWith { json.getString(it) }
+            } catch (e: Exception) {
+                emptyMap()
+            }
+        }
+    }
+}
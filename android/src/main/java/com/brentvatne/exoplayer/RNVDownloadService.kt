@@ -0,0 +1,43 @@
+package com.brentvatne.exoplayer
+
+import android.app.Notification
+import androidx.media3.exoplayer.offline.Download
+import androidx.media3.exoplayer.offline.DownloadManager
+import androidx.media3.exoplayer.offline.DownloadNotificationHelper
+import androidx.media3.exoplayer.offline.DownloadService
+import androidx.media3.exoplayer.scheduler.Scheduler
+import com.brentvatne.react.ReactNativeVideoManager
+
+/**
+ * Foreground service running RNVDownloadManager downloads while the application is in background.
+ * It is not declared by the library, applications declare it in their manifest to enable it.
+ */
+class RNVDownloadService :
+    DownloadService(
+        FOREGROUND_NOTIFICATION_ID,
+        DEFAULT_FOREGROUND_NOTIFICATION_UPDATE_INTERVAL,
+        CHANNEL_ID,
+        androidx.media3.exoplayer.R.string.exo_download_notification_channel_name,
+        0
+    ) {
+    private val notificationHelper by lazy { DownloadNotificationHelper(this, CHANNEL_ID) }
+
+    override fun getDownloadManager(): DownloadManager = ReactNativeVideoManager.getInstance().downloadManager.getDownloadManager(this)
+
+    override fun getScheduler(): Scheduler? = null
+
+    override fun getForegroundNotification(downloads: MutableList<Download>, notMetRequirements: Int): Notification =
+        notificationHelper.buildProgressNotification(
+            this,
+            android.R.drawable.stat_sys_download,
+            null,
+            null,
+            downloads,
+            notMetRequirements
+        )
+
+    companion object {
+        private const val CHANNEL_ID = "RNVDownloads"
+        private const val FOREGROUND_NOTIFICATION_ID = 0x524e56
+    }
+}
@@ -0,0 +1,302 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.content.SharedPreferences
+import android.util.Base64
+import androidx.media3.common.C
+import androidx.media3.common.util.Util
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.exoplayer.analytics.PlayerId
+import androidx.media3.exoplayer.dash.DashUtil
+import androidx.media3.exoplayer.drm.DefaultDrmSessionManager
+import androidx.media3.exoplayer.drm.DrmSessionEventListener
+import androidx.media3.exoplayer.drm.DrmSessionManager
+import androidx.media3.exoplayer.drm.ExoMediaDrm
+import androidx.media3.exoplayer.drm.FrameworkMediaDrm
+import androidx.media3.exoplayer.drm.HttpMediaDrmCallback
+import androidx.media3.exoplayer.drm.OfflineLicenseHelper
+import androidx.media3.exoplayer.drm.UnsupportedDrmException
+import com.brentvatne.common.api.DRMProps
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.react.BuildConfig
+import java.util.UUID
+
+/**
+ * DRM sessions shared by all players, owned by ReactNativeVideoManager.
+ * - MediaDrm instances are kept once both their player and their session manager released them,
+ *   and handed to the next session manager of the same scheme. A MediaDrm is never used by two session managers at once.
+ * - Offline licenses of sources with drm.persistentLicense are restored when stored, skipping the license request.
+ *   They are keyed by content id (or uri), scheme and license server, not by license headers which usually carry short lived tokens.
+ * - Offline licenses of upcoming sources are fetched ahead of playback, for DASH sources, on RNVWorkerPool threads.
+ * Thread safe.
+ */
+class RNVDrmManager(private val cache: RNVCache, private val manifestCache: RNVManifestCache, private val workerPool: RNVWorkerPool) {
+    /**
+     * Session manager of one player, to be given back with releaseSession once the player is released
+     */
+    class Session internal constructor(
+        val sessionManager: DrmSessionManager,
+        /** key of the restored offline license, null if the license is requested from the server */
+        val licenseKey: String?,
+        internal val lease: Lease
+    )
+
+    /**
+     * A MediaDrm lent to one session, counting the references taken by its session manager
+     */
+    internal class Lease(val mediaDrmKey: String, val mediaDrm: FrameworkMediaDrm) {
+        var managerReferences = 0
+        var isSessionReleased = false
+        var isReturned = false
+    }
+
+    /**
+     * MediaDrm given to a session manager, its release is reported so that the MediaDrm is reused only once the manager is done with it
+     */
+    private class LeasedMediaDrm(private val mediaDrm: FrameworkMediaDrm, private val onReleased: () -> Unit) : ExoMediaDrm by mediaDrm {
+        override fun setPlayerIdForSession(sessionId: ByteArray, playerId: PlayerId) {
+            mediaDrm.setPlayerIdForSession(sessionId, playerId)
+        }
+
+        override fun release() {
+            mediaDrm.release()
+            onReleased()
+        }
+    }
+
+    private val idleMediaDrms = HashMap<String, FrameworkMediaDrm>()
+    private val pendingLicenseKeys = HashSet<String>()
+    private var licenseStore: SharedPreferences? = null
+
+    /**
+     * Build the session manager of `source`, restoring its offline license if one is stored.
+     * A source with drm.persistentLicense and no stored license is played with a streaming license, no offline license is fetched
+     * alongside, which would request the same key twice: offline licenses are fetched ahead of playback with prefetchLicense.
+     * @param forceL3 use the software security level, after a failure with the hardware one
+     */
+    @Throws(UnsupportedDrmException::class)
+    fun acquireSession(context: Context, source: Source, uuid: UUID, forceL3: Boolean, httpFactory: HttpDataSource.Factory): Session {
+        val drmProps = source.drmProps!!
+        val mediaDrmKey = "$uuid|$forceL3"
+        val lease = Lease(mediaDrmKey, acquireMediaDrm(uuid, mediaDrmKey, forceL3))
+        val leasedMediaDrm = LeasedMediaDrm(lease.mediaDrm) { onManagerReleased(lease) }
+        try {
+            val sessionManager = buildSessionManager(uuid, drmProps, httpFactory) {
+                // reference released by the session manager, once its sessions are closed
+                synchronized(this) { lease.managerReferences++ }
+                lease.mediaDrm.acquire()
+                leasedMediaDrm
+            }
+            var restoredLicenseKey: String? = null
+            if (drmProps.persistentLicense) {
+                val licenseKey = getLicenseKey(source)
+                val keySetId = getStoredLicense(context, licenseKey)
+                if (keySetId != null) {
+                    DebugLog.d(TAG, "restoring offline license of ${source.uri}")
+                    sessionManager.setMode(DefaultDrmSessionManager.MODE_PLAYBACK, keySetId)
+                    restoredLicenseKey = licenseKey
+                }
+            }
+            return Session(sessionManager, restoredLicenseKey, lease)
+        } catch (e: Exception) {
+            lease.mediaDrm.release()
+            throw e
+        }
+    }
+
+    /**
+     * Give back the session of a released player, its MediaDrm is kept for the next session of the same scheme
+     * once its session manager released it too, which may happen later on the playback thread
+     */
+    @Synchronized
+    fun releaseSession(session: Session) {
+        session.lease.isSessionReleased = true
+        maybeReturnMediaDrm(session.lease)
+    }
+
+    /**
+     * Release the MediaDrm instances kept for next sessions
+     */
+    @Synchronized
+    fun releaseIdleMediaDrms() {
+        idleMediaDrms.values.forEach { it.release() }
+        idleMediaDrms.clear()
+    }
+
+    /**
+     * Fetch and store the offline license of `source` ahead of playback, if none is stored yet.
+     * `callback` receives an error message, or null on success. It is called from a background thread.
+     */
+    fun prefetchLicense(context: Context, source: Source, httpFactory: HttpDataSource.Factory, callback: (error: String?) -> Unit) {
+        val drmProps = source.drmProps
+        val uuid = drmProps?.drmType?.let { Util.getDrmUuid(it) }
+        if (drmProps == null || uuid == null) {
+            callback("source has no supported drm")
+            return
+        }
+        if (getStoredLicense(context, getLicenseKey(source)) != null) {
+            callback(null)
+            return
+        }
+        fetchLicense(context, source, uuid, httpFactory, callback)
+    }
+
+    /**
+     * Forget the offline license of `licenseKey`, for example after the server revoked it
+     */
+    fun removeLicense(context: Context, licenseKey: String) {
+        getLicenseStore(context).edit().remove(licenseKey).apply()
+    }
+
+    fun clearLicenses(context: Context) {
+        getLicenseStore(context).edit().clear().apply()
+    }
+
+    @Synchronized
+    private fun onManagerReleased(lease: Lease) {
+        lease.managerReferences--
+        maybeReturnMediaDrm(lease)
+    }
+
+    private fun maybeReturnMediaDrm(lease: Lease) {
+        if (!lease.isSessionReleased || lease.managerReferences > 0 || lease.isReturned) {
+            return
+        }
+        lease.isReturned = true
+        if (idleMediaDrms.containsKey(lease.mediaDrmKey)) {
+            lease.mediaDrm.release()
+        } else {
+            // the listener of the previous session manager is not kept alive by the idle MediaDrm
+            lease.mediaDrm.setOnEventListener(null)
+            idleMediaDrms[lease.mediaDrmKey] = lease.mediaDrm
+        }
+    }
+
+    @Synchronized
+    private fun acquireMediaDrm(uuid: UUID, mediaDrmKey: String, forceL3: Boolean): FrameworkMediaDrm {
+        idleMediaDrms.remove(mediaDrmKey)?.let { return it }
+        var attempt = 0
+        while (true) {
+            try {
+                val mediaDrm = FrameworkMediaDrm.newInstance(uuid)
+                if (forceL3) {
+                    // When DRM fails using L1 we want to switch to L3
+                    mediaDrm.setPropertyString("securityLevel", "L3")
+                }
+                return mediaDrm
+            } catch (e: UnsupportedDrmException) {
+                // Unsupported DRM exceptions are handled by the caller
+                throw e
+            } catch (e: Exception) {
+                // The OS Media DRM Framework can fail for whatever reason, attempt a few times before giving up
+                if (++attempt >= MAX_MEDIA_DRM_ATTEMPTS) {
+                    throw e
+                }
+                DebugLog.w(TAG, "cannot create MediaDrm, attempt $attempt: " + e.message)
+            }
+        }
+    }
+
+    private fun fetchLicense(context: Context, source: Source, uuid: UUID, httpFactory: HttpDataSource.Factory, callback: (error: String?) -> Unit) {
+        val uri = source.uri
+        val licenseKey = getLicenseKey(source)
+        if (!BuildConfig.USE_EXOPLAYER_DASH || uri == null || ConfigurationUtils.inferContentType(source) != C.CONTENT_TYPE_DASH) {
+            callback("offline licenses can only be fetched for DASH sources")
+            return
+        }
+        synchronized(this) {
+            if (!pendingLicenseKeys.add(licenseKey)) {
+                callback(null)
+                return
+            }
+        }
+        val task = Runnable {
+            var helper: OfflineLicenseHelper? = null
+            try {
+                val dataSource = httpFactory.createDataSource()
+                val manifest = manifestCache.load(dataSource, uri)
+                val format = DashUtil.loadFormatWithDrmInitData(dataSource, manifest.getPeriod(0))
+                if (format?.drmInitData == null) {
+                    throw IllegalStateException("no drm init data in $uri")
+                }
+                // a dedicated session manager, it doesn't play so it doesn't need a pooled MediaDrm
+                val sessionManager = buildSessionManager(uuid, source.drmProps!!, httpFactory, FrameworkMediaDrm.DEFAULT_PROVIDER)
+                helper = OfflineLicenseHelper(sessionManager, DrmSessionEventListener.EventDispatcher())
+                val keySetId = helper.downloadLicense(format)
+                val remaining = helper.getLicenseDurationRemainingSec(keySetId)
+                storeLicense(context, licenseKey, keySetId, minOf(remaining.first, remaining.second))
+                DebugLog.d(TAG, "offline license stored for $uri")
+                callback(null)
+            } catch (e: Exception) {
+                DebugLog.w(TAG, "cannot fetch offline license of $uri: " + e.message)
+                callback(e.message ?: "cannot fetch offline license")
+            } finally {
+                helper?.release()
+                synchronized(this) { pendingLicenseKeys.remove(licenseKey) }
+            }
+        }
+        if (workerPool.tryExecute(WORKER_OWNER, "fetchLicense", task) == null) {
+            synchronized(this) { pendingLicenseKeys.remove(licenseKey) }
+            callback("too many background tasks")
+        }
+    }
+
+    private fun buildSessionManager(
+        uuid: UUID,
+        drmProps: DRMProps,
+        httpFactory: HttpDataSource.Factory,
+        mediaDrmProvider: ExoMediaDrm.Provider
+    ): DefaultDrmSessionManager {
+        val drmCallback = HttpMediaDrmCallback(drmProps.drmLicenseServer, httpFactory)
+        val keyRequestProperties = drmProps.drmLicenseHeader
+        for (i in 0 until keyRequestProperties.size - 1 step 2) {
+            drmCallback.setKeyRequestProperty(keyRequestProperties[i], keyRequestProperties[i + 1])
+        }
+        return DefaultDrmSessionManager.Builder()
+            .setUuidAndExoMediaDrmProvider(uuid, mediaDrmProvider)
+            .setKeyRequestParameters(null)
+            .setMultiSession(drmProps.multiDrm)
+            .build(drmCallback)
+    }
+
+    private fun getLicenseKey(source: Source): String {
+        val drmProps = source.drmProps!!
+        val contentId = drmProps.contentId ?: source.uri?.let { cache.cacheKeyFactory.buildCacheKey(it) }
+        return "$contentId|${drmProps.drmType}|${drmProps.drmLicenseServer}|${drmProps.multiDrm}"
+    }
+
+    /**
+     * return the stored keySetId of `licenseKey`, or null if there is none or it expires soon
+     */
+    private fun getStoredLicense(context: Context, licenseKey: String): ByteArray? {
+        val store = getLicenseStore(context)
+        val value = store.getString(licenseKey, null) ?: return null
+        val expirationMs = value.substringBefore(':').toLongOrNull() ?: 0
+        if (expirationMs != NO_EXPIRATION && expirationMs - System.currentTimeMillis() < LICENSE_EXPIRATION_MARGIN_MS) {
+            store.edit().remove(licenseKey).apply()
+            return null
+        }
+        return Base64.decode(value.substringAfter(':'), Base64.NO_WRAP)
+    }
+
+    private fun storeLicense(context: Context, licenseKey: String, keySetId: ByteArray, durationSec: Long) {
+        val expirationMs = if (durationSec == Long.MAX_VALUE) NO_EXPIRATION else System.currentTimeMillis() + durationSec * 1000
+        getLicenseStore(context).edit()
+            .putString(licenseKey, "$expirationMs:" + Base64.encodeToString(keySetId, Base64.NO_WRAP))
+            .apply()
+    }
+
+    @Synchronized
+    private fun getLicenseStore(context: Context): SharedPreferences =
+        licenseStore ?: context.applicationContext.getSharedPreferences(LICENSE_STORE, Context.MODE_PRIVATE).also { licenseStore = it }
+
+    companion object {
+        private const val TAG = "RNVDrmManager"
+        private const val LICENSE_STORE = "RNVDrmLicenses"
+        private const val WORKER_OWNER = "RNVDrmManager"
+        private const val MAX_MEDIA_DRM_ATTEMPTS = 4
+        private const val NO_EXPIRATION = -1L
+        private const val LICENSE_EXPIRATION_MARGIN_MS = 60_000L
+    }
+}
@@ -0,0 +1,166 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import android.os.SystemClock
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.datasource.TransferListener
+import com.brentvatne.common.toolbox.DebugLog
+import java.io.IOException
+import java.io.InterruptedIOException
+
+/**
+ * Http data source serving a media from several equivalent CDNs.
+ * Requests whose uri starts with one of `baseUrls` are sent to the healthiest of them according to `hostHealth`,
+ * the CDN in use is kept until another one scores clearly better or fails.
+ * A request failing to open is retried on the other CDNs before failing, so that the player switches CDN between two segments
+ * instead of reloading. Requests not matching any base url go to `upstream` unchanged.
+ * Cancelled loads and requests failing while offline don't count against the health of the CDNs.
+ * Uris seen by the player are the requested ones, whichever cdn served them.
+ */
+class RNVFailoverDataSource private constructor(
+    private val upstream: HttpDataSource,
+    private val baseUrls: List<String>,
+    private val hostHealth: RNVHostHealth,
+    private val connectivity: RNVConnectivity,
+    private val selection: Selection
+) : HttpDataSource by upstream {
+    /**
+     * base url in use, shared by the data sources of a factory, so that all the tracks of a player move together
+     */
+    private class Selection {
+        @Volatile
+        var current: String? = null
+    }
+
+    class Factory(
+        private val upstream: HttpDataSource.Factory,
+        private val baseUrls: List<String>,
+        private val hostHealth: RNVHostHealth,
+        private val connectivity: RNVConnectivity
+    ) : HttpDataSource.Factory {
+        private val selection = Selection()
+
+        override fun createDataSource(): HttpDataSource =
+            RNVFailoverDataSource(upstream.createDataSource(), baseUrls, hostHealth, connectivity, selection)
+
+        override fun setDefaultRequestProperties(defaultRequestProperties: Map<String, String>): HttpDataSource.Factory {
+            upstream.setDefaultRequestProperties(defaultRequestProperties)
+            return this
+        }
+    }
+
+    // listeners are notified with the requested data spec, not the one of the selected cdn
+    private val transferListeners = ArrayList<TransferListener>(1)
+    private var transferDataSpec: DataSpec? = null
+    private var openedBaseUrl: String? = null
+    private var requestUri: Uri? = null
+    private var openTimeMs = 0L
+    private var bytesRead = 0L
+
+    override fun addTransferListener(transferListener: TransferListener) {
+        if (!transferListeners.contains(transferListener)) {
+            transferListeners.add(transferListener)
+        }
+    }
+
+    override fun open(dataSpec: DataSpec): Long {
+        transferListeners.forEach { it.onTransferInitializing(this, dataSpec, true) }
+        val length = openUpstream(dataSpec)
+        transferDataSpec = dataSpec
+        transferListeners.forEach { it.onTransferStart(this, dataSpec, true) }
+        return length
+    }
+
+    private fun openUpstream(dataSpec: DataSpec): Long {
+        val uri = dataSpec.uri.toString()
+        val requestBaseUrl = baseUrls.firstOrNull { uri.startsWith(it) } ?: return upstream.open(dataSpec)
+        requestUri = dataSpec.uri
+        val path = uri.substring(requestBaseUrl.length)
+        val tried = HashSet<String>()
+        var error: IOException? = null
+        while (true) {
+            val baseUrl = hostHealth.select(baseUrls, selection.current, tried) ?: throw error!!
+            tried.add(baseUrl)
+            val startMs = SystemClock.elapsedRealtime()
+            try {
+                val length = upstream.open(dataSpec.withUri(Uri.parse(baseUrl + path)))
+                openTimeMs = SystemClock.elapsedRealtime()
+                hostHealth.onResponse(baseUrl, openTimeMs - startMs)
+                openedBaseUrl = baseUrl
+                bytesRead = 0
+                selection.current = baseUrl
+                return length
+            } catch (e: IOException) {
+                upstream.close()
+                if (!isCdnFailure(e) || !isCountable(e)) {
+                    throw e
+                }
+                hostHealth.onError(baseUrl)
+                DebugLog.w(TAG, "request to $baseUrl failed: ${e.message}")
+                error = e
+            }
+        }
+    }
+
+    /**
+     * return the requested uri rather than the one of the selected cdn, manifests resolve their segment uris against it,
+     * so that the cache keys of segments don't depend on the cdn
+     */
+    override fun getUri(): Uri? = requestUri ?: upstream.uri
+
+    override fun read(buffer: ByteArray, offset: Int, length: Int): Int {
+        try {
+            val read = upstream.read(buffer, offset, length)
+            if (read > 0) {
+                bytesRead += read
+                transferDataSpec?.let { spec -> transferListeners.forEach { it.onBytesTransferred(this, spec, true, read) } }
+            }
+            return read
+        } catch (e: IOException) {
+            // the player retries, the next open selects the healthiest cdn
+            if (isCountable(e)) {
+                openedBaseUrl?.let { hostHealth.onError(it) }
+            }
+            openedBaseUrl = null
+            throw e
+        }
+    }
+
+    /**
+     * return false for the errors which tell nothing about the cdn: the load was cancelled, its thread is interrupted,
+     * or the device is offline
+     */
+    private fun isCountable(e: IOException): Boolean {
+        if (Thread.currentThread().isInterrupted || e is InterruptedIOException || e.cause is InterruptedIOException) {
+            return false
+        }
+        return e is HttpDataSource.InvalidResponseCodeException || connectivity.isOnline
+    }
+
+    override fun close() {
+        openedBaseUrl?.let { hostHealth.onTransfer(it, bytesRead, SystemClock.elapsedRealtime() - openTimeMs) }
+        openedBaseUrl = null
+        requestUri = null
+        try {
+            upstream.close()
+        } finally {
+            transferDataSpec?.let { spec -> transferListeners.forEach { it.onTransferEnd(this, spec, true) } }
+            transferDataSpec = null
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVFailoverDataSource"
+
+        /**
+         * return whether another cdn may serve the request, client errors other than not found would fail on all of them
+         */
+        private fun isCdnFailure(e: IOException): Boolean {
+            if (e is HttpDataSource.InvalidResponseCodeException) {
+                return e.responseCode >= 500 || e.responseCode == 404 || e.responseCode == 410
+            }
+            return e !is HttpDataSource.CleartextNotPermittedException
+        }
+    }
+}
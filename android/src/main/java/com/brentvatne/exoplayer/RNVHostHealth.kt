@@ -0,0 +1,118 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableArray
+
+/**
+ * Health of the hosts serving media, owned by ReactNativeVideoManager.
+ * Each host gets moving averages of its throughput, time to first byte and error rate, from the requests of all players.
+ * Its score is throughput / (1 + ttfb in seconds) * (1 - error rate)^2, divided by RECENT_ERROR_PENALTY for RECENT_ERROR_MS after an error.
+ * Hosts without measures get the average throughput and ttfb of the measured hosts, so that they are neither preferred nor avoided.
+ * Thread safe.
+ */
+class RNVHostHealth {
+    private class Host(val origin: String) {
+        var throughputBps = -1.0
+        var ttfbMs = -1.0
+        var errorRate = 0.0
+        var lastErrorTimeMs = -1L
+        var requests = 0L
+        var errors = 0L
+    }
+
+    private val hosts = HashMap<String, Host>()
+
+    @Synchronized
+    fun onResponse(origin: String, ttfbMs: Long) {
+        val host = hosts.getOrPut(origin) { Host(origin) }
+        host.requests++
+        host.ttfbMs = average(host.ttfbMs, ttfbMs.toDouble())
+        host.errorRate = average(host.errorRate, 0.0)
+    }
+
+    @Synchronized
+    fun onTransfer(origin: String, bytes: Long, durationMs: Long) {
+        if (bytes < MIN_THROUGHPUT_BYTES || durationMs <= 0) {
+            // too small to tell anything about the throughput
+            return
+        }
+        val host = hosts.getOrPut(origin) { Host(origin) }
+        host.throughputBps = average(host.throughputBps, bytes * 8000.0 / durationMs)
+    }
+
+    @Synchronized
+    fun onError(origin: String) {
+        val host = hosts.getOrPut(origin) { Host(origin) }
+        host.requests++
+        host.errors++
+        host.errorRate = average(host.errorRate, 1.0)
+        host.lastErrorTimeMs = SystemClock.elapsedRealtime()
+    }
+
+    /**
+     * return the origin of `origins` to request, `current` unless another one scores SWITCH_MARGIN better
+     */
+    @Synchronized
+    fun select(origins: List<String>, current: String?, excluded: Set<String> = emptySet()): String? {
+        val candidates = origins.filter { it !in excluded }
+        if (candidates.isEmpty()) {
+            return null
+        }
+        val nowMs = SystemClock.elapsedRealtime()
+        // ties keep the order of origins, the first one is preferred
+        val best = candidates.maxByOrNull { getScore(it, nowMs) }!!
+        if (current == null || current !in candidates || current == best) {
+            return best
+        }
+        return if (getScore(best, nowMs) > getScore(current, nowMs) * SWITCH_MARGIN) best else current
+    }
+
+    @Synchronized
+    fun toWritableArray(): WritableArray {
+        val nowMs = SystemClock.elapsedRealtime()
+        return Arguments.createArray().apply {
+            hosts.values.forEach { host ->
+                pushMap(
+                    Arguments.createMap().apply {
+                        putString("origin", host.origin)
+                        putDouble("score", getScore(host.origin, nowMs))
+                        putDouble("throughput", host.throughputBps.coerceAtLeast(0.0))
+                        putDouble("ttfbMs", host.ttfbMs.coerceAtLeast(0.0))
+                        putDouble("errorRate", host.errorRate)
+                        putDouble("requests", host.requests.toDouble())
+                        putDouble("errors", host.errors.toDouble())
+                    }
+                )
+            }
+        }
+    }
+
+    private fun getScore(origin: String, nowMs: Long): Double {
+        val host = hosts[origin]
+        val throughputBps = host?.throughputBps?.takeIf { it >= 0 } ?: averageOf { it.throughputBps } ?: DEFAULT_THROUGHPUT_BPS
+        val ttfbMs = host?.ttfbMs?.takeIf { it >= 0 } ?: averageOf { it.ttfbMs } ?: 0.0
+        val errorRate = host?.errorRate ?: 0.0
+        var score = throughputBps / (1 + ttfbMs / 1000) * (1 - errorRate) * (1 - errorRate)
+        if (host != null && host.lastErrorTimeMs >= 0 && nowMs - host.lastErrorTimeMs < RECENT_ERROR_MS) {
+            score /= RECENT_ERROR_PENALTY
+        }
+        return score
+    }
+
+    private fun averageOf(measure: (Host) -> Double): Double? {
+        val measures = hosts.values.map(measure).filter { it >= 0 }
+        return if (measures.isEmpty()) null else measures.average()
+    }
+
+    companion object {
+        private const val SMOOTHING = 0.3
+        private const val MIN_THROUGHPUT_BYTES = 64 * 1024L
+        private const val DEFAULT_THROUGHPUT_BPS = 1_000_000.0
+        private const val RECENT_ERROR_MS = 30_000L
+        private const val RECENT_ERROR_PENALTY = 10.0
+        private const val SWITCH_MARGIN = 1.3
+
+        private fun average(previous: Double, sample: Double): Double = if (previous < 0) sample else previous + SMOOTHING * (sample - previous)
+    }
+}
@@ -0,0 +1,253 @@
+package com.brentvatne.exoplayer
+
+import android.app.ActivityManager
+import android.content.Context
+import android.os.SystemClock
+import androidx.media3.exoplayer.DefaultLoadControl
+import androidx.media3.exoplayer.LoadControl
+import androidx.media3.exoplayer.analytics.PlayerId
+import androidx.media3.exoplayer.upstream.DefaultAllocator
+import com.brentvatne.common.api.BufferConfig
+import com.brentvatne.common.api.BufferingStrategy
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.react.ReactNativeVideoManager
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import kotlin.math.floor
+
+/**
+ * LoadControl applying bufferConfig durations and the bufferingStrategy prop.
+ * Loading stops early when RNVMemoryMonitor reports memory pressure, when the player reaches its RNVBufferBudget quota, and with "DependingOnMemory"
+ * when all players together reach the heap budget or the memory reserve.
+ * It doesn't reference the view so that it can be kept with a pooled player.
+ */
+class RNVLoadControl(private val defaultAllocator: DefaultAllocator, config: BufferConfig, context: Context) :
+    DefaultLoadControl(
+        defaultAllocator,
+        valueOrDefault(config.minBufferMs, DefaultLoadControl.DEFAULT_MIN_BUFFER_MS),
+        valueOrDefault(config.maxBufferMs, DefaultLoadControl.DEFAULT_MAX_BUFFER_MS),
+        valueOrDefault(config.bufferForPlaybackMs, DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS),
+        valueOrDefault(config.bufferForPlaybackAfterRebufferMs, DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS),
+        -1,
+        true,
+        valueOrDefault(config.backBufferDurationMs, DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS),
+        DefaultLoadControl.DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME
+    ) {
+    /**
+     * Loading decision taken because of memory, reported when it changes
+     */
+    data class Decision(
+        val isLoading: Boolean,
+        val reason: String,
+        val pressure: RNVMemoryMonitor.Pressure,
+        val targetBufferMs: Long,
+        val bufferedMs: Long,
+        val allocatedBytes: Long,
+        val quotaBytes: Long,
+        val totalAllocatedBytes: Long,
+        val playerCount: Int
+    ) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putBoolean("isLoading", isLoading)
+                putString("reason", reason)
+                putString("memoryPressure", pressure.name.lowercase())
+                putDouble("targetBufferMs", targetBufferMs.toDouble())
+                putDouble("bufferedMs", bufferedMs.toDouble())
+                putDouble("allocatedBytes", allocatedBytes.toDouble())
+                putDouble("quotaBytes", quotaBytes.toDouble())
+                putDouble("totalAllocatedBytes", totalAllocatedBytes.toDouble())
+                putInt("playerCount", playerCount)
+            }
+    }
+
+    fun interface DecisionListener {
+        /** called from the playback thread */
+        fun onDecision(decision: Decision)
+    }
+
+    private val availableHeapInBytes: Long
+    private val maxBufferMs = valueOrDefault(config.maxBufferMs, DefaultLoadControl.DEFAULT_MAX_BUFFER_MS).toLong()
+    private val minimumBufferMs = valueOrDefault(config.bufferForPlaybackMs, DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS).toLong()
+    private val memoryMonitor = ReactNativeVideoManager.getInstance().memoryMonitor
+    private val bufferBudget = ReactNativeVideoManager.getInstance().bufferBudget
+    private val appContext = context.applicationContext
+    private val runtime: Runtime = Runtime.getRuntime()
+
+    private var lastReason = REASON_DEFAULT
+    private var reserveReached = false
+    private var lastReserveSampleMs = 0L
+
+    /** buffering strategy of the view currently owning the player */
+    var bufferingStrategy: BufferingStrategy.BufferingStrategyEnum? = null
+
+    /** buffer configuration of the source currently played */
+    var bufferConfig: BufferConfig = config
+
+    /** priority of the player in the shared buffer budget, updated by the view owning the player */
+    @Volatile
+    var priority: RNVBufferBudget.Priority = RNVBufferBudget.Priority.PAUSED
+        set(value) {
+            if (field != value) {
+                field = value
+                bufferBudget.reclaim()
+            }
+        }
+
+    /** listener of the view currently owning the player */
+    @Volatile
+    var decisionListener: DecisionListener? = null
+
+    init {
+        val activityManager = context.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager
+        val maxHeap = if (config.maxHeapAllocationPercent != BufferConfig.BufferConfigPropUnsetDouble) {
+            config.maxHeapAllocationPercent
+        } else {
+            ReactExoplayerView.DEFAULT_MAX_HEAP_ALLOCATION_PERCENT
+        }
+        availableHeapInBytes = floor(activityManager.memoryClass * maxHeap * 1024 * 1024).toLong()
+        memoryMonitor.register(context)
+        bufferBudget.register(context, this)
+    }
+
+    // the player calls the Parameters and PlayerId variants, DefaultLoadControl implements them without the deprecated ones
+    override fun shouldContinueLoading(parameters: LoadControl.Parameters): Boolean {
+        val bufferedMs = parameters.bufferedDurationUs / 1000L
+        val pressure = memoryMonitor.pressure
+        val reason = getStopReason(bufferedMs, pressure)
+        if (reason != lastReason) {
+            lastReason = reason
+            notifyDecision(reason, pressure, bufferedMs)
+        }
+        if (reason != REASON_DEFAULT) {
+            return false
+        }
+        // "default" case or normal case for "DependingOnMemory"
+        return super.shouldContinueLoading(parameters)
+    }
+
+    override fun onReleased(playerId: PlayerId) {
+        super.onReleased(playerId)
+        bufferBudget.unregister(this)
+    }
+
+    /**
+     * Stop taking a share of the buffer budget while the player is idle in RNVPlayerPool, until joinBudget
+     */
+    fun leaveBudget() {
+        bufferBudget.unregister(this)
+    }
+
+    /**
+     * Take a share of the buffer budget again, when the player is handed to a view
+     */
+    fun joinBudget() {
+        bufferBudget.register(appContext, this)
+    }
+
+    /**
+     * Free the segments kept by the allocator for reuse, DefaultLoadControl restores the allocator target on next track selection
+     */
+    fun releaseIdleSegments() {
+        defaultAllocator.setTargetBufferSize(0)
+    }
+
+    /**
+     * return the reason to stop loading, or REASON_DEFAULT to let DefaultLoadControl decide
+     */
+    private fun getStopReason(bufferedMs: Long, pressure: RNVMemoryMonitor.Pressure): String {
+        if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DisableBuffering) {
+            return REASON_DISABLED
+        }
+        // always keep enough buffer to start or resume playback, otherwise a player would stall forever
+        if (bufferedMs < minimumBufferMs) {
+            return REASON_DEFAULT
+        }
+        // the system reported low memory, all players shrink their buffer
+        if (pressure != RNVMemoryMonitor.Pressure.NORMAL && bufferedMs >= getTargetBufferMs(pressure)) {
+            return REASON_MEMORY_PRESSURE
+        }
+        // the buffer budget is shared by all players according to their priority
+        if (allocator.totalBytesAllocated >= bufferBudget.getQuota(this)) {
+            return REASON_BUFFER_QUOTA
+        }
+        if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
+            // the heap budget is shared by all players
+            if (availableHeapInBytes > 0 && bufferBudget.getTotalBytesAllocated() >= availableHeapInBytes) {
+                return REASON_HEAP_BUDGET
+            }
+            // We don't have enough memory in reserve so we stop buffering to allow other components to use it instead
+            if (isReserveReached()) {
+                return REASON_MEMORY_RESERVE
+            }
+        }
+        return REASON_DEFAULT
+    }
+
+    private fun getTargetBufferMs(pressure: RNVMemoryMonitor.Pressure): Long = maxOf(minimumBufferMs, (maxBufferMs * pressure.bufferRatio).toLong())
+
+    /**
+     * Runtime memory is sampled every MEMORY_SAMPLE_INTERVAL_MS, not on each loading decision
+     */
+    private fun isReserveReached(): Boolean {
+        val now = SystemClock.elapsedRealtime()
+        if (now - lastReserveSampleMs >= MEMORY_SAMPLE_INTERVAL_MS) {
+            lastReserveSampleMs = now
+            val usedMemory = runtime.totalMemory() - runtime.freeMemory()
+            val freeMemory = runtime.maxMemory() - usedMemory
+            val minBufferMemoryReservePercent = if (bufferConfig.minBufferMemoryReservePercent != BufferConfig.BufferConfigPropUnsetDouble) {
+                bufferConfig.minBufferMemoryReservePercent
+            } else {
+                ReactExoplayerView.DEFAULT_MIN_BUFFER_MEMORY_RESERVE
+            }
+            val reserveMemory = (minBufferMemoryReservePercent * runtime.maxMemory()).toLong()
+            reserveReached = reserveMemory > freeMemory
+        }
+        return reserveReached
+    }
+
+    private fun notifyDecision(reason: String, pressure: RNVMemoryMonitor.Pressure, bufferedMs: Long) {
+        DebugLog.d(TAG, "loading decision: $reason, buffered $bufferedMs ms, pressure $pressure")
+        val listener = decisionListener ?: return
+        listener.onDecision(
+            Decision(
+                reason == REASON_DEFAULT,
+                reason,
+                pressure,
+                getTargetBufferMs(pressure),
+                bufferedMs,
+                allocator.totalBytesAllocated.toLong(),
+                bufferBudget.getQuota(this),
+                bufferBudget.getTotalBytesAllocated(),
+                bufferBudget.getPlayerCount()
+            )
+        )
+    }
+
+    companion object {
+        private const val TAG = "RNVLoadControl"
+        private const val MEMORY_SAMPLE_INTERVAL_MS = 500L
+
+        const val REASON_DEFAULT = "default"
+        const val REASON_DISABLED = "disabled"
+        const val REASON_MEMORY_PRESSURE = "memoryPressure"
+        const val REASON_BUFFER_QUOTA = "bufferQuota"
+        const val REASON_HEAP_BUDGET = "heapBudget"
+        const val REASON_MEMORY_RESERVE = "memoryReserve"
+
+        private fun valueOrDefault(value: Int, default: Int): Int = if (value != BufferConfig.BufferConfigPropUnsetInt) value else default
+
+        /**
+         * return true if a load control built with `first` config can be used for `second` config.
+         * DefaultLoadControl durations cannot be changed once built.
+         */
+        @JvmStatic
+        fun isCompatible(first: BufferConfig, second: BufferConfig): Boolean =
+            first.minBufferMs == second.minBufferMs &&
+                first.maxBufferMs == second.maxBufferMs &&
+                first.bufferForPlaybackMs == second.bufferForPlaybackMs &&
+                first.bufferForPlaybackAfterRebufferMs == second.bufferForPlaybackAfterRebufferMs &&
+                first.backBufferDurationMs == second.backBufferDurationMs &&
+                first.maxHeapAllocationPercent == second.maxHeapAllocationPercent
+    }
+}
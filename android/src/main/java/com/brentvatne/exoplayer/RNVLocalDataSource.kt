@@ -0,0 +1,273 @@
+package com.brentvatne.exoplayer
+
+import android.content.ContentResolver
+import android.content.Context
+import android.content.pm.PackageManager
+import android.content.res.AssetFileDescriptor
+import android.content.res.AssetManager
+import android.content.res.Resources
+import android.net.Uri
+import androidx.media3.common.C
+import androidx.media3.common.PlaybackException
+import androidx.media3.datasource.BaseDataSource
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSourceException
+import androidx.media3.datasource.DataSpec
+import java.io.Closeable
+import java.io.FileInputStream
+import java.io.FileNotFoundException
+import java.io.IOException
+import java.io.InputStream
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+
+/**
+ * Data source reading bundled assets (asset://), raw resources (android.resource://) and files (file://) through memory mapping.
+ * The file is mapped by windows of MAP_WINDOW_BYTES, reads copy from the mapping without system calls nor stream buffers.
+ * Assets and resources compressed in the APK can't be mapped, they are read as streams.
+ * Each data source has its own file descriptor and mapping, a factory may be used by several loaders at once.
+ */
+class RNVLocalDataSource(context: Context) : BaseDataSource(false) {
+    class Factory(context: Context) : DataSource.Factory {
+        private val appContext = context.applicationContext
+
+        override fun createDataSource(): DataSource = RNVLocalDataSource(appContext)
+    }
+
+    private val appContext = context.applicationContext
+
+    private var uri: Uri? = null
+    private var closeable: Closeable? = null
+    private var channel: FileChannel? = null
+    private var inputStream: InputStream? = null
+
+    // offset of the media in the mapped file, not 0 for assets and resources
+    private var fileOffset = 0L
+    private var mediaLength = 0L
+    private var position = 0L
+    private var bytesRemaining = 0L
+    private var window: MappedByteBuffer? = null
+    private var opened = false
+
+    override fun open(dataSpec: DataSpec): Long {
+        uri = dataSpec.uri
+        transferInitializing(dataSpec)
+        val length = try {
+            openSource(dataSpec.uri)
+        } catch (e: FileNotFoundException) {
+            throw DataSourceException(e, PlaybackException.ERROR_CODE_IO_FILE_NOT_FOUND)
+        } catch (e: Resources.NotFoundException) {
+            throw DataSourceException(e, PlaybackException.ERROR_CODE_IO_FILE_NOT_FOUND)
+        } catch (e: SecurityException) {
+            throw DataSourceException(e, PlaybackException.ERROR_CODE_IO_NO_PERMISSION)
+        } catch (e: IOException) {
+            throw DataSourceException(e, PlaybackException.ERROR_CODE_IO_UNSPECIFIED)
+        }
+        if (length != C.LENGTH_UNSET.toLong() && dataSpec.position > length) {
+            throw DataSourceException(PlaybackException.ERROR_CODE_IO_READ_POSITION_OUT_OF_RANGE)
+        }
+        position = dataSpec.position
+        inputStream?.let { skipFully(it, dataSpec.position) }
+        val available = if (length == C.LENGTH_UNSET.toLong()) C.LENGTH_UNSET.toLong() else length - dataSpec.position
+        bytesRemaining = if (dataSpec.length != C.LENGTH_UNSET.toLong()) {
+            if (available != C.LENGTH_UNSET.toLong()) minOf(dataSpec.length, available) else dataSpec.length
+        } else {
+            available
+        }
+        opened = true
+        transferStarted(dataSpec)
+        return bytesRemaining
+    }
+
+    override fun read(buffer: ByteArray, offset: Int, length: Int): Int {
+        if (length == 0) {
+            return 0
+        }
+        if (bytesRemaining == 0L) {
+            return C.RESULT_END_OF_INPUT
+        }
+        val readLength = if (bytesRemaining == C.LENGTH_UNSET.toLong()) length else minOf(bytesRemaining, length.toLong()).toInt()
+        val read = try {
+            val stream = inputStream
+            if (stream != null) {
+                stream.read(buffer, offset, readLength)
+            } else {
+                readMapped(buffer, offset, readLength)
+            }
+        } catch (e: IOException) {
+            throw DataSourceException(e, PlaybackException.ERROR_CODE_IO_UNSPECIFIED)
+        }
+        if (read == C.RESULT_END_OF_INPUT) {
+            return C.RESULT_END_OF_INPUT
+        }
+        position += read
+        if (bytesRemaining != C.LENGTH_UNSET.toLong()) {
+            bytesRemaining -= read
+        }
+        bytesTransferred(read)
+        return read
+    }
+
+    override fun getUri(): Uri? = uri
+
+    override fun close() {
+        uri = null
+        window = null
+        channel = null
+        try {
+            inputStream?.close()
+            closeable?.close()
+        } catch (e: IOException) {
+            throw DataSourceException(e, PlaybackException.ERROR_CODE_IO_UNSPECIFIED)
+        } finally {
+            inputStream = null
+            closeable = null
+            if (opened) {
+                opened = false
+                transferEnded()
+            }
+        }
+    }
+
+    /**
+     * Open the file or stream of `uri`
+     * @return the length of the media, or C.LENGTH_UNSET
+     */
+    private fun openSource(uri: Uri): Long =
+        when (uri.scheme) {
+            null, ContentResolver.SCHEME_FILE -> {
+                val path = uri.path ?: throw FileNotFoundException(uri.toString())
+                if (path.startsWith(ANDROID_ASSET_PREFIX)) {
+                    // file:///android_asset/ uris name bundled assets, not files
+                    openAsset(uri)
+                } else {
+                    val stream = FileInputStream(path)
+                    closeable = stream
+                    openChannel(stream.channel, 0, C.LENGTH_UNSET.toLong())
+                }
+            }
+            SCHEME_ASSET -> openAsset(uri)
+            ContentResolver.SCHEME_ANDROID_RESOURCE -> {
+                val resources = getResources(uri)
+                val id = getResourceId(uri, resources)
+                openDescriptor(uri) { resources.openRawResourceFd(id) }
+                    ?: openStream { resources.openRawResource(id) }
+            }
+            else -> throw FileNotFoundException("unsupported uri $uri")
+        }
+
+    private fun openAsset(uri: Uri): Long {
+        val path = getAssetPath(uri)
+        return openDescriptor(uri) { appContext.assets.openFd(path) }
+            ?: openStream { appContext.assets.open(path, AssetManager.ACCESS_RANDOM) }
+    }
+
+    /**
+     * return the length of the descriptor opened by `open`, null if the file is compressed and can't be mapped
+     */
+    private fun openDescriptor(uri: Uri, open: () -> AssetFileDescriptor?): Long? {
+        val descriptor = try {
+            open() ?: throw FileNotFoundException(uri.toString())
+        } catch (e: FileNotFoundException) {
+            // compressed files have no descriptor, the stream is read instead
+            if (isCompressedError(e)) return null
+            throw e
+        } catch (e: Resources.NotFoundException) {
+            // resources wrap the error of the asset manager
+            if (isCompressedError(e.cause)) return null
+            throw e
+        }
+        // closing the stream closes the descriptor
+        val stream = descriptor.createInputStream()
+        closeable = stream
+        return openChannel(stream.channel, descriptor.startOffset, descriptor.declaredLength)
+    }
+
+    private fun openStream(open: () -> InputStream): Long {
+        inputStream = open()
+        return C.LENGTH_UNSET.toLong()
+    }
+
+    private fun openChannel(fileChannel: FileChannel, offset: Long, declaredLength: Long): Long {
+        channel = fileChannel
+        fileOffset = offset
+        window = null
+        mediaLength = if (declaredLength != AssetFileDescriptor.UNKNOWN_LENGTH) declaredLength else fileChannel.size() - offset
+        return mediaLength
+    }
+
+    private fun readMapped(buffer: ByteArray, offset: Int, length: Int): Int {
+        val fileChannel = channel ?: return C.RESULT_END_OF_INPUT
+        var mapped = window
+        if (mapped == null || !mapped.hasRemaining()) {
+            val windowLength = minOf(MAP_WINDOW_BYTES, mediaLength - position)
+            if (windowLength <= 0) {
+                return C.RESULT_END_OF_INPUT
+            }
+            mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, fileOffset + position, windowLength)
+            window = mapped
+        }
+        val read = minOf(length, mapped!!.remaining())
+        mapped.get(buffer, offset, read)
+        return read
+    }
+
+    /**
+     * return the resources of the package of `uri`, the ones of the application when it has no package
+     */
+    private fun getResources(uri: Uri): Resources {
+        val packageName = uri.host
+        if (packageName.isNullOrEmpty() || packageName == appContext.packageName) {
+            return appContext.resources
+        }
+        return try {
+            appContext.packageManager.getResourcesForApplication(packageName)
+        } catch (e: PackageManager.NameNotFoundException) {
+            throw FileNotFoundException("package $packageName not found for $uri")
+        }
+    }
+
+    /**
+     * return the id of android.resource://package/id and android.resource://package/type/name uris in `resources`
+     */
+    private fun getResourceId(uri: Uri, resources: Resources): Int {
+        val segments = uri.pathSegments
+        segments.lastOrNull()?.toIntOrNull()?.let { return it }
+        if (segments.size == 2) {
+            val id = resources.getIdentifier(segments[1], segments[0], uri.host ?: appContext.packageName)
+            if (id != 0) {
+                return id
+            }
+        }
+        throw FileNotFoundException("resource not found $uri")
+    }
+
+    companion object {
+        private const val SCHEME_ASSET = "asset"
+        private const val ANDROID_ASSET_PREFIX = "/android_asset/"
+        private const val COMPRESSED_MESSAGE = "compressed"
+        private const val MAP_WINDOW_BYTES = 64L * 1024 * 1024
+
+        private fun getAssetPath(uri: Uri): String {
+            val path = uri.path ?: throw FileNotFoundException(uri.toString())
+            return when {
+                path.startsWith(ANDROID_ASSET_PREFIX) -> path.substring(ANDROID_ASSET_PREFIX.length)
+                path.startsWith("/") -> path.substring(1)
+                else -> path
+            }
+        }
+
+        private fun isCompressedError(e: Throwable?): Boolean = e is FileNotFoundException && e.message?.contains(COMPRESSED_MESSAGE) == true
+
+        private fun skipFully(stream: InputStream, bytes: Long) {
+            var remaining = bytes
+            while (remaining > 0) {
+                val skipped = stream.skip(remaining)
+                if (skipped <= 0) {
+                    throw DataSourceException(PlaybackException.ERROR_CODE_IO_READ_POSITION_OUT_OF_RANGE)
+                }
+                remaining -= skipped
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import android.os.SystemClock
+import androidx.media3.common.C
+import androidx.media3.datasource.DataSource
+import androidx.media3.exoplayer.dash.manifest.DashManifest
+import androidx.media3.exoplayer.dash.manifest.DashManifestParser
+import androidx.media3.exoplayer.upstream.ParsingLoadable
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import java.io.IOException
+
+/**
+ * In memory cache of parsed DASH manifests, owned by ReactNativeVideoManager.
+ * Players and preloads parse their manifest with a parser from newParser, so that code reading the manifest outside of the player
+ * (video tracks of contentStartTime, offline licenses) and players of a preloaded static manifest reuse it instead of downloading
+ * and parsing it again.
+ * Static manifests are kept STATIC_MANIFEST_TTL_MS, live ones until their minimumUpdatePeriod, live ones without it are not kept.
+ * Manifests are keyed by their full uri: a signed uri never gets the manifest of another signature, which may carry per session urls.
+ * Thread safe.
+ */
+class RNVManifestCache {
+    /**
+     * Snapshot of cache counters, parse durations include reading the manifest stream
+     */
+    data class Stats(
+        val entries: Int,
+        val hits: Long,
+        val misses: Long,
+        val parses: Long,
+        val averageParseMs: Double,
+        val maxParseMs: Long,
+        val lastParseMs: Long
+    ) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putInt("entries", entries)
+                putDouble("hits", hits.toDouble())
+                putDouble("misses", misses.toDouble())
+                putDouble("parses", parses.toDouble())
+                putDouble("averageParseMs", averageParseMs)
+                putDouble("maxParseMs", maxParseMs.toDouble())
+                putDouble("lastParseMs", lastParseMs.toDouble())
+            }
+    }
+
+    private class Entry(val manifest: DashManifest, val expirationMs: Long)
+
+    private val entries = object : LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?): Boolean = size > MAX_ENTRIES
+    }
+
+    private var hits = 0L
+    private var misses = 0L
+    private var parses = 0L
+    private var parseSumMs = 0L
+    private var maxParseMs = 0L
+    private var lastParseMs = 0L
+
+    /**
+     * return a parser storing the manifests of `uri` it parses, including the refreshes of live manifests
+     */
+    fun newParser(uri: Uri): ParsingLoadable.Parser<DashManifest> =
+        ParsingLoadable.Parser { loadedUri, inputStream ->
+            val startTimeMs = SystemClock.elapsedRealtime()
+            // the loaded uri is used to resolve relative urls, it may differ from `uri` after redirects
+            val manifest = DashManifestParser().parse(loadedUri, inputStream)
+            put(uri, manifest, SystemClock.elapsedRealtime() - startTimeMs)
+            manifest
+        }
+
+    /**
+     * return the cached manifest of `uri`, or load it with `dataSource`
+     */
+    @Throws(IOException::class)
+    fun load(dataSource: DataSource, uri: Uri): DashManifest {
+        synchronized(this) {
+            val entry = getValidEntry(uri)
+            if (entry != null) {
+                hits++
+                return entry.manifest
+            }
+            misses++
+        }
+        return ParsingLoadable.load(dataSource, newParser(uri), uri, C.DATA_TYPE_MANIFEST)
+    }
+
+    /**
+     * return the cached manifest of `uri` if it is static, players start from it instead of loading the manifest,
+     * live manifests are loaded by the player, which refreshes them
+     */
+    @Synchronized
+    fun getStatic(uri: Uri): DashManifest? {
+        val entry = getValidEntry(uri)
+        if (entry == null || entry.manifest.dynamic) {
+            return null
+        }
+        hits++
+        return entry.manifest
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+
+    @Synchronized
+    fun getStats(): Stats =
+        Stats(
+            entries.size,
+            hits,
+            misses,
+            parses,
+            if (parses > 0) parseSumMs.toDouble() / parses else 0.0,
+            maxParseMs,
+            lastParseMs
+        )
+
+    @Synchronized
+    private fun put(uri: Uri, manifest: DashManifest, parseMs: Long) {
+        parses++
+        parseSumMs += parseMs
+        maxParseMs = maxOf(maxParseMs, parseMs)
+        lastParseMs = parseMs
+        val ttlMs = if (manifest.dynamic) manifest.minUpdatePeriodMs else STATIC_MANIFEST_TTL_MS
+        val key = uri.toString()
+        if (ttlMs > 0) {
+            entries[key] = Entry(manifest, SystemClock.elapsedRealtime() + ttlMs)
+        } else {
+            entries.remove(key)
+        }
+    }
+
+    private fun getValidEntry(uri: Uri): Entry? {
+        val key = uri.toString()
+        val entry = entries[key] ?: return null
+        if (entry.expirationMs <= SystemClock.elapsedRealtime()) {
+            entries.remove(key)
+            return null
+        }
+        return entry
+    }
+
+    companion object {
+        private const val MAX_ENTRIES = 8
+        private const val STATIC_MANIFEST_TTL_MS = 5 * 60 * 1000L
+    }
+}
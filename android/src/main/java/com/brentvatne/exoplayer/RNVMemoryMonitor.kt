@@ -0,0 +1,85 @@
+package com.brentvatne.exoplayer
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.os.SystemClock
+import com.brentvatne.common.toolbox.DebugLog
+
+/**
+ * Memory state shared by all players, owned by ReactNativeVideoManager.
+ * It receives the system onTrimMemory callbacks, read by every RNVLoadControl to shrink its buffer.
+ * The system doesn't notify when memory is available again, so the pressure is released
+ * PRESSURE_RELEASE_DELAY_MS after the last trim callback.
+ * Thread safe.
+ */
+class RNVMemoryMonitor(private val bufferBudget: RNVBufferBudget) : ComponentCallbacks2 {
+    /**
+     * Memory pressure level, with the ratio of the configured buffer durations players may keep
+     */
+    enum class Pressure(val bufferRatio: Double) {
+        NORMAL(1.0),
+        MODERATE(0.5),
+        LOW(0.25),
+        CRITICAL(0.0)
+    }
+
+    private var registered = false
+
+    @Volatile
+    private var lastPressure = Pressure.NORMAL
+
+    @Volatile
+    private var lastTrimMs = 0L
+
+    /** current pressure level */
+    val pressure: Pressure
+        get() = if (lastPressure != Pressure.NORMAL && SystemClock.elapsedRealtime() - lastTrimMs < PRESSURE_RELEASE_DELAY_MS) lastPressure else Pressure.NORMAL
+
+    /**
+     * Register trim callbacks, on first call only
+     */
+    @Synchronized
+    fun register(context: Context) {
+        if (!registered) {
+            context.applicationContext.registerComponentCallbacks(this)
+            registered = true
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        val newPressure = when {
+            level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE -> Pressure.CRITICAL
+            level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN -> return
+            level == ComponentCallbacks2.TRIM_MEMORY_BACKGROUND -> Pressure.LOW
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL -> Pressure.CRITICAL
+            level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW -> Pressure.LOW
+            else -> Pressure.MODERATE
+        }
+        onPressure(newPressure)
+    }
+
+    override fun onLowMemory() {
+        onPressure(Pressure.CRITICAL)
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {
+        // Do nothing.
+    }
+
+    private fun onPressure(newPressure: Pressure) {
+        DebugLog.d(TAG, "memory pressure: $newPressure")
+        // a stronger pressure replaces the current one, a weaker one only extends it
+        if (newPressure.ordinal >= pressure.ordinal) {
+            lastPressure = newPressure
+        }
+        lastTrimMs = SystemClock.elapsedRealtime()
+        // return unused allocations of all players to the heap
+        bufferBudget.trim()
+    }
+
+    companion object {
+        private const val TAG = "RNVMemoryMonitor"
+        private const val PRESSURE_RELEASE_DELAY_MS = 30_000L
+    }
+}
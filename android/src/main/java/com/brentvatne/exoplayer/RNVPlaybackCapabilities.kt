@@ -0,0 +1,177 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.hardware.display.DisplayManager
+import android.media.MediaDrm
+import android.os.Build
+import android.view.Display
+import androidx.media3.common.C
+import androidx.media3.common.MimeTypes
+import androidx.media3.exoplayer.mediacodec.MediaCodecInfo
+import androidx.media3.exoplayer.mediacodec.MediaCodecUtil
+import com.brentvatne.common.toolbox.DebugLog
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+
+/**
+ * Playback capabilities of the device: Widevine security level, display HDR types and video decoders.
+ * They are probed once, in one pass, then served from memory, owned by ReactNativeVideoManager.
+ * Probing may take hundreds of milliseconds, it shall not run on the main thread.
+ * Thread safe.
+ */
+class RNVPlaybackCapabilities {
+    data class Codec(
+        val mimeType: String,
+        val hardware: Boolean,
+        val software: Boolean,
+        val secure: Boolean,
+        val tunneling: Boolean,
+        val maxWidth: Int,
+        val maxHeight: Int,
+        val maxFrameRate: Int
+    ) {
+        val supported: Boolean get() = hardware || software
+
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putString("mimeType", mimeType)
+                putBoolean("supported", supported)
+                putBoolean("hardware", hardware)
+                putBoolean("software", software)
+                putBoolean("secure", secure)
+                putBoolean("tunneling", tunneling)
+                putInt("maxWidth", maxWidth)
+                putInt("maxHeight", maxHeight)
+                putInt("maxFrameRate", maxFrameRate)
+            }
+    }
+
+    data class Snapshot(val widevineLevel: Int, val hdrTypes: List<String>, val codecs: Map<String, Codec>) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putInt("widevineLevel", widevineLevel)
+                putArray("hdrTypes", Arguments.createArray().apply { hdrTypes.forEach { pushString(it) } })
+                putMap(
+                    "codecs",
+                    Arguments.createMap().apply {
+                        codecs.forEach { (name, codec) -> putMap(name, codec.toWritableMap()) }
+                    }
+                )
+            }
+    }
+
+    @Volatile
+    private var widevineLevel: Int? = null
+
+    @Volatile
+    private var snapshot: Snapshot? = null
+
+    /**
+     * return the Widevine security level, 1 to 3, or 0 if Widevine isn't available
+     */
+    @Synchronized
+    fun getWidevineLevel(): Int =
+        widevineLevel ?: probeWidevineLevel().also { widevineLevel = it }
+
+    @Synchronized
+    fun get(context: Context): Snapshot =
+        snapshot ?: Snapshot(getWidevineLevel(), probeHdrTypes(context), CODECS.mapValues { (_, mimeType) -> probeCodec(mimeType) })
+            .also { snapshot = it }
+
+    private fun probeWidevineLevel(): Int {
+        var mediaDrm: MediaDrm? = null
+        return try {
+            mediaDrm = MediaDrm(C.WIDEVINE_UUID)
+            when (mediaDrm.getPropertyString(SECURITY_LEVEL_PROPERTY)) {
+                "L1" -> 1
+                "L2" -> 2
+                "L3" -> 3
+                else -> 0
+            }
+        } catch (e: Exception) {
+            DebugLog.w(TAG, "failed to read the Widevine security level: ${e.message}")
+            0
+        } finally {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                mediaDrm?.close()
+            } else {
+                @Suppress("DEPRECATION")
+                mediaDrm?.release()
+            }
+        }
+    }
+
+    private fun probeHdrTypes(context: Context): List<String> {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return emptyList()
+        }
+        val displayManager = context.getSystemService(Context.DISPLAY_SERVICE) as? DisplayManager ?: return emptyList()
+        val display = displayManager.getDisplay(Display.DEFAULT_DISPLAY) ?: return emptyList()
+        @Suppress("DEPRECATION")
+        val types = display.hdrCapabilities?.supportedHdrTypes ?: return emptyList()
+        return types.mapNotNull { HDR_TYPES[it] }
+    }
+
+    private fun probeCodec(mimeType: String): Codec {
+        val decoders = getDecoders(mimeType, false, false)
+        var maxWidth = 0
+        var maxHeight = 0
+        var maxFrameRate = 0
+        // largest standard resolution supported by any decoder, with its best frame rate
+        for ((width, height) in RESOLUTIONS) {
+            val rates = decoders.mapNotNull { decoder ->
+                val videoCapabilities = decoder.capabilities?.videoCapabilities
+                if (videoCapabilities != null && videoCapabilities.isSizeSupported(width, height)) {
+                    videoCapabilities.getSupportedFrameRatesFor(width, height).upper
+                } else {
+                    null
+                }
+            }
+            if (rates.isNotEmpty()) {
+                maxWidth = width
+                maxHeight = height
+                maxFrameRate = rates.max().toInt()
+                break
+            }
+        }
+        return Codec(
+            mimeType,
+            decoders.any { it.hardwareAccelerated },
+            decoders.any { !it.hardwareAccelerated },
+            getDecoders(mimeType, true, false).isNotEmpty(),
+            getDecoders(mimeType, false, true).isNotEmpty(),
+            maxWidth,
+            maxHeight,
+            maxFrameRate
+        )
+    }
+
+    private fun getDecoders(mimeType: String, secure: Boolean, tunneling: Boolean): List<MediaCodecInfo> =
+        try {
+            MediaCodecUtil.getDecoderInfos(mimeType, secure, tunneling)
+        } catch (e: MediaCodecUtil.DecoderQueryException) {
+            DebugLog.w(TAG, "failed to list $mimeType decoders: ${e.message}")
+            emptyList()
+        }
+
+    companion object {
+        private const val TAG = "RNVPlaybackCapabilities"
+        private const val SECURITY_LEVEL_PROPERTY = "securityLevel"
+
+        private val CODECS = mapOf(
+            "h264" to MimeTypes.VIDEO_H264,
+            "hevc" to MimeTypes.VIDEO_H265,
+            "vp9" to MimeTypes.VIDEO_VP9,
+            "av1" to MimeTypes.VIDEO_AV1
+        )
+
+        private val RESOLUTIONS = listOf(7680 to 4320, 3840 to 2160, 2560 to 1440, 1920 to 1080, 1280 to 720, 854 to 480, 640 to 360)
+
+        private val HDR_TYPES = mapOf(
+            Display.HdrCapabilities.HDR_TYPE_DOLBY_VISION to "dolbyVision",
+            Display.HdrCapabilities.HDR_TYPE_HDR10 to "hdr10",
+            Display.HdrCapabilities.HDR_TYPE_HLG to "hlg",
+            Display.HdrCapabilities.HDR_TYPE_HDR10_PLUS to "hdr10Plus"
+        )
+    }
+}
@@ -0,0 +1,83 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import androidx.media3.common.C
+import androidx.media3.common.Format
+import androidx.media3.common.Player
+import androidx.media3.exoplayer.ExoPlayer
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+
+/**
+ * Playback state of one player, written by its view on the main thread, from the progress tick and the player events,
+ * and read from any thread, so that JS can read it synchronously, without going through the UI thread.
+ * The position is extrapolated from the last update while playing, so reads between two updates stay accurate.
+ * Thread safe.
+ */
+class RNVPlaybackState {
+    data class Snapshot(
+        val positionMs: Long,
+        val bufferedPositionMs: Long,
+        val durationMs: Long,
+        val rate: Float,
+        val state: Int,
+        val isPlaying: Boolean,
+        val bitrate: Int,
+        val updateTimeMs: Long
+    )
+
+    @Volatile
+    var snapshot: Snapshot? = null
+        private set
+
+    fun update(player: ExoPlayer) {
+        val videoFormat = player.videoFormat
+        snapshot = Snapshot(
+            player.currentPosition,
+            player.bufferedPosition,
+            player.duration,
+            player.playbackParameters.speed,
+            player.playbackState,
+            player.isPlaying,
+            if (videoFormat != null && videoFormat.bitrate != Format.NO_VALUE) videoFormat.bitrate else 0,
+            SystemClock.elapsedRealtime()
+        )
+    }
+
+    fun clear() {
+        snapshot = null
+    }
+
+    /**
+     * return the current state, or null if the player isn't loaded
+     */
+    fun toWritableMap(): WritableMap? {
+        val snapshot = snapshot ?: return null
+        var positionMs = snapshot.positionMs
+        if (snapshot.isPlaying) {
+            positionMs += ((SystemClock.elapsedRealtime() - snapshot.updateTimeMs) * snapshot.rate).toLong()
+            if (snapshot.durationMs != C.TIME_UNSET) {
+                positionMs = minOf(positionMs, snapshot.durationMs)
+            }
+        }
+        return Arguments.createMap().apply {
+            putDouble("currentTime", positionMs / 1000.0)
+            putDouble("bufferedTime", snapshot.bufferedPositionMs / 1000.0)
+            putDouble("duration", if (snapshot.durationMs != C.TIME_UNSET) snapshot.durationMs / 1000.0 else 0.0)
+            putDouble("rate", snapshot.rate.toDouble())
+            putString("state", stateToString(snapshot.state))
+            putBoolean("isPlaying", snapshot.isPlaying)
+            putInt("bitrate", snapshot.bitrate)
+        }
+    }
+
+    companion object {
+        private fun stateToString(state: Int): String =
+            when (state) {
+                Player.STATE_BUFFERING -> "buffering"
+                Player.STATE_READY -> "ready"
+                Player.STATE_ENDED -> "ended"
+                else -> "idle"
+            }
+    }
+}
@@ -0,0 +1,231 @@
+package com.brentvatne.exoplayer
+
+import android.content.Context
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import androidx.media3.common.AudioAttributes
+import androidx.media3.common.C
+import androidx.media3.common.PlaybackParameters
+import androidx.media3.common.Player
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.ExoPlayer
+import androidx.media3.exoplayer.SeekParameters
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory
+import androidx.media3.exoplayer.trackselection.DefaultTrackSelector
+import androidx.media3.exoplayer.upstream.DefaultAllocator
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import com.brentvatne.common.api.AbrConfig
+import com.brentvatne.common.api.BufferConfig
+import com.brentvatne.common.toolbox.DebugLog
+
+/**
+ * Process-wide pool of idle ExoPlayer instances, owned by ReactNativeVideoManager.
+ * Building a player (track selector, allocator, load control, renderers) is expensive,
+ * so players released by a <Video> view are stopped, reset and kept here to be handed to the next view.
+ * The pool is disabled by default (maxSize = 0).
+ * All methods must be called from the main thread.
+ */
+class RNVPlayerPool {
+    /**
+     * A player and the components which cannot be changed once the player is built
+     */
+    class PooledPlayer(
+        val player: ExoPlayer,
+        val trackSelector: DefaultTrackSelector,
+        val abrFactory: RNVAbrTrackSelection.Factory,
+        val loadControl: RNVLoadControl,
+        val bandwidthMeter: DefaultBandwidthMeter,
+        val bufferConfig: BufferConfig,
+        internal val context: Context
+    ) {
+        internal var idleSinceMs: Long = 0
+    }
+
+    /**
+     * Snapshot of pool counters
+     */
+    data class Stats(
+        val size: Int,
+        val maxSize: Int,
+        val hits: Long,
+        val misses: Long,
+        val created: Long,
+        val recycled: Long,
+        val evicted: Long
+    )
+
+    private val idlePlayers = ArrayDeque<PooledPlayer>()
+    private val handler = Handler(Looper.getMainLooper())
+    private val evictionRunnable = Runnable { evictIdlePlayers() }
+
+    private var maxSize = 0
+    private var idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS
+
+    private var hits = 0L
+    private var misses = 0L
+    private var created = 0L
+    private var recycled = 0L
+    private var evicted = 0L
+
+    /**
+     * Update pool configuration, extra idle players are released
+     */
+    fun configure(maxSize: Int, idleTimeoutMs: Long) {
+        this.maxSize = maxSize.coerceAtLeast(0)
+        this.idleTimeoutMs = if (idleTimeoutMs > 0) idleTimeoutMs else DEFAULT_IDLE_TIMEOUT_MS
+        while (idlePlayers.size > this.maxSize) {
+            evict(idlePlayers.removeFirst())
+        }
+        scheduleEviction()
+    }
+
+    /**
+     * Build players ahead of time until `count` idle players are available.
+     * Players are built one per main loop iteration to avoid a long frame.
+     */
+    fun prewarm(context: Context, bandwidthMeter: DefaultBandwidthMeter, count: Int) {
+        val target = count.coerceAtMost(maxSize)
+        if (idlePlayers.size >= target) {
+            return
+        }
+        handler.post {
+            if (idlePlayers.size < target.coerceAtMost(maxSize)) {
+                val pooledPlayer = createPlayer(context, bandwidthMeter, BufferConfig())
+                pooledPlayer.loadControl.leaveBudget()
+                pooledPlayer.idleSinceMs = SystemClock.elapsedRealtime()
+                idlePlayers.addLast(pooledPlayer)
+                scheduleEviction()
+                prewarm(context, bandwidthMeter, target)
+            }
+        }
+    }
+
+    /**
+     * Return an idle player compatible with the requested configuration, or null if none is available
+     */
+    fun acquire(bandwidthMeter: DefaultBandwidthMeter, bufferConfig: BufferConfig): PooledPlayer? {
+        if (maxSize <= 0) {
+            return null
+        }
+        val pooledPlayer = idlePlayers.firstOrNull {
+            it.bandwidthMeter === bandwidthMeter && RNVLoadControl.isCompatible(it.bufferConfig, bufferConfig)
+        }
+        if (pooledPlayer == null) {
+            misses++
+            return null
+        }
+        idlePlayers.remove(pooledPlayer)
+        pooledPlayer.loadControl.joinBudget()
+        hits++
+        DebugLog.d(TAG, "player reused from pool, ${idlePlayers.size} left")
+        return pooledPlayer
+    }
+
+    /**
+     * Give back a player which is no more used by a view.
+     * Caller shall have removed all its listeners from the player before calling.
+     * @return true if the player is kept in the pool, false if the caller shall release it
+     */
+    fun recycle(pooledPlayer: PooledPlayer?): Boolean {
+        if (pooledPlayer == null || idlePlayers.size >= maxSize) {
+            return false
+        }
+        val player = pooledPlayer.player
+        try {
+            player.stop()
+            player.clearMediaItems()
+            player.playWhenReady = false
+            player.repeatMode = Player.REPEAT_MODE_OFF
+            player.volume = 1f
+            player.playbackParameters = PlaybackParameters.DEFAULT
+            player.seekParameters = SeekParameters.DEFAULT
+            player.setAudioAttributes(AudioAttributes.DEFAULT, false)
+            player.clearVideoSurface()
+            pooledPlayer.trackSelector.parameters = DefaultTrackSelector.Parameters.Builder(pooledPlayer.context).build()
+            pooledPlayer.abrFactory.abrConfig = AbrConfig()
+            pooledPlayer.loadControl.bufferingStrategy = null
+            pooledPlayer.loadControl.decisionListener = null
+            pooledPlayer.loadControl.priority = RNVBufferBudget.Priority.OFFSCREEN
+            pooledPlayer.loadControl.bufferConfig = pooledPlayer.bufferConfig
+            // idle players don't take a share of the buffer budget from the players in use
+            pooledPlayer.loadControl.leaveBudget()
+        } catch (e: Exception) {
+            DebugLog.w(TAG, "cannot reset player, it will be released: " + e.message)
+            return false
+        }
+        pooledPlayer.idleSinceMs = SystemClock.elapsedRealtime()
+        idlePlayers.addLast(pooledPlayer)
+        recycled++
+        scheduleEviction()
+        return true
+    }
+
+    /**
+     * Release all idle players
+     */
+    fun clear() {
+        while (idlePlayers.isNotEmpty()) {
+            evict(idlePlayers.removeFirst())
+        }
+        handler.removeCallbacks(evictionRunnable)
+    }
+
+    fun getStats(): Stats = Stats(idlePlayers.size, maxSize, hits, misses, created, recycled, evicted)
+
+    private fun evict(pooledPlayer: PooledPlayer) {
+        pooledPlayer.player.release()
+        evicted++
+    }
+
+    private fun evictIdlePlayers() {
+        val now = SystemClock.elapsedRealtime()
+        val iterator = idlePlayers.iterator()
+        while (iterator.hasNext()) {
+            val pooledPlayer = iterator.next()
+            if (now - pooledPlayer.idleSinceMs >= idleTimeoutMs) {
+                iterator.remove()
+                evict(pooledPlayer)
+            }
+        }
+        scheduleEviction()
+    }
+
+    private fun scheduleEviction() {
+        handler.removeCallbacks(evictionRunnable)
+        val oldest = idlePlayers.minOfOrNull { it.idleSinceMs } ?: return
+        val delay = (oldest + idleTimeoutMs - SystemClock.elapsedRealtime()).coerceAtLeast(0)
+        handler.postDelayed(evictionRunnable, delay)
+    }
+
+    /**
+     * Build a new player with the same components for pooled and not pooled cases.
+     * The player outlives the view which built it once pooled, so it only references the application context:
+     * media sources, with their data sources and ad components, are built by the view for each source.
+     */
+    fun createPlayer(context: Context, bandwidthMeter: DefaultBandwidthMeter, bufferConfig: BufferConfig): PooledPlayer {
+        val appContext = context.applicationContext
+        val abrFactory = RNVAbrTrackSelection.Factory()
+        val trackSelector = DefaultTrackSelector(appContext, abrFactory)
+        val allocator = DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE)
+        val loadControl = RNVLoadControl(allocator, bufferConfig, appContext)
+        val renderersFactory = DefaultRenderersFactory(appContext)
+            .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF)
+            .setEnableDecoderFallback(true)
+            .forceEnableMediaCodecAsynchronousQueueing()
+
+        val player = ExoPlayer.Builder(appContext, renderersFactory)
+            .setTrackSelector(trackSelector)
+            .setBandwidthMeter(bandwidthMeter)
+            .setLoadControl(loadControl)
+            .setMediaSourceFactory(DefaultMediaSourceFactory(appContext))
+            .build()
+        created++
+        return PooledPlayer(player, trackSelector, abrFactory, loadControl, bandwidthMeter, bufferConfig, appContext)
+    }
+
+    companion object {
+        private const val TAG = "RNVPlayerPool"
+        const val DEFAULT_IDLE_TIMEOUT_MS = 60_000L
+    }
+}
@@ -0,0 +1,361 @@
+package com.brentvatne.exoplayer
+
+import android.os.Handler
+import android.os.Looper
+import androidx.media3.common.C
+import androidx.media3.common.Format
+import androidx.media3.common.MediaItem
+import androidx.media3.common.Timeline
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.cache.CacheDataSource
+import androidx.media3.exoplayer.DefaultRenderersFactory
+import androidx.media3.exoplayer.dash.DashMediaSource
+import androidx.media3.exoplayer.dash.DefaultDashChunkSource
+import androidx.media3.exoplayer.offline.DefaultDownloaderFactory
+import androidx.media3.exoplayer.offline.DownloadHelper
+import androidx.media3.exoplayer.offline.DownloadRequest
+import androidx.media3.exoplayer.offline.Downloader
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory
+import androidx.media3.exoplayer.source.MediaSource
+import androidx.media3.exoplayer.trackselection.DefaultTrackSelector
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
+import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.react.BuildConfig
+import com.facebook.react.bridge.ReactContext
+import java.io.IOException
+import java.util.PriorityQueue
+
+/**
+ * Fetch the manifest and the first segments of a source into RNVCache before it is played.
+ * Preloads are queued by priority, at most maxConcurrent run at the same time
+ * and the bytes targeted by running preloads never exceed byteBudget.
+ * Segments are downloaded on RNVWorkerPool threads, DASH manifests are parsed into RNVManifestCache, so that the player starts from them.
+ * The preloaded renditions are the ones the player starts with: tracks are selected by DefaultTrackSelector
+ * and the ABR track selection of the player, with the same bandwidth meter.
+ * All methods must be called from the main thread.
+ */
+class RNVPreloadManager(private val cache: RNVCache, private val manifestCache: RNVManifestCache, private val workerPool: RNVWorkerPool) {
+    enum class Status {
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    class Result(val uri: String, val status: Status, val bytesLoaded: Long, val error: String?)
+
+    private class Job(
+        val key: String,
+        val source: Source,
+        val requestedBytes: Long,
+        val requestedDurationMs: Long,
+        var priority: Int,
+        val sequence: Long,
+        val context: ReactContext,
+        val bandwidthMeter: DefaultBandwidthMeter
+    ) {
+        val listeners = ArrayList<(Result) -> Unit>()
+        var reservedBytes = 0L
+        var helper: DownloadHelper? = null
+
+        @Volatile
+        var targetBytes = 0L
+
+        @Volatile
+        var downloader: Downloader? = null
+
+        @Volatile
+        var bytesLoaded = 0L
+
+        @Volatile
+        var targetReached = false
+
+        @Volatile
+        var cancelled = false
+    }
+
+    private val pendingJobs = PriorityQueue<Job>(compareByDescending<Job> { it.priority }.thenBy { it.sequence })
+    private val runningJobs = HashMap<String, Job>()
+    private val handler = Handler(Looper.getMainLooper())
+    private var sequence = 0L
+    private var reservedBytes = 0L
+
+    private var maxConcurrent = DEFAULT_MAX_CONCURRENT
+    private var byteBudget = DEFAULT_BYTE_BUDGET
+
+    /**
+     * Update the number of parallel preloads and the global byte budget.
+     * Already running preloads are not interrupted.
+     */
+    fun configure(maxConcurrent: Int, byteBudget: Long) {
+        this.maxConcurrent = maxConcurrent.coerceAtLeast(1)
+        this.byteBudget = if (byteBudget > 0) byteBudget else DEFAULT_BYTE_BUDGET
+        startPendingJobs()
+    }
+
+    /**
+     * Queue a preload of `source`. The preload stops once `bytes` are cached, or `durationMs` of media
+     * at the bitrate of the initially selected tracks if `bytes` is not set.
+     * A second request for the same uri only raises the priority of the first one.
+     */
+    fun preload(
+        context: ReactContext,
+        source: Source,
+        bytes: Long,
+        durationMs: Long,
+        priority: Int,
+        bandwidthMeter: DefaultBandwidthMeter,
+        listener: (Result) -> Unit
+    ) {
+        val uri = source.uri
+        if (uri == null || source.isLocalAssetFile || source.isAsset || !(uri.scheme == "http" || uri.scheme == "https")) {
+            listener(Result(uri?.toString() ?: "", Status.FAILED, 0, "only network sources can be preloaded"))
+            return
+        }
+        if (source.bufferConfig.cacheSize > 0) {
+            cache.setup(context, source.bufferConfig.cacheSize)
+        }
+        val key = uri.toString()
+        val existingJob = runningJobs[key] ?: pendingJobs.firstOrNull { it.key == key }
+        if (existingJob != null) {
+            existingJob.listeners.add(listener)
+            if (priority > existingJob.priority && pendingJobs.remove(existingJob)) {
+                existingJob.priority = priority
+                pendingJobs.add(existingJob)
+            }
+            return
+        }
+        val job = Job(key, source, bytes, durationMs, priority, sequence++, context, bandwidthMeter)
+        job.listeners.add(listener)
+        pendingJobs.add(job)
+        startPendingJobs()
+    }
+
+    /**
+     * Stop the preload of `uri`, already cached data is kept
+     */
+    fun cancel(uri: String?) {
+        if (uri == null) {
+            return
+        }
+        pendingJobs.firstOrNull { it.key == uri }?.let {
+            pendingJobs.remove(it)
+            notify(it, Status.CANCELLED, null)
+        }
+        runningJobs[uri]?.let { cancelRunningJob(it) }
+    }
+
+    /**
+     * Stop all preloads
+     */
+    fun cancelAll() {
+        while (pendingJobs.isNotEmpty()) {
+            notify(pendingJobs.poll()!!, Status.CANCELLED, null)
+        }
+        runningJobs.values.toList().forEach { cancelRunningJob(it) }
+    }
+
+    private fun cancelRunningJob(job: Job) {
+        job.cancelled = true
+        job.downloader?.cancel()
+        // a queued download never runs, a running one is interrupted
+        workerPool.cancelAll(getWorkerOwner(job))
+        finish(job, Status.CANCELLED, null)
+    }
+
+    private fun startPendingJobs() {
+        while (runningJobs.size < maxConcurrent && pendingJobs.isNotEmpty()) {
+            val job = pendingJobs.peek()!!
+            val reservation = if (job.requestedBytes > 0) job.requestedBytes.coerceAtMost(byteBudget) else byteBudget / maxConcurrent
+            if (runningJobs.isNotEmpty() && reservedBytes + reservation > byteBudget) {
+                // wait for running preloads to free some budget
+                return
+            }
+            pendingJobs.poll()
+            job.reservedBytes = reservation
+            reservedBytes += reservation
+            runningJobs[job.key] = job
+            start(job)
+        }
+    }
+
+    private fun start(job: Job) {
+        val upstreamFactory = DataSourceUtil.getDefaultHttpDataSourceFactory(job.context, job.bandwidthMeter, job.source.headers, job.source.cdnBaseUrls)
+        val cacheFactory = cache.getCacheDataSourceFactory(upstreamFactory, false)
+        if (cacheFactory == null) {
+            finish(job, Status.FAILED, "cache is disabled, set bufferConfig.cacheSizeMB")
+            return
+        }
+        val mediaItem = ConfigurationUtils.buildMediaItem(job.source)
+        val helper = DownloadHelper(
+            mediaItem,
+            buildMediaSource(job, mediaItem, upstreamFactory, cacheFactory),
+            DefaultTrackSelector.Parameters.Builder(job.context).build(),
+            DownloadHelper.getRendererCapabilities(DefaultRenderersFactory(job.context))
+        )
+        job.helper = helper
+        helper.prepare(object : DownloadHelper.Callback {
+            override fun onPrepared(helper: DownloadHelper) {
+                if (job.cancelled) {
+                    helper.release()
+                    return
+                }
+                job.helper = null
+                val request = try {
+                    val bitrate = selectInitialTracks(job, helper)
+                    updateTarget(job, bitrate)
+                    helper.getDownloadRequest(job.key, null)
+                } catch (e: Exception) {
+                    helper.release()
+                    finish(job, Status.FAILED, e.message)
+                    return
+                }
+                helper.release()
+                download(job, request, cacheFactory)
+            }
+
+            override fun onPrepareError(helper: DownloadHelper, e: IOException) {
+                helper.release()
+                if (!job.cancelled) {
+                    job.helper = null
+                    finish(job, Status.FAILED, e.message)
+                }
+            }
+        })
+    }
+
+    /**
+     * return the media source resolving the tracks of `mediaItem`, null for progressive streams which have a single track.
+     * DASH manifests are parsed into the manifest cache, so that the player starts from the preloaded manifest.
+     * As for the player, only chunks are read from cache, the manifest is read from `upstreamFactory`.
+     */
+    private fun buildMediaSource(job: Job, mediaItem: MediaItem, upstreamFactory: DataSource.Factory, cacheFactory: CacheDataSource.Factory): MediaSource? {
+        val uri = job.source.uri!!
+        return when (ConfigurationUtils.inferContentType(job.source)) {
+            C.CONTENT_TYPE_OTHER -> null
+            C.CONTENT_TYPE_DASH -> if (BuildConfig.USE_EXOPLAYER_DASH) {
+                DashMediaSource.Factory(DefaultDashChunkSource.Factory(cacheFactory), upstreamFactory)
+                    .setManifestParser(manifestCache.newParser(uri))
+                    .createMediaSource(mediaItem)
+            } else {
+                null
+            }
+            else -> DefaultMediaSourceFactory(cacheFactory).createMediaSource(mediaItem)
+        }
+    }
+
+    /**
+     * Keep only the tracks the player would start with: the ones DefaultTrackSelector selects, narrowed by the ABR track selection
+     * of the player to its initial rendition, for the bandwidth estimate of the player.
+     * @return the summed bitrate of selected formats, or Format.NO_VALUE if unknown
+     */
+    private fun selectInitialTracks(job: Job, helper: DownloadHelper): Int {
+        val parameters = DefaultTrackSelector.Parameters.Builder(job.context).build()
+        val abrFactory = RNVAbrTrackSelection.Factory()
+        job.source.abrConfig?.let { abrFactory.abrConfig = it }
+        var bitrate = 0
+        for (periodIndex in 0 until helper.periodCount) {
+            val mappedTrackInfo = helper.getMappedTrackInfo(periodIndex)
+            val definitions = Array(mappedTrackInfo.rendererCount) { rendererIndex ->
+                helper.getTrackSelections(periodIndex, rendererIndex).firstOrNull()?.let { selection ->
+                    ExoTrackSelection.Definition(selection.trackGroup, *IntArray(selection.length()) { selection.getIndexInTrackGroup(it) })
+                }
+            }
+            // the selections are created together, as the player does, adaptive ones share the bandwidth
+            val selections = abrFactory.createTrackSelections(definitions, job.bandwidthMeter, MediaSource.MediaPeriodId(Any()), Timeline.EMPTY)
+            helper.clearTrackSelections(periodIndex)
+            for (rendererIndex in 0 until mappedTrackInfo.rendererCount) {
+                val selection = selections[rendererIndex] ?: continue
+                val trackIndex = selection.selectedIndex
+                if (periodIndex == 0 && bitrate != Format.NO_VALUE) {
+                    val formatBitrate = selection.getFormat(trackIndex).bitrate
+                    bitrate = if (formatBitrate == Format.NO_VALUE) Format.NO_VALUE else bitrate + formatBitrate
+                }
+                val groupIndex = mappedTrackInfo.getTrackGroups(rendererIndex).indexOf(selection.trackGroup)
+                val override = DefaultTrackSelector.SelectionOverride(groupIndex, selection.getIndexInTrackGroup(trackIndex))
+                helper.addTrackSelectionForSingleRenderer(periodIndex, rendererIndex, parameters, listOf(override))
+            }
+        }
+        return if (bitrate > 0) bitrate else Format.NO_VALUE
+    }
+
+    private fun updateTarget(job: Job, bitrate: Int) {
+        val target = if (job.requestedBytes > 0) {
+            job.requestedBytes
+        } else {
+            val bitsPerSecond = if (bitrate != Format.NO_VALUE) bitrate.toLong() else DEFAULT_BITRATE
+            bitsPerSecond / 8 * job.requestedDurationMs.coerceAtLeast(0) / 1000
+        }
+        job.targetBytes = target.coerceIn(1, byteBudget)
+        reservedBytes += job.targetBytes - job.reservedBytes
+        job.reservedBytes = job.targetBytes
+    }
+
+    private fun download(job: Job, request: DownloadRequest, cacheFactory: CacheDataSource.Factory) {
+        // segments are downloaded one after the other on the worker thread
+        val downloader = DefaultDownloaderFactory(cacheFactory) { it.run() }.createDownloader(request)
+        job.downloader = downloader
+        val task = workerPool.tryExecute(getWorkerOwner(job), "preload") {
+            var status = Status.COMPLETED
+            var error: String? = null
+            try {
+                if (!job.cancelled) {
+                    downloader.download { _, bytesDownloaded, _ ->
+                        job.bytesLoaded = bytesDownloaded
+                        if (bytesDownloaded >= job.targetBytes && !job.targetReached) {
+                            job.targetReached = true
+                            downloader.cancel()
+                        }
+                    }
+                }
+            } catch (e: InterruptedException) {
+                // cancelled by user or because the target was reached
+            } catch (e: IOException) {
+                if (!job.targetReached) {
+                    status = Status.FAILED
+                    error = e.message
+                }
+            } finally {
+                // cancel() interrupts the worker thread, clear it for next task
+                Thread.interrupted()
+            }
+            if (job.cancelled && !job.targetReached) {
+                status = Status.CANCELLED
+            }
+            handler.post { finish(job, status, error) }
+        }
+        if (task == null) {
+            finish(job, Status.FAILED, "too many background tasks")
+        }
+    }
+
+    private fun finish(job: Job, status: Status, error: String?) {
+        if (runningJobs[job.key] !== job) {
+            return
+        }
+        runningJobs.remove(job.key)
+        reservedBytes -= job.reservedBytes
+        DebugLog.d(TAG, "preload ${job.key} ${status.name.lowercase()}, ${job.bytesLoaded} bytes")
+        notify(job, status, error)
+        startPendingJobs()
+    }
+
+    private fun notify(job: Job, status: Status, error: String?) {
+        val result = Result(job.key, status, job.bytesLoaded, error)
+        job.listeners.forEach { it(result) }
+        job.listeners.clear()
+    }
+
+    private fun getWorkerOwner(job: Job): String = "$WORKER_OWNER ${job.key}"
+
+    companion object {
+        private const val TAG = "RNVPreloadManager"
+        private const val WORKER_OWNER = "RNVPreloadManager"
+        private const val DEFAULT_MAX_CONCURRENT = 2
+        const val DEFAULT_BYTE_BUDGET = 16L * 1024 * 1024
+
+        // used to convert a duration to bytes when selected formats do not declare a bitrate
+        private const val DEFAULT_BITRATE = 2_000_000L
+    }
+}
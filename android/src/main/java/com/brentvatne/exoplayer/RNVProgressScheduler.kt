@@ -0,0 +1,135 @@
+package com.brentvatne.exoplayer
+
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
+import android.view.Choreographer
+
+/**
+ * Single progress tick shared by all players, owned by ReactNativeVideoManager.
+ * Every client gets ticks at its own interval from one callback:
+ * - when a visible client requests a high rate, ticks are aligned to Choreographer frames,
+ * - otherwise they run from a main thread handler, which keeps working in background.
+ * Inactive clients (offscreen, in background or paused) are ticked at most every INACTIVE_INTERVAL_MS.
+ * Main thread only.
+ */
+class RNVProgressScheduler {
+    interface Client {
+        /** requested delay between two ticks */
+        fun getProgressIntervalMs(): Long
+
+        /** false when the player is offscreen, in background or paused */
+        fun isProgressActive(): Boolean
+
+        fun onProgressTick()
+    }
+
+    private class Entry(val client: Client) {
+        var nextTickMs = 0L
+        var removed = false
+    }
+
+    private val handler = Handler(Looper.getMainLooper())
+    private val entries = ArrayList<Entry>()
+
+    // copy of entries iterated by tick, clients may add or remove themselves while ticked
+    private val tickingEntries = ArrayList<Entry>()
+    private var scheduledTickMs = NOT_SCHEDULED
+    private var isFrameCallbackScheduled = false
+
+    private val frameCallback = Choreographer.FrameCallback {
+        isFrameCallbackScheduled = false
+        tick()
+    }
+    private val tickRunnable = Runnable { tick() }
+
+    /**
+     * Start ticking `client`, its first tick happens as soon as possible
+     */
+    fun add(client: Client) {
+        if (entries.none { it.client === client }) {
+            entries.add(Entry(client))
+        }
+        wake(client)
+    }
+
+    /**
+     * Tick `client` as soon as possible if it is ticked, to be called when it becomes active
+     */
+    fun wake(client: Client) {
+        val entry = entries.firstOrNull { it.client === client } ?: return
+        entry.nextTickMs = 0
+        reschedule()
+    }
+
+    fun remove(client: Client) {
+        val index = entries.indexOfFirst { it.client === client }
+        if (index < 0) {
+            return
+        }
+        entries.removeAt(index).removed = true
+        if (entries.isEmpty()) {
+            cancel()
+        }
+    }
+
+    private fun tick() {
+        scheduledTickMs = NOT_SCHEDULED
+        val nowMs = SystemClock.uptimeMillis()
+        tickingEntries.addAll(entries)
+        for (entry in tickingEntries) {
+            // a tick due within the next frame is run now, it would be late otherwise
+            if (!entry.removed && entry.nextTickMs <= nowMs + FRAME_MS / 2) {
+                entry.nextTickMs = nowMs + getIntervalMs(entry.client)
+                entry.client.onProgressTick()
+            }
+        }
+        tickingEntries.clear()
+        reschedule()
+    }
+
+    private fun reschedule() {
+        if (entries.isEmpty()) {
+            return
+        }
+        var nextTickMs = Long.MAX_VALUE
+        var alignToFrames = false
+        for (entry in entries) {
+            nextTickMs = minOf(nextTickMs, entry.nextTickMs)
+            alignToFrames = alignToFrames || (entry.client.isProgressActive() && entry.client.getProgressIntervalMs() <= FRAME_ALIGNED_MAX_INTERVAL_MS)
+        }
+        if (scheduledTickMs != NOT_SCHEDULED && scheduledTickMs <= nextTickMs) {
+            return
+        }
+        cancel()
+        scheduledTickMs = nextTickMs
+        val delayMs = (nextTickMs - SystemClock.uptimeMillis()).coerceAtLeast(0)
+        if (alignToFrames) {
+            isFrameCallbackScheduled = true
+            Choreographer.getInstance().postFrameCallbackDelayed(frameCallback, delayMs)
+        } else {
+            handler.postDelayed(tickRunnable, delayMs)
+        }
+    }
+
+    private fun cancel() {
+        scheduledTickMs = NOT_SCHEDULED
+        handler.removeCallbacks(tickRunnable)
+        if (isFrameCallbackScheduled) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback)
+            isFrameCallbackScheduled = false
+        }
+    }
+
+    private fun getIntervalMs(client: Client): Long {
+        val intervalMs = client.getProgressIntervalMs().coerceAtLeast(FRAME_MS)
+        return if (client.isProgressActive()) intervalMs else maxOf(intervalMs, INACTIVE_INTERVAL_MS)
+    }
+
+    companion object {
+        private const val NOT_SCHEDULED = -1L
+        private const val FRAME_MS = 16L
+        private const val FRAME_ALIGNED_MAX_INTERVAL_MS = 100L
+        private const val INACTIVE_INTERVAL_MS = 1000L
+    }
+}
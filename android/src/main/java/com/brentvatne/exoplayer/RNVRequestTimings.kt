@@ -0,0 +1,244 @@
+package com.brentvatne.exoplayer
+
+import android.net.Uri
+import android.os.SystemClock
+import androidx.media3.common.C
+import androidx.media3.common.Format
+import androidx.media3.datasource.DataSource
+import androidx.media3.datasource.DataSpec
+import androidx.media3.datasource.HttpDataSource
+import androidx.media3.datasource.TransferListener
+import androidx.media3.exoplayer.source.LoadEventInfo
+import androidx.media3.exoplayer.source.MediaLoadData
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableArray
+import com.facebook.react.bridge.WritableMap
+import java.io.IOException
+
+/**
+ * Timings of the manifest, segment and key requests of one player instance, the last MAX_REQUESTS are kept.
+ * Added as transfer listener to each data source of the player, it measures the time to first byte, the HTTP status and
+ * whether bytes came from the cache or the network of each transfer. Transfers are attached to the load they belong to
+ * when the player reports it, with its duration, size and rendition.
+ * Transfer callbacks come from loading threads, load callbacks and snapshots from the main thread.
+ */
+class RNVRequestTimings(val instanceId: String) : TransferListener {
+    data class Request(
+        val uri: String,
+        val type: String,
+        val trackType: String,
+        val bitrate: Int,
+        val width: Int,
+        val height: Int,
+        val startTimeMs: Long,
+        val ttfbMs: Long,
+        val durationMs: Long,
+        val bytes: Long,
+        val httpStatus: Int,
+        val cacheStatus: String,
+        val error: String?
+    ) {
+        /** bits per second, 0 when the duration is unknown */
+        val throughput: Long get() = if (durationMs > 0) bytes * 8000 / durationMs else 0
+
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putString("uri", uri)
+                putString("type", type)
+                putString("trackType", trackType)
+                putInt("bitrate", bitrate)
+                putInt("width", width)
+                putInt("height", height)
+                putDouble("startTimeMs", startTimeMs.toDouble())
+                putDouble("ttfbMs", ttfbMs.toDouble())
+                putDouble("durationMs", durationMs.toDouble())
+                putDouble("bytes", bytes.toDouble())
+                putDouble("throughput", throughput.toDouble())
+                putInt("httpStatus", httpStatus)
+                putString("cacheStatus", cacheStatus)
+                putString("error", error)
+            }
+    }
+
+    /**
+     * Summary of the kept requests
+     */
+    data class Summary(
+        val instanceId: String,
+        val requests: Int,
+        val errors: Int,
+        val cacheHits: Int,
+        val bytes: Long,
+        val averageTtfbMs: Double,
+        val maxTtfbMs: Long,
+        val averageDurationMs: Double,
+        val averageThroughput: Double
+    ) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putString("instanceId", instanceId)
+                putInt("requests", requests)
+                putInt("errors", errors)
+                putInt("cacheHits", cacheHits)
+                putDouble("bytes", bytes.toDouble())
+                putDouble("averageTtfbMs", averageTtfbMs)
+                putDouble("maxTtfbMs", maxTtfbMs.toDouble())
+                putDouble("averageDurationMs", averageDurationMs)
+                putDouble("averageThroughput", averageThroughput)
+            }
+    }
+
+    private class Transfer(val position: Long, val isNetwork: Boolean, val openTimeMs: Long) {
+        var firstByteTimeMs = -1L
+        var httpStatus = -1
+    }
+
+    private val openTransfers = HashMap<DataSpec, Transfer>()
+
+    // transfers waiting for their load to complete, by uri
+    private val pendingTransfers = object : LinkedHashMap<Uri, ArrayList<Transfer>>() {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Uri, ArrayList<Transfer>>?): Boolean = size > MAX_PENDING_URIS
+    }
+    private val requests = ArrayDeque<Request>()
+
+    /** false when the player doesn't read through the cache, requests are reported as `bypass` */
+    @Volatile
+    var isCacheEnabled = false
+
+    /** incremented on each request, used to skip events when nothing happened */
+    @Volatile
+    var version = 0L
+        private set
+
+    @Synchronized
+    override fun onTransferInitializing(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        val transfer = Transfer(dataSpec.position, isNetwork, SystemClock.elapsedRealtime())
+        openTransfers[dataSpec] = transfer
+        pendingTransfers.getOrPut(dataSpec.uri) { ArrayList() }.add(transfer)
+    }
+
+    @Synchronized
+    override fun onTransferStart(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        val transfer = openTransfers[dataSpec] ?: return
+        transfer.httpStatus = (source as? HttpDataSource)?.responseCode ?: -1
+    }
+
+    @Synchronized
+    override fun onBytesTransferred(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean, bytesTransferred: Int) {
+        val transfer = openTransfers[dataSpec] ?: return
+        if (transfer.firstByteTimeMs < 0) {
+            transfer.firstByteTimeMs = SystemClock.elapsedRealtime()
+        }
+    }
+
+    @Synchronized
+    override fun onTransferEnd(source: DataSource, dataSpec: DataSpec, isNetwork: Boolean) {
+        openTransfers.remove(dataSpec)
+    }
+
+    /**
+     * Record the load described by `loadEventInfo`, with the transfers made for it, `error` if it failed
+     */
+    @Synchronized
+    fun onLoadCompleted(loadEventInfo: LoadEventInfo, mediaLoadData: MediaLoadData, error: IOException?) {
+        val transfers = takeTransfers(loadEventInfo.dataSpec)
+        val networkTransfers = transfers.filter { it.isNetwork }
+        val firstTransfer = transfers.firstOrNull { it.firstByteTimeMs >= 0 }
+        val format: Format? = mediaLoadData.trackFormat
+        val request = Request(
+            loadEventInfo.uri.toString(),
+            getDataType(mediaLoadData.dataType),
+            getTrackType(mediaLoadData.trackType),
+            format?.bitrate ?: Format.NO_VALUE,
+            format?.width ?: Format.NO_VALUE,
+            format?.height ?: Format.NO_VALUE,
+            System.currentTimeMillis() - loadEventInfo.loadDurationMs,
+            if (firstTransfer != null) firstTransfer.firstByteTimeMs - firstTransfer.openTimeMs else -1,
+            loadEventInfo.loadDurationMs,
+            loadEventInfo.bytesLoaded,
+            (error as? HttpDataSource.InvalidResponseCodeException)?.responseCode ?: networkTransfers.lastOrNull()?.httpStatus ?: -1,
+            when {
+                !isCacheEnabled -> "bypass"
+                networkTransfers.isEmpty() -> if (transfers.isEmpty()) "unknown" else "hit"
+                networkTransfers.size < transfers.size -> "partial"
+                else -> "miss"
+            },
+            error?.let { it.message ?: it.javaClass.simpleName }
+        )
+        requests.addLast(request)
+        if (requests.size > MAX_REQUESTS) {
+            requests.removeFirst()
+        }
+        version++
+    }
+
+    /**
+     * Forget the transfers of a canceled load
+     */
+    @Synchronized
+    fun onLoadCanceled(loadEventInfo: LoadEventInfo) {
+        takeTransfers(loadEventInfo.dataSpec)
+    }
+
+    @Synchronized
+    fun getRequests(): WritableArray = Arguments.createArray().apply { requests.forEach { pushMap(it.toWritableMap()) } }
+
+    @Synchronized
+    fun summary(): Summary {
+        val ttfbs = requests.filter { it.ttfbMs >= 0 }.map { it.ttfbMs }
+        // throughput is meaningful for media read from the network only
+        val throughputs = requests.filter { it.type == "media" && it.cacheStatus != "hit" && it.durationMs > 0 }.map { it.throughput }
+        return Summary(
+            instanceId,
+            requests.size,
+            requests.count { it.error != null },
+            requests.count { it.cacheStatus == "hit" },
+            requests.sumOf { it.bytes },
+            if (ttfbs.isNotEmpty()) ttfbs.average() else 0.0,
+            ttfbs.maxOrNull() ?: 0,
+            if (requests.isNotEmpty()) requests.map { it.durationMs }.average() else 0.0,
+            if (throughputs.isNotEmpty()) throughputs.average() else 0.0
+        )
+    }
+
+    /**
+     * return the transfers of `dataSpec` uri within its range, transfers of a load may start after its position when partly cached
+     */
+    private fun takeTransfers(dataSpec: DataSpec): List<Transfer> {
+        val transfers = pendingTransfers[dataSpec.uri] ?: return emptyList()
+        val end = if (dataSpec.length == C.LENGTH_UNSET.toLong()) Long.MAX_VALUE else dataSpec.position + dataSpec.length
+        val taken = transfers.filter { it.position >= dataSpec.position && it.position < end }
+        transfers.removeAll(taken)
+        // transfers which failed to open are never ended
+        openTransfers.values.removeAll(taken)
+        if (transfers.isEmpty()) {
+            pendingTransfers.remove(dataSpec.uri)
+        }
+        return taken
+    }
+
+    companion object {
+        private const val MAX_REQUESTS = 100
+        private const val MAX_PENDING_URIS = 64
+
+        private fun getDataType(dataType: Int): String =
+            when (dataType) {
+                C.DATA_TYPE_MANIFEST -> "manifest"
+                C.DATA_TYPE_MEDIA, C.DATA_TYPE_MEDIA_PROGRESSIVE_LIVE -> "media"
+                C.DATA_TYPE_MEDIA_INITIALIZATION -> "initialization"
+                C.DATA_TYPE_DRM -> "drm"
+                C.DATA_TYPE_TIME_SYNCHRONIZATION -> "timeSynchronization"
+                C.DATA_TYPE_AD -> "ad"
+                else -> "unknown"
+            }
+
+        private fun getTrackType(trackType: Int): String =
+            when (trackType) {
+                C.TRACK_TYPE_VIDEO -> "video"
+                C.TRACK_TYPE_AUDIO -> "audio"
+                C.TRACK_TYPE_TEXT -> "text"
+                C.TRACK_TYPE_DEFAULT -> "muxed"
+                else -> "unknown"
+            }
+    }
+}
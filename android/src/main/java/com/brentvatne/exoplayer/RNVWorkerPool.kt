@@ -0,0 +1,193 @@
+package com.brentvatne.exoplayer
+
+import android.os.SystemClock
+import com.brentvatne.common.toolbox.DebugLog
+import com.facebook.react.bridge.Arguments
+import com.facebook.react.bridge.WritableMap
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.FutureTask
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Bounded pool of named worker threads shared by all players, owned by ReactNativeVideoManager.
+ * It runs player background work (player initialization, DRM licenses, manifest parsing, track enumeration).
+ * Tasks are tagged with an owner, the instance id of a player, so that they can be cancelled when the player is released.
+ * Idle threads are stopped after KEEP_ALIVE_SECONDS.
+ * Thread safe.
+ */
+class RNVWorkerPool {
+    /**
+     * Snapshot of pool counters, durations are averaged over all completed tasks
+     */
+    data class Stats(
+        val threads: Int,
+        val activeTasks: Int,
+        val queuedTasks: Int,
+        val completedTasks: Long,
+        val cancelledTasks: Long,
+        val rejectedTasks: Long,
+        val averageWaitMs: Double,
+        val maxWaitMs: Long,
+        val averageRunMs: Double,
+        val maxRunMs: Long
+    ) {
+        fun toWritableMap(): WritableMap =
+            Arguments.createMap().apply {
+                putInt("threads", threads)
+                putInt("activeTasks", activeTasks)
+                putInt("queuedTasks", queuedTasks)
+                putDouble("completedTasks", completedTasks.toDouble())
+                putDouble("cancelledTasks", cancelledTasks.toDouble())
+                putDouble("rejectedTasks", rejectedTasks.toDouble())
+                putDouble("averageWaitMs", averageWaitMs)
+                putDouble("maxWaitMs", maxWaitMs.toDouble())
+                putDouble("averageRunMs", averageRunMs)
+                putDouble("maxRunMs", maxRunMs.toDouble())
+            }
+    }
+
+    private inner class Task<T>(val owner: String, val name: String, callable: Callable<T>) : FutureTask<T>(callable) {
+        private val submitTimeMs = SystemClock.elapsedRealtime()
+
+        override fun run() {
+            val startTimeMs = SystemClock.elapsedRealtime()
+            super.run()
+            onTaskRun(this, startTimeMs - submitTimeMs, SystemClock.elapsedRealtime() - startTimeMs)
+        }
+
+        override fun done() {
+            onTaskDone(this)
+        }
+    }
+
+    private val threadIndex = AtomicInteger()
+    private val threadCount = Runtime.getRuntime().availableProcessors().coerceIn(MIN_THREADS, MAX_THREADS)
+    private val executor = ThreadPoolExecutor(
+        threadCount,
+        threadCount,
+        KEEP_ALIVE_SECONDS,
+        TimeUnit.SECONDS,
+        LinkedBlockingQueue(MAX_QUEUED_TASKS)
+    ) { runnable -> Thread(runnable, THREAD_NAME_PREFIX + threadIndex.incrementAndGet()) }.apply {
+        allowCoreThreadTimeOut(true)
+    }
+
+    private val tasksByOwner = HashMap<String, MutableSet<Task<*>>>()
+
+    private var completedTasks = 0L
+    private var cancelledTasks = 0L
+    private var rejectedTasks = 0L
+    private var waitSumMs = 0L
+    private var maxWaitMs = 0L
+    private var runSumMs = 0L
+    private var maxRunMs = 0L
+
+    /**
+     * Queue `callable` on behalf of `owner`
+     * @param name task name, for logs
+     * @throws RejectedExecutionException if MAX_QUEUED_TASKS tasks are already waiting
+     */
+    fun <T> submit(owner: String, name: String, callable: Callable<T>): Future<T> {
+        val task = Task(owner, name, callable)
+        synchronized(this) {
+            tasksByOwner.getOrPut(owner) { HashSet() }.add(task)
+        }
+        try {
+            executor.execute(task)
+        } catch (e: RejectedExecutionException) {
+            synchronized(this) {
+                rejectedTasks++
+                removeTask(task)
+            }
+            DebugLog.w(TAG, "task $name of $owner rejected, ${executor.queue.size} tasks queued")
+            throw e
+        }
+        return task
+    }
+
+    fun execute(owner: String, name: String, runnable: Runnable): Future<*> = submit(owner, name, Executors.callable(runnable))
+
+    /**
+     * Queue `runnable` on behalf of `owner`, for callers running on the main thread or settling a promise
+     * @return the task, or null if it was rejected because MAX_QUEUED_TASKS tasks are already waiting
+     */
+    fun tryExecute(owner: String, name: String, runnable: Runnable): Future<*>? =
+        try {
+            execute(owner, name, runnable)
+        } catch (e: RejectedExecutionException) {
+            null
+        }
+
+    /**
+     * Cancel the queued and running tasks of `owner`, running tasks are interrupted
+     */
+    fun cancelAll(owner: String) {
+        val tasks = synchronized(this) { tasksByOwner.remove(owner) } ?: return
+        tasks.forEach {
+            it.cancel(true)
+            executor.remove(it)
+        }
+    }
+
+    @Synchronized
+    fun getStats(): Stats =
+        Stats(
+            executor.poolSize,
+            executor.activeCount,
+            executor.queue.size,
+            completedTasks,
+            cancelledTasks,
+            rejectedTasks,
+            if (completedTasks > 0) waitSumMs.toDouble() / completedTasks else 0.0,
+            maxWaitMs,
+            if (completedTasks > 0) runSumMs.toDouble() / completedTasks else 0.0,
+            maxRunMs
+        )
+
+    @Synchronized
+    private fun onTaskRun(task: Task<*>, waitMs: Long, runMs: Long) {
+        if (task.isCancelled) {
+            return
+        }
+        completedTasks++
+        waitSumMs += waitMs
+        maxWaitMs = maxOf(maxWaitMs, waitMs)
+        runSumMs += runMs
+        maxRunMs = maxOf(maxRunMs, runMs)
+        if (runMs > SLOW_TASK_MS) {
+            DebugLog.w(TAG, "task ${task.name} of ${task.owner} took $runMs ms, waited $waitMs ms")
+        }
+    }
+
+    @Synchronized
+    private fun onTaskDone(task: Task<*>) {
+        if (task.isCancelled) {
+            cancelledTasks++
+        }
+        removeTask(task)
+    }
+
+    private fun removeTask(task: Task<*>) {
+        val tasks = tasksByOwner[task.owner] ?: return
+        tasks.remove(task)
+        if (tasks.isEmpty()) {
+            tasksByOwner.remove(task.owner)
+        }
+    }
+
+    companion object {
+        private const val TAG = "RNVWorkerPool"
+        private const val THREAD_NAME_PREFIX = "RNVWorker-"
+        private const val MIN_THREADS = 2
+        private const val MAX_THREADS = 4
+        private const val MAX_QUEUED_TASKS = 64
+        private const val KEEP_ALIVE_SECONDS = 30L
+        private const val SLOW_TASK_MS = 1000L
+    }
+}
@@ -2,9 +2,22 @@ package com.brentvatne.exoplayer
 
 import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter
 import androidx.media3.exoplayer.upstream.LoadErrorHandlingPolicy
+import com.brentvatne.common.api.AbrConfig
 
 interface ReactExoplayerConfig {
     fun buildLoadErrorHandlingPolicy(minLoadRetryCount: Int): LoadErrorHandlingPolicy
     var disableDisconnectError: Boolean
     val bandwidthMeter: DefaultBandwidthMeter
+
+    /**
+     * ABR of the sources without abr config
+     */
+    val defaultAbrConfig: AbrConfig
+        get() = AbrConfig()
+
+    /**
+     * persisted estimates of bandwidthMeter, null if they aren't persisted
+     */
+    val bandwidthHistory: RNVBandwidthHistory?
+        get() = null
 }
@@ -1,27 +1,109 @@
 package com.brentvatne.exoplayer
 
 import androidx.media3.common.C
-import androidx.media3.datasource.HttpDataSource.HttpDataSourceException
+import androidx.media3.common.ParserException
+import androidx.media3.common.PlaybackException
+import androidx.media3.datasource.DataSourceException
+import androidx.media3.datasource.HttpDataSource
 import androidx.media3.exoplayer.upstream.DefaultLoadErrorHandlingPolicy
 import androidx.media3.exoplayer.upstream.LoadErrorHandlingPolicy.LoadErrorInfo
+import com.brentvatne.react.ReactNativeVideoManager
+import java.io.IOException
 import kotlin.math.min
+import kotlin.random.Random
+
+/**
+ * Retries of the failed loads, according to the kind of their error:
+ * - offline: when `retryWhileOffline` is set, the requests are held by RNVConnectivity until a network is available,
+ *   then retried at once, otherwise they are retried with the backoff of connection errors,
+ * - connection and server errors (5xx, 408, 429): retried with an exponential backoff and jitter, honoring Retry-After,
+ * - client errors (other 4xx), unparseable responses and missing files: not retried.
+ * When `retryWhileOffline` is set, offline and connection errors are retried until the network and the server are back,
+ * except for DRM licenses, other errors are retried `minLoadRetryCount` times.
+ * Held requests include the ones of other players, preloads and downloads, which would fail while offline anyway,
+ * so requests are only held when the player keeps retrying: other players fail fast.
+ */
+class ReactExoplayerLoadErrorHandlingPolicy @JvmOverloads constructor(
+    private val minLoadRetryCount: Int,
+    private val retryWhileOffline: Boolean = true
+) : DefaultLoadErrorHandlingPolicy(minLoadRetryCount) {
+    enum class ErrorKind {
+        OFFLINE,
+        CONNECTION,
+        SERVER,
+        TRANSIENT,
+        PERMANENT
+    }
+
+    private val connectivity = ReactNativeVideoManager.getInstance().connectivity
 
-class ReactExoplayerLoadErrorHandlingPolicy(private val minLoadRetryCount: Int) : DefaultLoadErrorHandlingPolicy(minLoadRetryCount) {
     override fun getRetryDelayMsFor(loadErrorInfo: LoadErrorInfo): Long {
-        val errorMessage: String? = loadErrorInfo.exception.message
-
-        return if (loadErrorInfo.exception is HttpDataSourceException &&
-            errorMessage != null &&
-            (errorMessage == "Unable to connect" || errorMessage == "Software caused connection abort")
-        ) {
-            // Capture the error we get when there is no network connectivity and keep retrying it
-            1000 // Retry every second
-        } else if (loadErrorInfo.errorCount < minLoadRetryCount) {
-            min(((loadErrorInfo.errorCount - 1) * 1000L), 5000L) // Default timeout handling
-        } else {
-            C.TIME_UNSET // Done retrying and will return the error immediately
+        val kind = classify(loadErrorInfo.exception)
+        val isDrm = loadErrorInfo.mediaLoadData.dataType == C.DATA_TYPE_DRM
+        if (kind == ErrorKind.PERMANENT) {
+            return C.TIME_UNSET
+        }
+        val isUnlimited = retryWhileOffline && !isDrm && (kind == ErrorKind.OFFLINE || kind == ErrorKind.CONNECTION)
+        if (!isUnlimited && loadErrorInfo.errorCount >= minLoadRetryCount) {
+            // done retrying, the error is reported
+            return C.TIME_UNSET
+        }
+        if (kind == ErrorKind.OFFLINE && retryWhileOffline) {
+            connectivity.holdUntilOnline()
+            // the retry waits for the network in open, the jitter spreads the requests when it is back
+            return Random.nextLong(OFFLINE_JITTER_MS)
+        }
+        return maxOf(getBackoffMs(loadErrorInfo.errorCount), getRetryAfterMs(loadErrorInfo.exception))
+    }
+
+    override fun getMinimumLoadableRetryCount(dataType: Int): Int =
+        if (retryWhileOffline && dataType != C.DATA_TYPE_DRM) Int.MAX_VALUE else super.getMinimumLoadableRetryCount(dataType)
+
+    private fun classify(exception: IOException): ErrorKind {
+        if (exception is HttpDataSource.InvalidResponseCodeException) {
+            val code = exception.responseCode
+            return if (code >= 500 || code == 408 || code == 429) ErrorKind.SERVER else ErrorKind.PERMANENT
+        }
+        if (exception is ParserException || exception is HttpDataSource.CleartextNotPermittedException) {
+            return ErrorKind.PERMANENT
         }
+        val reason = (exception as? DataSourceException)?.reason
+        return when (reason) {
+            PlaybackException.ERROR_CODE_IO_FILE_NOT_FOUND,
+            PlaybackException.ERROR_CODE_IO_NO_PERMISSION,
+            PlaybackException.ERROR_CODE_IO_READ_POSITION_OUT_OF_RANGE -> ErrorKind.PERMANENT
+            PlaybackException.ERROR_CODE_IO_NETWORK_CONNECTION_FAILED,
+            PlaybackException.ERROR_CODE_IO_NETWORK_CONNECTION_TIMEOUT ->
+                if (connectivity.isOnline) ErrorKind.CONNECTION else ErrorKind.OFFLINE
+            // reads interrupted by a network loss
+            else -> if (connectivity.isOnline) ErrorKind.TRANSIENT else ErrorKind.OFFLINE
+        }
+    }
+
+    /**
+     * return BASE_DELAY_MS * 2^(errorCount - 1), capped to MAX_DELAY_MS, of which the upper half is random
+     */
+    private fun getBackoffMs(errorCount: Int): Long {
+        val delayMs = min(MAX_DELAY_MS, BASE_DELAY_MS shl min(errorCount - 1, MAX_SHIFT))
+        return delayMs / 2 + Random.nextLong(delayMs / 2 + 1)
+    }
+
+    /**
+     * return the delay of the Retry-After header of 429 and 503 responses, in seconds, 0 if there isn't any
+     */
+    private fun getRetryAfterMs(exception: IOException): Long {
+        val headers = (exception as? HttpDataSource.InvalidResponseCodeException)?.headerFields ?: return 0
+        val value = headers.entries.firstOrNull { it.key.equals(RETRY_AFTER_HEADER, ignoreCase = true) }?.value?.firstOrNull() ?: return 0
+        val seconds = value.trim().toLongOrNull() ?: return 0
+        return min(seconds * 1000, MAX_RETRY_AFTER_MS).coerceAtLeast(0)
     }
 
-    override fun getMinimumLoadableRetryCount(dataType: Int): Int = Int.MAX_VALUE
+    companion object {
+        private const val BASE_DELAY_MS = 1000L
+        private const val MAX_DELAY_MS = 30_000L
+        private const val MAX_SHIFT = 5
+        private const val MAX_RETRY_AFTER_MS = 120_000L
+        private const val OFFLINE_JITTER_MS = 1000L
+        private const val RETRY_AFTER_HEADER = "Retry-After"
+    }
 }
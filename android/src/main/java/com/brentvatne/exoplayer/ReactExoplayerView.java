@@ -9,11 +9,11 @@ import static androidx.media3.common.C.TIME_END_OF_SOURCE;
 
 import android.annotation.SuppressLint;
 import android.app.Activity;
-import android.app.ActivityManager;
 import android.app.PictureInPictureParams;
 import android.app.RemoteAction;
 import android.app.AlertDialog;
 import android.content.ComponentName;
+import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.ServiceConnection;
@@ -22,8 +22,7 @@ import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
-import android.os.Looper;
-import android.os.Message;
+import android.os.SystemClock;
 import android.text.TextUtils;
 import android.view.View;
 import android.view.ViewGroup;
@@ -56,47 +55,41 @@ import androidx.media3.common.util.Util;
 import androidx.media3.datasource.DataSource;
 import androidx.media3.datasource.DataSpec;
 import androidx.media3.datasource.HttpDataSource;
-import androidx.media3.exoplayer.DefaultLoadControl;
-import androidx.media3.exoplayer.DefaultRenderersFactory;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.SeekParameters;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
 import androidx.media3.exoplayer.dash.DashMediaSource;
-import androidx.media3.exoplayer.dash.DashUtil;
 import androidx.media3.exoplayer.dash.DefaultDashChunkSource;
 import androidx.media3.exoplayer.dash.manifest.AdaptationSet;
 import androidx.media3.exoplayer.dash.manifest.DashManifest;
 import androidx.media3.exoplayer.dash.manifest.Period;
 import androidx.media3.exoplayer.dash.manifest.Representation;
-import androidx.media3.exoplayer.drm.DefaultDrmSessionManager;
 import androidx.media3.exoplayer.drm.DefaultDrmSessionManagerProvider;
 import androidx.media3.exoplayer.drm.DrmSessionEventListener;
 import androidx.media3.exoplayer.drm.DrmSessionManager;
 import androidx.media3.exoplayer.drm.DrmSessionManagerProvider;
-import androidx.media3.exoplayer.drm.FrameworkMediaDrm;
-import androidx.media3.exoplayer.drm.HttpMediaDrmCallback;
 import androidx.media3.exoplayer.drm.UnsupportedDrmException;
 import androidx.media3.exoplayer.hls.HlsMediaSource;
 import androidx.media3.exoplayer.ima.ImaAdsLoader;
-import androidx.media3.exoplayer.mediacodec.MediaCodecInfo;
-import androidx.media3.exoplayer.mediacodec.MediaCodecUtil;
 import androidx.media3.exoplayer.rtsp.RtspMediaSource;
 import androidx.media3.exoplayer.smoothstreaming.DefaultSsChunkSource;
 import androidx.media3.exoplayer.smoothstreaming.SsMediaSource;
+import androidx.media3.exoplayer.offline.DownloadRequest;
 import androidx.media3.exoplayer.source.ClippingMediaSource;
 import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import androidx.media3.exoplayer.source.LoadEventInfo;
+import androidx.media3.exoplayer.source.MediaLoadData;
 import androidx.media3.exoplayer.source.MediaSource;
 import androidx.media3.exoplayer.source.MergingMediaSource;
 import androidx.media3.exoplayer.source.ProgressiveMediaSource;
 import androidx.media3.exoplayer.source.TrackGroupArray;
 import androidx.media3.exoplayer.source.ads.AdsMediaSource;
-import androidx.media3.exoplayer.trackselection.AdaptiveTrackSelection;
 import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
-import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
 import androidx.media3.exoplayer.trackselection.MappingTrackSelector;
 import androidx.media3.exoplayer.trackselection.TrackSelection;
 import androidx.media3.exoplayer.trackselection.TrackSelectionArray;
 import androidx.media3.exoplayer.upstream.BandwidthMeter;
 import androidx.media3.exoplayer.upstream.CmcdConfiguration;
-import androidx.media3.exoplayer.upstream.DefaultAllocator;
 import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
 import androidx.media3.exoplayer.util.EventLogger;
 import androidx.media3.extractor.metadata.emsg.EventMessage;
@@ -105,8 +98,8 @@ import androidx.media3.extractor.metadata.id3.TextInformationFrame;
 import androidx.media3.session.MediaSessionService;
 import androidx.media3.ui.LegacyPlayerControlView;
 
+import com.brentvatne.common.api.AbrConfig;
 import com.brentvatne.common.api.AdsProps;
-import com.brentvatne.common.api.BufferConfig;
 import com.brentvatne.common.api.BufferingStrategy;
 import com.brentvatne.common.api.ControlsConfig;
 import com.brentvatne.common.api.DRMProps;
@@ -138,6 +131,7 @@ import com.google.ads.interactivemedia.v3.api.ImaSdkSettings;
 import com.google.common.collect.ImmutableList;
 import com.brentvatne.exoplayer.AdAnalyticsLogger;
 
+import java.io.IOException;
 import java.net.CookieHandler;
 import java.net.CookieManager;
 import java.net.CookiePolicy;
@@ -147,11 +141,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @SuppressLint("ViewConstructor")
 public class ReactExoplayerView extends FrameLayout implements
@@ -161,7 +152,8 @@ public class ReactExoplayerView extends FrameLayout implements
         BecomingNoisyListener,
         DrmSessionEventListener,
         AdEvent.AdEventListener,
-        AdErrorEvent.AdErrorListener {
+        AdErrorEvent.AdErrorListener,
+        RNVProgressScheduler.Client {
 
     public static final double DEFAULT_MAX_HEAP_ALLOCATION_PERCENT = 1;
     public static final double DEFAULT_MIN_BUFFER_MEMORY_RESERVE = 0;
@@ -169,7 +161,14 @@ public class ReactExoplayerView extends FrameLayout implements
     private static final String TAG = "ReactExoplayerView";
 
     private static final CookieManager DEFAULT_COOKIE_MANAGER;
-    private static final int SHOW_PROGRESS = 1;
+    private static final long CACHE_METRICS_UPDATE_INTERVAL_MS = 1000;
+    private static final long REQUEST_TIMINGS_UPDATE_INTERVAL_MS = 1000;
+    // two manifest requests of 3s
+    private static final long MANIFEST_VIDEO_TRACKS_TIMEOUT_MS = 6000;
+    // a scrub seek not rendered after this delay doesn't hold the next one anymore
+    private static final long SCRUB_SEEK_TIMEOUT_MS = 500;
+    // layout passes of an animated resize are applied once the size settles
+    private static final long VIEWPORT_DEBOUNCE_MS = 300;
 
     static {
         DEFAULT_COOKIE_MANAGER = new CookieManager();
@@ -190,12 +189,48 @@ public class ReactExoplayerView extends FrameLayout implements
     private DataSource.Factory mediaDataSourceFactory;
     private ExoPlayer player;
     private DefaultTrackSelector trackSelector;
+    private RNVLoadControl loadControl;
+    private RNVPlayerPool.PooledPlayer pooledPlayer;
     private boolean playerNeedsSource;
     private ServiceConnection playbackServiceConnection;
     private PlaybackServiceBinder playbackServiceBinder;
 
     // logger to be enable by props
     private EventLogger debugEventLogger = null;
+    private final AnalyticsListener analyticsListener = new AnalyticsListener() {
+        @Override
+        public void onDownstreamFormatChanged(@NonNull EventTime eventTime, @NonNull MediaLoadData mediaLoadData) {
+            onAbrSwitch(mediaLoadData);
+        }
+
+        @Override
+        public void onLoadStarted(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo, @NonNull MediaLoadData mediaLoadData) {
+            if (source.getUri() != null) {
+                // segments and keys hosts are warmed up with the source next time
+                ReactNativeVideoManager.Companion.getInstance().getConnectionPrewarmer().recordRequest(source.getUri(), loadEventInfo.uri);
+            }
+        }
+
+        @Override
+        public void onLoadCompleted(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo, @NonNull MediaLoadData mediaLoadData) {
+            requestTimings.onLoadCompleted(loadEventInfo, mediaLoadData, null);
+            updateRequestTimings();
+        }
+
+        @Override
+        public void onLoadError(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo, @NonNull MediaLoadData mediaLoadData,
+                                @NonNull IOException error, boolean wasCanceled) {
+            requestTimings.onLoadCompleted(loadEventInfo, mediaLoadData, error);
+            updateRequestTimings();
+        }
+
+        @Override
+        public void onLoadCanceled(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo, @NonNull MediaLoadData mediaLoadData) {
+            requestTimings.onLoadCanceled(loadEventInfo);
+        }
+    };
+    private AbrConfig abrConfig = new AbrConfig();
+    private int lastAbrBitrate = Format.NO_VALUE;
     private boolean enableDebug = false;
     private static final String TAG_EVENT_LOGGER = "RNVExoplayer";
 
@@ -214,7 +249,11 @@ public class ReactExoplayerView extends FrameLayout implements
     private AudioOutput audioOutput = AudioOutput.SPEAKER;
     private float audioVolume = 1f;
     private int maxBitRate = 0;
+    private float viewportOversampling = 0;
+    private int viewportWidth = 0;
+    private int viewportHeight = 0;
     private boolean hasDrmFailed = false;
+    private RNVDrmManager.Session drmSession;
     private boolean isUsingContentResolution = false;
     private boolean selectTrackWhenReady = false;
     private final Handler mainHandler;
@@ -231,6 +270,18 @@ public class ReactExoplayerView extends FrameLayout implements
     private boolean isSeeking = false;
     private long seekPosition = -1;
 
+    /*
+    * While scrubbing, seeks land on the closest keyframe and only one is in flight: the positions requested
+    * meanwhile are coalesced to the latest one, issued once the previous seek is rendered.
+    * An exact seek to the last position is issued when scrubbing ends.
+    */
+    private boolean isScrubbing = false;
+    private boolean isScrubSeekPending = false;
+    private long scrubTargetMs = C.TIME_UNSET;
+    private long lastScrubSeekMs = C.TIME_UNSET;
+    private final Runnable scrubSeekTimeoutRunnable = this::onScrubSeekProcessed;
+    private final Runnable viewportConstraintRunnable = this::updateViewportConstraint;
+
     // Props from React
     private Source source = new Source();
     private boolean repeat;
@@ -270,6 +321,17 @@ public class ReactExoplayerView extends FrameLayout implements
 
     private final String instanceId = String.valueOf(UUID.randomUUID());
 
+    private final RNVCacheMetrics cacheMetrics = new RNVCacheMetrics(instanceId);
+    private final RNVRequestTimings requestTimings = new RNVRequestTimings(instanceId);
+    private final RNVPlaybackState playbackState = new RNVPlaybackState();
+    private final Timeline.Window progressWindow = new Timeline.Window();
+    private boolean isPictureInPictureActive = false;
+    private boolean isPlaybackStateRegistered = false;
+    private long lastCacheMetricsVersion = 0;
+    private long lastCacheMetricsEventMs = 0;
+    private long lastRequestTimingsVersion = 0;
+    private long lastRequestTimingsEventMs = 0;
+
     private CmcdConfiguration.Factory cmcdConfigurationFactory;
 
     public void setCmcdConfigurationFactory(CmcdConfiguration.Factory factory) {
@@ -296,22 +358,77 @@ public class ReactExoplayerView extends FrameLayout implements
                 lastDuration = duration;
                 eventEmitter.onVideoProgress.invoke(pos, bufferedDuration, player.getDuration(), getPositionInFirstPeriodMsForCurrentWindow(pos));
             }
+            updatePlaybackState();
+            updateCacheMetrics();
+            updateRequestTimings();
         }
     }
 
-    private final Handler progressHandler = new Handler(Looper.getMainLooper()) {
-        @Override
-        public void handleMessage(Message msg) {
-            if (msg.what == SHOW_PROGRESS) {
-                updateProgress();
-                msg = obtainMessage(SHOW_PROGRESS);
-                sendMessageDelayed(msg, Math.round(mProgressUpdateInterval));
-            }
+    private void updateCacheMetrics() {
+        long now = SystemClock.elapsedRealtime();
+        if (useCache
+                && cacheMetrics.getVersion() != lastCacheMetricsVersion
+                && now - lastCacheMetricsEventMs >= CACHE_METRICS_UPDATE_INTERVAL_MS) {
+            lastCacheMetricsVersion = cacheMetrics.getVersion();
+            lastCacheMetricsEventMs = now;
+            eventEmitter.onCacheMetrics.invoke(cacheMetrics.snapshot());
         }
-    };
+    }
+
+    private void updateRequestTimings() {
+        long now = SystemClock.elapsedRealtime();
+        if (requestTimings.getVersion() != lastRequestTimingsVersion
+                && now - lastRequestTimingsEventMs >= REQUEST_TIMINGS_UPDATE_INTERVAL_MS) {
+            lastRequestTimingsVersion = requestTimings.getVersion();
+            lastRequestTimingsEventMs = now;
+            eventEmitter.onRequestTimings.invoke(requestTimings.summary());
+        }
+    }
+
+    private void updatePlaybackState() {
+        if (player == null) {
+            return;
+        }
+        playbackState.update(player);
+        // the react tag is only known once the view is set up
+        if (!isPlaybackStateRegistered && getId() != NO_ID) {
+            ReactNativeVideoManager.Companion.getInstance().getPlaybackStates().put(getId(), playbackState);
+            isPlaybackStateRegistered = true;
+        }
+    }
+
+    public RNVCacheMetrics.Snapshot getCacheMetrics() {
+        return cacheMetrics.snapshot();
+    }
+
+    public RNVRequestTimings getRequestTimings() {
+        return requestTimings;
+    }
+
+    public VideoEventEmitter.Stats getEventStats() {
+        return eventEmitter.getStats();
+    }
+
+    // RNVProgressScheduler.Client implementation
+    @Override
+    public long getProgressIntervalMs() {
+        return Math.round(mProgressUpdateInterval);
+    }
+
+    @Override
+    public boolean isProgressActive() {
+        return player != null && player.isPlaying() && (isPictureInPictureActive || (getWindowVisibility() == VISIBLE && !isInBackground));
+    }
+
+    @Override
+    public void onProgressTick() {
+        updateProgress();
+    }
 
     public double getPositionInFirstPeriodMsForCurrentWindow(long currentPosition) {
-        Timeline.Window window = new Timeline.Window();
+        // reused, this is called on every progress tick
+        Timeline.Window window = progressWindow;
+        window.windowStartTimeMs = 0;
         if(!player.getCurrentTimeline().isEmpty()) {
             player.getCurrentTimeline().getWindow(player.getCurrentMediaItemIndex(), window);
         }
@@ -352,15 +469,55 @@ public class ReactExoplayerView extends FrameLayout implements
                 LayoutParams.MATCH_PARENT,
                 LayoutParams.MATCH_PARENT);
         exoPlayerView = new ExoPlayerView(getContext());
-        exoPlayerView.addOnLayoutChangeListener( (View v, int l, int t, int r, int b, int ol, int ot, int or, int ob) ->
-                PictureInPictureUtil.applySourceRectHint(themedReactContext, pictureInPictureParamsBuilder, exoPlayerView)
-        );
+        exoPlayerView.addOnLayoutChangeListener( (View v, int l, int t, int r, int b, int ol, int ot, int or, int ob) -> {
+            PictureInPictureUtil.applySourceRectHint(themedReactContext, pictureInPictureParamsBuilder, exoPlayerView);
+            // the player view is laid out again when it moves to fullscreen or picture in picture
+            if (r - l != or - ol || b - t != ob - ot) {
+                mainHandler.removeCallbacks(viewportConstraintRunnable);
+                mainHandler.postDelayed(viewportConstraintRunnable, VIEWPORT_DEBOUNCE_MS);
+            }
+        });
         exoPlayerView.setLayoutParams(layoutParams);
         addView(exoPlayerView, 0, layoutParams);
 
         exoPlayerView.setFocusable(this.focusable);
     }
 
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        onActivityChanged();
+    }
+
+    /**
+     * Called when the visibility, the background state or the play state of the player changed
+     */
+    private void onActivityChanged() {
+        updateBufferPriority();
+        // progress ticks are spaced out while inactive, they resume at once
+        if (isProgressActive()) {
+            ReactNativeVideoManager.Companion.getInstance().getProgressScheduler().wake(this);
+        }
+    }
+
+    /**
+     * Update the share of the global buffer budget this player gets: playing > paused > offscreen
+     */
+    private void updateBufferPriority() {
+        if (loadControl == null || player == null) {
+            return;
+        }
+        RNVBufferBudget.Priority priority;
+        if (getWindowVisibility() != VISIBLE || (isInBackground && !playInBackground)) {
+            priority = RNVBufferBudget.Priority.OFFSCREEN;
+        } else if (player.getPlayWhenReady()) {
+            priority = RNVBufferBudget.Priority.PLAYING;
+        } else {
+            priority = RNVBufferBudget.Priority.PAUSED;
+        }
+        loadControl.setPriority(priority);
+    }
+
     @Override
     protected void onDetachedFromWindow() {
         cleanupPlaybackService();
@@ -374,11 +531,13 @@ public class ReactExoplayerView extends FrameLayout implements
             setPlayWhenReady(!isPaused);
         }
         isInBackground = false;
+        onActivityChanged();
     }
 
     @Override
     public void onHostPause() {
         isInBackground = true;
+        onActivityChanged();
         Activity activity = themedReactContext.getCurrentActivity();
         boolean isInPictureInPicture = Util.SDK_INT >= Build.VERSION_CODES.N && activity != null && activity.isInPictureInPictureMode();
         boolean isInMultiWindowMode = Util.SDK_INT >= Build.VERSION_CODES.N && activity != null && activity.isInMultiWindowMode();
@@ -397,6 +556,10 @@ public class ReactExoplayerView extends FrameLayout implements
         stopPlayback();
         themedReactContext.removeLifecycleEventListener(this);
         releasePlayer();
+        if (isPlaybackStateRegistered) {
+            ReactNativeVideoManager.Companion.getInstance().getPlaybackStates().remove(getId(), playbackState);
+            isPlaybackStateRegistered = false;
+        }
         viewHasDropped = true;
     }
 
@@ -686,71 +849,6 @@ public class ReactExoplayerView extends FrameLayout implements
         exoPlayerView.updateSurfaceView(viewType);
     }
 
-    private class RNVLoadControl extends DefaultLoadControl {
-        private final int availableHeapInBytes;
-        private final Runtime runtime;
-        public RNVLoadControl(DefaultAllocator allocator, BufferConfig config) {
-            super(allocator,
-                    config.getMinBufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getMinBufferMs()
-                            : DefaultLoadControl.DEFAULT_MIN_BUFFER_MS,
-                    config.getMaxBufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getMaxBufferMs()
-                            : DefaultLoadControl.DEFAULT_MAX_BUFFER_MS,
-                    config.getBufferForPlaybackMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBufferForPlaybackMs()
-                            : DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS ,
-                    config.getBufferForPlaybackAfterRebufferMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBufferForPlaybackAfterRebufferMs()
-                            : DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS,
-                    -1,
-                    true,
-                    config.getBackBufferDurationMs() != BufferConfig.Companion.getBufferConfigPropUnsetInt()
-                            ? config.getBackBufferDurationMs()
-                            : DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS,
-                    DefaultLoadControl.DEFAULT_RETAIN_BACK_BUFFER_FROM_KEYFRAME);
-            runtime = Runtime.getRuntime();
-            ActivityManager activityManager = (ActivityManager) themedReactContext.getSystemService(ThemedReactContext.ACTIVITY_SERVICE);
-            double maxHeap = config.getMaxHeapAllocationPercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
-                    ? config.getMaxHeapAllocationPercent()
-                    : DEFAULT_MAX_HEAP_ALLOCATION_PERCENT;
-            availableHeapInBytes = (int) Math.floor(activityManager.getMemoryClass() * maxHeap * 1024 * 1024);
-        }
-
-        @Override
-        public boolean shouldContinueLoading(long playbackPositionUs, long bufferedDurationUs, float playbackSpeed) {
-            if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DisableBuffering) {
-                return false;
-            } else if (bufferingStrategy == BufferingStrategy.BufferingStrategyEnum.DependingOnMemory) {
-                // The goal of this algorithm is to pause video loading (increasing the buffer)
-                // when available memory on device become low.
-                int loadedBytes = getAllocator().getTotalBytesAllocated();
-                boolean isHeapReached = availableHeapInBytes > 0 && loadedBytes >= availableHeapInBytes;
-                if (isHeapReached) {
-                    return false;
-                }
-                long usedMemory = runtime.totalMemory() - runtime.freeMemory();
-                long freeMemory = runtime.maxMemory() - usedMemory;
-                double minBufferMemoryReservePercent = source.getBufferConfig().getMinBufferMemoryReservePercent() != BufferConfig.Companion.getBufferConfigPropUnsetDouble()
-                        ? source.getBufferConfig().getMinBufferMemoryReservePercent()
-                        : ReactExoplayerView.DEFAULT_MIN_BUFFER_MEMORY_RESERVE;
-                long reserveMemory = (long) minBufferMemoryReservePercent * runtime.maxMemory();
-                long bufferedMs = bufferedDurationUs / (long) 1000;
-                if (reserveMemory > freeMemory && bufferedMs > 2000) {
-                    // We don't have enough memory in reserve so we stop buffering to allow other components to use it instead
-                    return false;
-                }
-                if (runtime.freeMemory() == 0) {
-                    DebugLog.w(TAG, "Free memory reached 0, forcing garbage collection");
-                    runtime.gc();
-                    return false;
-                }
-            }
-            // "default" case or normal case for "DependingOnMemory"
-            return super.shouldContinueLoading(playbackPositionUs, bufferedDurationUs, playbackSpeed);
-        }
-    }
-
     private void initializePlayer() {
         ReactExoplayerView self = this;
         Activity activity = themedReactContext.getCurrentActivity();
@@ -768,23 +866,24 @@ public class ReactExoplayerView extends FrameLayout implements
                 if (player == null) {
                     // Initialize core configuration and listeners
                     initializePlayerCore(self);
+                } else {
+                    loadControl.setBufferConfig(runningSource.getBufferConfig());
                 }
                 if (!source.isLocalAssetFile() && !source.isAsset() && source.getBufferConfig().getCacheSize() > 0) {
-                    RNVSimpleCache.INSTANCE.setSimpleCache(
+                    useCache = ReactNativeVideoManager.Companion.getInstance().getCache().setup(
                             this.getContext(),
                             source.getBufferConfig().getCacheSize()
                     );
-                    useCache = true;
                 } else {
                     useCache = false;
                 }
+                requestTimings.setCacheEnabled(useCache);
                 if (playerNeedsSource) {
                     // Will force display of shutter view if needed
                     exoPlayerView.updateShutterViewVisibility();
                     exoPlayerView.invalidateAspectRatio();
-                    // DRM session manager creation must be done on a different thread to prevent crashes so we start a new thread
-                    ExecutorService es = Executors.newSingleThreadExecutor();
-                    es.execute(() -> {
+                    // DRM session manager creation must be done on a different thread to prevent crashes so we use a worker thread
+                    Runnable initializeTask = () -> {
                         // DRM initialization must run on a different thread
                         if (viewHasDropped && runningSource == source) {
                             return;
@@ -811,7 +910,11 @@ public class ReactExoplayerView extends FrameLayout implements
                                 eventEmitter.onVideoError.invoke(ex.toString(), ex, "1001");
                             }
                         });
-                    });
+                    };
+                    if (ReactNativeVideoManager.Companion.getInstance().getWorkerPool().tryExecute(instanceId, "initializePlayer", initializeTask) == null) {
+                        // the worker pool is full, the player is initialized from the main thread rather than never
+                        initializeTask.run();
+                    }
                 } else if (runningSource == source) {
                     initializePlayerSource(runningSource);
                 }
@@ -836,38 +939,34 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     private void initializePlayerCore(ReactExoplayerView self) {
-        ExoTrackSelection.Factory videoTrackSelectionFactory = new AdaptiveTrackSelection.Factory();
-        self.trackSelector = new DefaultTrackSelector(getContext(), videoTrackSelectionFactory);
+        RNVPlayerPool playerPool = ReactNativeVideoManager.Companion.getInstance().getPlayerPool();
+        pooledPlayer = playerPool.acquire(bandwidthMeter, source.getBufferConfig());
+        if (pooledPlayer == null) {
+            // media sources are built per source by buildMediaSource and initializeAds, the player keeps no reference to this view
+            pooledPlayer = playerPool.createPlayer(getContext(), bandwidthMeter, source.getBufferConfig());
+        }
+        self.trackSelector = pooledPlayer.getTrackSelector();
         self.trackSelector.setParameters(trackSelector.buildUponParameters()
                 .setMaxVideoBitrate(maxBitRate == 0 ? Integer.MAX_VALUE : maxBitRate));
+        viewportWidth = 0;
+        viewportHeight = 0;
+        updateViewportConstraint();
 
-        DefaultAllocator allocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
-        RNVLoadControl loadControl = new RNVLoadControl(
-                allocator,
-                source.getBufferConfig()
-        );
-        DefaultRenderersFactory renderersFactory =
-                new DefaultRenderersFactory(getContext())
-                        .setExtensionRendererMode(DefaultRenderersFactory.EXTENSION_RENDERER_MODE_OFF)
-                        .setEnableDecoderFallback(true)
-                        .forceEnableMediaCodecAsynchronousQueueing();
-
-        DefaultMediaSourceFactory mediaSourceFactory = new DefaultMediaSourceFactory(mediaDataSourceFactory);
-        if (useCache) {
-            mediaSourceFactory.setDataSourceFactory(RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true)));
-        }
-
-        mediaSourceFactory.setLocalAdInsertionComponents(unusedAdTagUri -> adsLoader, exoPlayerView);
+        loadControl = pooledPlayer.getLoadControl();
+        loadControl.setBufferingStrategy(bufferingStrategy);
+        loadControl.setBufferConfig(source.getBufferConfig());
+        loadControl.setDecisionListener(decision -> mainHandler.post(() -> {
+            if (loadControl != null) {
+                eventEmitter.onBufferDecision.invoke(decision);
+            }
+        }));
 
-        player = new ExoPlayer.Builder(getContext(), renderersFactory)
-                .setTrackSelector(self.trackSelector)
-                .setBandwidthMeter(bandwidthMeter)
-                .setLoadControl(loadControl)
-                .setMediaSourceFactory(mediaSourceFactory)
-                .build();
+        player = pooledPlayer.getPlayer();
+        onActivityChanged();
         ReactNativeVideoManager.Companion.getInstance().onInstanceCreated(instanceId, player);
         refreshDebugState();
         player.addListener(self);
+        player.addAnalyticsListener(analyticsListener);
         player.setVolume(muted ? 0.f : audioVolume * 1);
         exoPlayerView.setPlayer(player);
 
@@ -929,13 +1028,19 @@ public class ReactExoplayerView extends FrameLayout implements
             UUID uuid = Util.getDrmUuid(drmProps.getDrmType());
             if (uuid != null) {
                 try {
-                    DebugLog.w(TAG, "drm buildDrmSessionManager");
-                    drmSessionManager = buildDrmSessionManager(uuid, drmProps);
+                    DebugLog.w(TAG, "drm acquireSession");
+                    releaseDrmSession();
+                    drmSession = ReactNativeVideoManager.Companion.getInstance().getDrmManager()
+                            .acquireSession(getContext(), source, uuid, hasDrmFailed, buildHttpDataSourceFactory(false));
+                    drmSessionManager = drmSession.getSessionManager();
                 } catch (UnsupportedDrmException e) {
                     int errorStringId = Util.SDK_INT < 18 ? R.string.error_drm_not_supported
                             : (e.reason == UnsupportedDrmException.REASON_UNSUPPORTED_SCHEME
                             ? R.string.error_drm_unsupported_scheme : R.string.error_drm_unknown);
                     eventEmitter.onVideoError.invoke(getResources().getString(errorStringId), e, "3003");
+                } catch (Exception ex) {
+                    // Handle the unknow exception and emit to JS
+                    eventEmitter.onVideoError.invoke(ex.toString(), ex, "3006");
                         }
             }
         }
@@ -946,6 +1051,9 @@ public class ReactExoplayerView extends FrameLayout implements
         if (runningSource.getUri() == null) {
             return;
         }
+        abrConfig = runningSource.getAbrConfig() != null ? runningSource.getAbrConfig() : config.getDefaultAbrConfig();
+        pooledPlayer.getAbrFactory().setAbrConfig(abrConfig);
+        lastAbrBitrate = Format.NO_VALUE;
         /// init DRM
         DrmSessionManager drmSessionManager = initializePlayerDrm();
         if (drmSessionManager == null && runningSource.getDrmProps() != null && runningSource.getDrmProps().getDrmType() != null) {
@@ -1081,43 +1189,10 @@ public class ReactExoplayerView extends FrameLayout implements
         }
     }
 
-    private DrmSessionManager buildDrmSessionManager(UUID uuid, DRMProps drmProps) throws UnsupportedDrmException {
-        return buildDrmSessionManager(uuid, drmProps, 0);
-    }
-
-    private DrmSessionManager buildDrmSessionManager(UUID uuid, DRMProps drmProps, int retryCount) throws UnsupportedDrmException {
-        if (Util.SDK_INT < 18) {
-            return null;
-        }
-        try {
-            HttpMediaDrmCallback drmCallback = new HttpMediaDrmCallback(drmProps.getDrmLicenseServer(),
-                    buildHttpDataSourceFactory(false));
-
-            String[] keyRequestPropertiesArray = drmProps.getDrmLicenseHeader();
-            for (int i = 0; i < keyRequestPropertiesArray.length - 1; i += 2) {
-                drmCallback.setKeyRequestProperty(keyRequestPropertiesArray[i], keyRequestPropertiesArray[i + 1]);
-            }
-            FrameworkMediaDrm mediaDrm = FrameworkMediaDrm.newInstance(uuid);
-            if (hasDrmFailed) {
-                // When DRM fails using L1 we want to switch to L3
-                mediaDrm.setPropertyString("securityLevel", "L3");
-            }
-            return new DefaultDrmSessionManager.Builder()
-                    .setUuidAndExoMediaDrmProvider(uuid, (_uuid) -> mediaDrm)
-                    .setKeyRequestParameters(null)
-                    .setMultiSession(drmProps.getMultiDrm())
-                    .build(drmCallback);
-        } catch (UnsupportedDrmException ex) {
-            // Unsupported DRM exceptions are handled by the calling method
-            throw ex;
-        } catch (Exception ex) {
-            if (retryCount < 3) {
-                // Attempt retry 3 times in case where the OS Media DRM Framework fails for whatever reason
-                return buildDrmSessionManager(uuid, drmProps, ++retryCount);
-            }
-            // Handle the unknow exception and emit to JS
-            eventEmitter.onVideoError.invoke(ex.toString(), ex, "3006");
-            return null;
+    private void releaseDrmSession() {
+        if (drmSession != null) {
+            ReactNativeVideoManager.Companion.getInstance().getDrmManager().releaseSession(drmSession);
+            drmSession = null;
         }
     }
 
@@ -1164,6 +1239,15 @@ public class ReactExoplayerView extends FrameLayout implements
         }
 
 
+        // completed offline download of this uri, read before cache and network
+        DownloadRequest downloadRequest = ReactNativeVideoManager.Companion.getInstance().getDownloadManager().getDownloadRequest(getContext(), uri);
+        if (downloadRequest != null) {
+            streamKeys.addAll(downloadRequest.streamKeys);
+        }
+        DataSource.Factory chunkDataSourceFactory = withRequestTimings(useCache
+                ? ReactNativeVideoManager.Companion.getInstance().getCache().getCacheFactory(buildHttpDataSourceFactory(true), cacheMetrics)
+                : mediaDataSourceFactory);
+
         switch (type) {
             case CONTENT_TYPE_SS:
                 if(!BuildConfig.USE_EXOPLAYER_SMOOTH_STREAMING) {
@@ -1172,8 +1256,8 @@ public class ReactExoplayerView extends FrameLayout implements
                 }
 
                 mediaSourceFactory = new SsMediaSource.Factory(
-                        new DefaultSsChunkSource.Factory(mediaDataSourceFactory),
-                        buildDataSourceFactory(false)
+                        new DefaultSsChunkSource.Factory(withDownloads(chunkDataSourceFactory, downloadRequest)),
+                        withDownloads(withRequestTimings(buildDataSourceFactory(false)), downloadRequest)
                 );
                 break;
             case CONTENT_TYPE_DASH:
@@ -1182,10 +1266,12 @@ public class ReactExoplayerView extends FrameLayout implements
                     throw new IllegalStateException("DASH is not enabled!");
                 }
 
+                // only chunks are read from cache, manifest may be refreshed for live streams
+                // the parsed manifest is kept in memory for the manifest readers of this source (video tracks, licenses)
                 mediaSourceFactory = new DashMediaSource.Factory(
-                        new DefaultDashChunkSource.Factory(mediaDataSourceFactory),
-                        buildDataSourceFactory(false)
-                );
+                        new DefaultDashChunkSource.Factory(withDownloads(chunkDataSourceFactory, downloadRequest)),
+                        withDownloads(withRequestTimings(buildDataSourceFactory(false)), downloadRequest)
+                ).setManifestParser(ReactNativeVideoManager.Companion.getInstance().getManifestCache().newParser(uri));
                 break;
             case CONTENT_TYPE_HLS:
                 if (!BuildConfig.USE_EXOPLAYER_HLS) {
@@ -1193,34 +1279,22 @@ public class ReactExoplayerView extends FrameLayout implements
                     throw new IllegalStateException("HLS is not enabled!");
                 }
 
-                DataSource.Factory dataSourceFactory = mediaDataSourceFactory;
-
-                if (useCache) {
-                    dataSourceFactory = RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true));
-                }
-
                 mediaSourceFactory = new HlsMediaSource.Factory(
-                        dataSourceFactory
+                        withDownloads(chunkDataSourceFactory, downloadRequest)
                 ).setAllowChunklessPreparation(source.getTextTracksAllowChunklessPreparation());
                 break;
             case CONTENT_TYPE_OTHER:
-                if ("asset".equals(uri.getScheme())) {
-                    try {
-                        DataSource.Factory assetDataSourceFactory = DataSourceUtil.buildAssetDataSourceFactory(themedReactContext, uri);
-                        mediaSourceFactory = new ProgressiveMediaSource.Factory(assetDataSourceFactory);
-                    } catch (Exception e) {
-                        throw new IllegalStateException("cannot open input file:" + uri);
-                    }
-                } else if ("file".equals(uri.getScheme()) ||
-                        !useCache) {
+                if ("asset".equals(uri.getScheme())
+                        || "file".equals(uri.getScheme())
+                        || ContentResolver.SCHEME_ANDROID_RESOURCE.equals(uri.getScheme())) {
+                    // memory mapped, each loader gets its own reader
                     mediaSourceFactory = new ProgressiveMediaSource.Factory(
-                            mediaDataSourceFactory
+                            DataSourceUtil.buildLocalDataSourceFactory(themedReactContext)
                     );
                 } else {
                     mediaSourceFactory = new ProgressiveMediaSource.Factory(
-                            RNVSimpleCache.INSTANCE.getCacheFactory(buildHttpDataSourceFactory(true))
+                            withDownloads(chunkDataSourceFactory, downloadRequest)
                     );
-
                 }
                 break;
             case CONTENT_TYPE_RTSP:
@@ -1243,12 +1317,18 @@ public class ReactExoplayerView extends FrameLayout implements
         }
 
         MediaItem mediaItem = mediaItemBuilder.setStreamKeys(streamKeys).build();
-        MediaSource mediaSource = mediaSourceFactory
+        mediaSourceFactory = mediaSourceFactory
                 .setDrmSessionManagerProvider(drmProvider)
                 .setLoadErrorHandlingPolicy(
                         config.buildLoadErrorHandlingPolicy(source.getMinLoadRetryCount())
-                )
-                .createMediaSource(mediaItem);
+                );
+        // a static manifest already parsed, by a preload or a previous player, is not downloaded again
+        DashManifest cachedManifest = type == CONTENT_TYPE_DASH
+                ? ReactNativeVideoManager.Companion.getInstance().getManifestCache().getStatic(uri)
+                : null;
+        MediaSource mediaSource = cachedManifest != null
+                ? ((DashMediaSource.Factory) mediaSourceFactory).createMediaSource(cachedManifest, mediaItem)
+                : mediaSourceFactory.createMediaSource(mediaItem);
 
         if (cropStartMs >= 0 && cropEndMs >= 0) {
             return new ClippingMediaSource(mediaSource, cropStartMs * 1000, cropEndMs * 1000);
@@ -1261,6 +1341,24 @@ public class ReactExoplayerView extends FrameLayout implements
         return mediaSource;
     }
 
+    private DataSource.Factory withDownloads(DataSource.Factory factory, @Nullable DownloadRequest downloadRequest) {
+        if (downloadRequest == null) {
+            return factory;
+        }
+        return ReactNativeVideoManager.Companion.getInstance().getDownloadManager().getPlaybackDataSourceFactory(factory);
+    }
+
+    /**
+     * return a factory whose data sources report their transfers to {@link #requestTimings}
+     */
+    private DataSource.Factory withRequestTimings(DataSource.Factory factory) {
+        return () -> {
+            DataSource dataSource = factory.createDataSource();
+            dataSource.addTransferListener(requestTimings);
+            return dataSource;
+        };
+    }
+
     @Nullable
     private MediaSource buildTextSource() {
         if (source.getSideLoadedTextTracks() == null) {
@@ -1295,15 +1393,36 @@ public class ReactExoplayerView extends FrameLayout implements
             }
 
             updateResumePosition();
-            player.release();
             player.removeListener(this);
+            player.removeAnalyticsListener(analyticsListener);
+            if (eventListener != null) {
+                player.removeListener(eventListener);
+            }
+            if (debugEventLogger != null) {
+                player.removeAnalyticsListener(debugEventLogger);
+                debugEventLogger = null;
+            }
+            exoPlayerView.setPlayer(null);
+            if (playerControlView != null) {
+                playerControlView.setPlayer(null);
+            }
+            ReactNativeVideoManager.Companion.getInstance().onInstanceRemoved(instanceId, player);
+            ReactNativeVideoManager.Companion.getInstance().getWorkerPool().cancelAll(instanceId);
+            // players used with ads cannot be reused, ads loader is bound to them
+            if (adsLoader != null || !ReactNativeVideoManager.Companion.getInstance().getPlayerPool().recycle(pooledPlayer)) {
+                player.release();
+            }
             PictureInPictureUtil.applyAutoEnterEnabled(themedReactContext, pictureInPictureParamsBuilder, false);
             if (pipListenerUnsubscribe != null) {
                 new Handler().post(pipListenerUnsubscribe);
             }
+            releaseDrmSession();
+            resetScrubbing();
+            playbackState.clear();
             trackSelector = null;
-
-            ReactNativeVideoManager.Companion.getInstance().onInstanceRemoved(instanceId, player);
+            loadControl.setDecisionListener(null);
+            loadControl = null;
+            pooledPlayer = null;
             player = null;
         }
 
@@ -1311,7 +1430,7 @@ public class ReactExoplayerView extends FrameLayout implements
             adsLoader.release();
             adsLoader = null;
         }
-        progressHandler.removeMessages(SHOW_PROGRESS);
+        clearProgressMessageHandler();
         audioBecomingNoisyReceiver.removeListener();
         pictureInPictureReceiver.removeListener();
         bandwidthMeter.removeEventListener(this);
@@ -1320,6 +1439,7 @@ public class ReactExoplayerView extends FrameLayout implements
             mainHandler.removeCallbacks(mainRunnable);
             mainRunnable = null;
         }
+        mainHandler.removeCallbacks(viewportConstraintRunnable);
     }
 
     private static class OnAudioFocusChangedListener implements AudioManager.OnAudioFocusChangeListener {
@@ -1448,7 +1568,7 @@ public class ReactExoplayerView extends FrameLayout implements
      */
     private DataSource.Factory buildDataSourceFactory(boolean useBandwidthMeter) {
         return DataSourceUtil.getDefaultDataSourceFactory(this.themedReactContext,
-                useBandwidthMeter ? bandwidthMeter : null, source.getHeaders());
+                useBandwidthMeter ? bandwidthMeter : null, source.getHeaders(), source.getCdnBaseUrls());
     }
 
     /**
@@ -1459,7 +1579,8 @@ public class ReactExoplayerView extends FrameLayout implements
      * @return A new HttpDataSource factory.
      */
     private HttpDataSource.Factory buildHttpDataSourceFactory(boolean useBandwidthMeter) {
-        return DataSourceUtil.getDefaultHttpDataSourceFactory(this.themedReactContext, useBandwidthMeter ? bandwidthMeter : null, source.getHeaders());
+        return DataSourceUtil.getDefaultHttpDataSourceFactory(this.themedReactContext, useBandwidthMeter ? bandwidthMeter : null, source.getHeaders(),
+                source.getCdnBaseUrls());
     }
 
     // AudioBecomingNoisyListener implementation
@@ -1476,6 +1597,7 @@ public class ReactExoplayerView extends FrameLayout implements
 
     @Override
     public void onEvents(@NonNull Player player, Player.Events events) {
+        updatePlaybackState();
         if (events.contains(Player.EVENT_PLAYBACK_STATE_CHANGED) || events.contains(Player.EVENT_PLAY_WHEN_READY_CHANGED)) {
             int playbackState = player.getPlaybackState();
             boolean playWhenReady = player.getPlayWhenReady();
@@ -1500,6 +1622,7 @@ public class ReactExoplayerView extends FrameLayout implements
                     text += "ready";
                     eventEmitter.onReadyForDisplay.invoke();
                     onBuffering(false);
+                    onScrubSeekProcessed();
                     clearProgressMessageHandler(); // ensure there is no other message
                     startProgressHandler();
                     videoLoaded();
@@ -1529,16 +1652,37 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     private void startProgressHandler() {
-        progressHandler.sendEmptyMessage(SHOW_PROGRESS);
+        ReactNativeVideoManager.Companion.getInstance().getProgressScheduler().add(this);
     }
 
     /**
-     *  The progress message handler will duplicate recursions of the onProgressMessage handler
-     *  on change of player state from any state to STATE_READY with playWhenReady is true (when
-     *  the video is not paused). This clears all existing messages.
+     *  Stop the progress ticks, they are restarted when the player is ready again
      */
     private void clearProgressMessageHandler() {
-        progressHandler.removeMessages(SHOW_PROGRESS);
+        ReactNativeVideoManager.Companion.getInstance().getProgressScheduler().remove(this);
+    }
+
+    /**
+     * Report the video rendition switches, with the decision of the track selection which made them
+     */
+    private void onAbrSwitch(MediaLoadData mediaLoadData) {
+        Format format = mediaLoadData.trackFormat;
+        if (player == null || format == null || format.height == Format.NO_VALUE
+                || (mediaLoadData.trackType != C.TRACK_TYPE_VIDEO && mediaLoadData.trackType != C.TRACK_TYPE_DEFAULT)
+                || format.bitrate == lastAbrBitrate) {
+            return;
+        }
+        int previousBitrate = lastAbrBitrate;
+        lastAbrBitrate = format.bitrate;
+        eventEmitter.onAbrSwitch.invoke(new RNVAbrTrackSelection.Switch(
+                abrConfig.getMode(),
+                RNVAbrTrackSelection.getDecisionReason(mediaLoadData.trackSelectionReason, mediaLoadData.trackSelectionData),
+                format.bitrate,
+                previousBitrate,
+                format.width,
+                format.height,
+                bandwidthMeter.getBitrateEstimate(),
+                player.getTotalBufferedDuration()));
     }
 
     private void videoLoaded() {
@@ -1566,17 +1710,41 @@ public class ReactExoplayerView extends FrameLayout implements
             ArrayList<Track> textTracks  = getTextTrackInfo();
 
             if (source.getContentStartTime() != -1) {
-                ExecutorService es = Executors.newSingleThreadExecutor();
-                es.execute(() -> {
-                    // To prevent ANRs caused by getVideoTrackInfo we run this on a different thread and notify the player only when we're done
-                    ArrayList<VideoTrack> videoTracks = getVideoTrackInfoFromManifest();
-                    if (videoTracks != null) {
-                        isUsingContentResolution = true;
+                // To prevent ANRs caused by getVideoTrackInfo we run this on a worker thread and notify the player only when we're done
+                AtomicBoolean loadEmitted = new AtomicBoolean(false);
+                // a read blocked on the socket ignores interrupts, the manifest requests are cancelled on timeout through their calls
+                DataSourceUtil.CancellableCallFactory manifestCalls = new DataSourceUtil.CancellableCallFactory(DataSourceUtil.getOkHttpClient(themedReactContext));
+                DataSource.Factory manifestDataSourceFactory = DataSourceUtil.buildCancellableHttpDataSourceFactory(themedReactContext,
+                        source.getHeaders(), manifestCalls);
+                Future<?> task = ReactNativeVideoManager.Companion.getInstance().getWorkerPool().tryExecute(instanceId, "videoTracksFromManifest", () -> {
+                    ArrayList<VideoTrack> videoTracks = getVideoTrackInfoFromManifest(manifestDataSourceFactory);
+                    if (!Thread.currentThread().isInterrupted() && loadEmitted.compareAndSet(false, true)) {
+                        mainHandler.post(() -> {
+                            if (videoTracks != null) {
+                                isUsingContentResolution = true;
+                            }
+                            eventEmitter.onVideoLoad.invoke(duration, currentPosition, width, height,
+                                    audioTracks, textTracks, videoTracks, trackId);
+                        });
                     }
-                    eventEmitter.onVideoLoad.invoke(duration, currentPosition, width, height,
-                            audioTracks, textTracks, videoTracks, trackId );
-
                 });
+                if (task == null) {
+                    // the worker pool is full, the load event is sent without video tracks
+                    eventEmitter.onVideoLoad.invoke(duration, currentPosition, width, height,
+                            audioTracks, textTracks, null, trackId);
+                    return;
+                }
+                // don't wait for a slow manifest request, the load event is sent without video tracks
+                mainHandler.postDelayed(() -> {
+                    // also unblocks a task cancelled by the release of the player
+                    manifestCalls.cancel();
+                    if (!task.isCancelled() && loadEmitted.compareAndSet(false, true)) {
+                        task.cancel(true);
+                        DebugLog.w(TAG, "getVideoTrackInfoFromManifest timed out");
+                        eventEmitter.onVideoLoad.invoke(duration, currentPosition, width, height,
+                                audioTracks, textTracks, null, trackId);
+                    }
+                }, MANIFEST_VIDEO_TRACKS_TIMEOUT_MS);
                 return;
             }
 
@@ -1659,71 +1827,54 @@ public class ReactExoplayerView extends FrameLayout implements
         return videoTracks;
     }
 
-    private ArrayList<VideoTrack> getVideoTrackInfoFromManifest() {
-        return this.getVideoTrackInfoFromManifest(0);
+    @WorkerThread
+    private ArrayList<VideoTrack> getVideoTrackInfoFromManifest(DataSource.Factory dataSourceFactory) {
+        ArrayList<VideoTrack> videoTracks = loadVideoTrackInfoFromManifest(dataSourceFactory);
+        if (videoTracks == null && !Thread.currentThread().isInterrupted()) {
+            // We retry once in case where manifest request fails from poor network conditions
+            videoTracks = loadVideoTrackInfoFromManifest(dataSourceFactory);
+        }
+        return videoTracks;
     }
 
-    // We need retry count to in case where minefest request fails from poor network conditions
     @WorkerThread
-    private ArrayList<VideoTrack> getVideoTrackInfoFromManifest(int retryCount) {
-        ExecutorService es = Executors.newSingleThreadExecutor();
-        final DataSource dataSource = this.mediaDataSourceFactory.createDataSource();
-        final Uri sourceUri = source.getUri();
-        final long startTime = source.getContentStartTime() * 1000 - 100; // s -> ms with 100ms offset
-
-        Future<ArrayList<VideoTrack>> result = es.submit(new Callable() {
-            final DataSource ds = dataSource;
-            final Uri uri = sourceUri;
-            final long startTimeUs = startTime * 1000; // ms -> us
-
-            public ArrayList<VideoTrack> call() {
-                ArrayList<VideoTrack> videoTracks = new ArrayList<>();
-                try  {
-                    DashManifest manifest = DashUtil.loadManifest(this.ds, this.uri);
-                    int periodCount = manifest.getPeriodCount();
-                    for (int i = 0; i < periodCount; i++) {
-                        Period period = manifest.getPeriod(i);
-                        for (int adaptationIndex = 0; adaptationIndex < period.adaptationSets.size(); adaptationIndex++) {
-                            AdaptationSet adaptation = period.adaptationSets.get(adaptationIndex);
-                            if (adaptation.type != C.TRACK_TYPE_VIDEO) {
-                                continue;
-                            }
-                            boolean hasFoundContentPeriod = false;
-                            for (int representationIndex = 0; representationIndex < adaptation.representations.size(); representationIndex++) {
-                                Representation representation = adaptation.representations.get(representationIndex);
-                                Format format = representation.format;
-                                if (isFormatSupported(format)) {
-                                    if (representation.presentationTimeOffsetUs <= startTimeUs) {
-                                        break;
-                                    }
-                                    hasFoundContentPeriod = true;
-                                    VideoTrack videoTrack = exoplayerVideoTrackToGenericVideoTrack(format, representationIndex);
-                                    videoTracks.add(videoTrack);
-                                }
-                            }
-                            if (hasFoundContentPeriod) {
-                                return videoTracks;
+    private ArrayList<VideoTrack> loadVideoTrackInfoFromManifest(DataSource.Factory dataSourceFactory) {
+        final DataSource dataSource = dataSourceFactory.createDataSource();
+        final Uri uri = source.getUri();
+        final long startTimeUs = (source.getContentStartTime() * 1000L - 100) * 1000; // s -> us with 100ms offset
+
+        ArrayList<VideoTrack> videoTracks = new ArrayList<>();
+        try  {
+            DashManifest manifest = ReactNativeVideoManager.Companion.getInstance().getManifestCache().load(dataSource, uri);
+            int periodCount = manifest.getPeriodCount();
+            for (int i = 0; i < periodCount; i++) {
+                Period period = manifest.getPeriod(i);
+                for (int adaptationIndex = 0; adaptationIndex < period.adaptationSets.size(); adaptationIndex++) {
+                    AdaptationSet adaptation = period.adaptationSets.get(adaptationIndex);
+                    if (adaptation.type != C.TRACK_TYPE_VIDEO) {
+                        continue;
+                    }
+                    boolean hasFoundContentPeriod = false;
+                    for (int representationIndex = 0; representationIndex < adaptation.representations.size(); representationIndex++) {
+                        Representation representation = adaptation.representations.get(representationIndex);
+                        Format format = representation.format;
+                        if (isFormatSupported(format)) {
+                            if (representation.presentationTimeOffsetUs <= startTimeUs) {
+                                break;
                             }
+                            hasFoundContentPeriod = true;
+                            VideoTrack videoTrack = exoplayerVideoTrackToGenericVideoTrack(format, representationIndex);
+                            videoTracks.add(videoTrack);
                         }
                     }
-                } catch (Exception e) {
-                    DebugLog.w(TAG, "error in getVideoTrackInfoFromManifest:" + e.getMessage());
+                    if (hasFoundContentPeriod) {
+                        return videoTracks;
+                    }
                 }
-                return null;
-            }
-        });
-
-        try {
-            ArrayList<VideoTrack> results = result.get(3000, TimeUnit.MILLISECONDS);
-            if (results == null && retryCount < 1) {
-                return this.getVideoTrackInfoFromManifest(++retryCount);
             }
-            es.shutdown();
-            return results;
         } catch (Exception e) {
-            DebugLog.w(TAG, "error in getVideoTrackInfoFromManifest handling request:" + e.getMessage());
+            DebugLog.w(TAG, "error in getVideoTrackInfoFromManifest:" + e.getMessage());
         }
-
         return null;
     }
 
@@ -1805,6 +1956,12 @@ public class ReactExoplayerView extends FrameLayout implements
         }
     }
 
+    @Override
+    public void onRenderedFirstFrame() {
+        // the frame of the last scrub seek is displayed
+        onScrubSeekProcessed();
+    }
+
     @Override
     public void onTimelineChanged(@NonNull Timeline timeline, int reason) {
         // Do nothing.
@@ -1829,6 +1986,7 @@ public class ReactExoplayerView extends FrameLayout implements
 
     @Override
     public void onIsPlayingChanged(boolean isPlaying) {
+        onActivityChanged();
         if (isPlaying && isSeeking) {
             eventEmitter.onVideoSeek.invoke(player.getCurrentPosition(), seekPosition);
         }
@@ -1850,6 +2008,10 @@ public class ReactExoplayerView extends FrameLayout implements
             case PlaybackException.ERROR_CODE_DRM_PROVISIONING_FAILED:
             case PlaybackException.ERROR_CODE_DRM_SYSTEM_ERROR:
             case PlaybackException.ERROR_CODE_DRM_UNSPECIFIED:
+                if (drmSession != null && drmSession.getLicenseKey() != null) {
+                    // the restored offline license may have been revoked, next attempt requests a new one
+                    ReactNativeVideoManager.Companion.getInstance().getDrmManager().removeLicense(getContext(), drmSession.getLicenseKey());
+                }
                 if (!hasDrmFailed) {
                     // When DRM fails to reach the app level certificate server it will fail with a source error so we assume that it is DRM related and try one more time
                     hasDrmFailed = true;
@@ -1935,7 +2097,7 @@ public class ReactExoplayerView extends FrameLayout implements
             this.source = source;
             this.mediaDataSourceFactory =
                     DataSourceUtil.getDefaultDataSourceFactory(this.themedReactContext, bandwidthMeter,
-                            source.getHeaders());
+                            source.getHeaders(), source.getCdnBaseUrls());
 
             if (source.getCmcdProps() != null) {
                 CMCDConfig cmcdConfig = new CMCDConfig(source.getCmcdProps());
@@ -1946,6 +2108,10 @@ public class ReactExoplayerView extends FrameLayout implements
             }
 
             if (!isSourceEqual) {
+                // open the connections of the source while the player initializes
+                ReactNativeVideoManager.Companion.getInstance().getConnectionPrewarmer().prewarm(themedReactContext, source);
+                // the player now loads this source, stop any preload competing for bandwidth
+                ReactNativeVideoManager.Companion.getInstance().getPreloadManager().cancel(source.getUri().toString());
                 playerNeedsSource = true;
                 initializePlayer();
             }
@@ -1974,6 +2140,10 @@ public class ReactExoplayerView extends FrameLayout implements
         mReportBandwidth = reportBandwidth;
     }
 
+    public void setMaxEventRate(float maxEventRate) {
+        eventEmitter.setMaxEventRate(maxEventRate);
+    }
+
     public void setResizeModeModifier(@ResizeMode.Mode int resizeMode) {
         if (exoPlayerView != null) {
             exoPlayerView.setResizeMode(resizeMode);
@@ -2178,22 +2348,7 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     private boolean isFormatSupported(Format format) {
-        int width = format.width == Format.NO_VALUE ? 0 : format.width;
-        int height = format.height == Format.NO_VALUE ? 0 : format.height;
-        float frameRate = format.frameRate == Format.NO_VALUE ? 0 : format.frameRate;
-        String mimeType = format.sampleMimeType;
-        if (mimeType == null) {
-            return true;
-        }
-        boolean isSupported;
-        try {
-            MediaCodecInfo codecInfo = MediaCodecUtil.getDecoderInfo(mimeType, false, false);
-            isSupported = codecInfo.isVideoSizeAndRateSupportedV21(width, height, frameRate);
-        } catch (Exception e) {
-            // Failed to get decoder info - assume it is supported
-            isSupported = true;
-        }
-        return isSupported;
+        return ReactNativeVideoManager.Companion.getInstance().getDecoderCapabilities().isFormatSupported(format);
     }
 
     private int getGroupIndexForDefaultLocale(TrackGroupArray groups) {
@@ -2241,6 +2396,7 @@ public class ReactExoplayerView extends FrameLayout implements
             } else {
                 pausePlayback();
             }
+            onActivityChanged();
         }
     }
 
@@ -2251,6 +2407,8 @@ public class ReactExoplayerView extends FrameLayout implements
 
     protected void setIsInPictureInPicture(boolean isInPictureInPicture) {
         eventEmitter.onPictureInPictureStatusChanged.invoke(isInPictureInPicture);
+        isPictureInPictureActive = isInPictureInPicture;
+        onActivityChanged();
 
         if (fullScreenPlayerView != null && fullScreenPlayerView.isShowing()) {
             if (isInPictureInPicture) fullScreenPlayerView.hideWithoutPlayer();
@@ -2362,11 +2520,83 @@ public class ReactExoplayerView extends FrameLayout implements
     }
 
     public void seekTo(long positionMs) {
-        if (player != null) {
-            player.seekTo(positionMs);
+        seekTo(positionMs, 0);
+    }
+
+    /**
+     * Seek to positionMs, or to the closest keyframe within toleranceMs of it, which is faster as
+     * decoding doesn't have to go from the keyframe to the exact frame. 0 seeks exactly.
+     */
+    public void seekTo(long positionMs, long toleranceMs) {
+        if (player == null) {
+            return;
+        }
+        if (isScrubbing) {
+            scrubTo(positionMs);
+            return;
+        }
+        player.setSeekParameters(getSeekParameters(toleranceMs));
+        player.seekTo(positionMs);
+    }
+
+    /**
+     * Start or end scrubbing, see isScrubbing
+     */
+    public void setScrubbing(boolean scrubbing) {
+        if (isScrubbing == scrubbing) {
+            return;
+        }
+        long lastTargetMs = scrubTargetMs != C.TIME_UNSET ? scrubTargetMs : lastScrubSeekMs;
+        resetScrubbing();
+        isScrubbing = scrubbing;
+        if (!scrubbing && lastTargetMs != C.TIME_UNSET) {
+            seekTo(lastTargetMs, 0);
         }
     }
 
+    private static SeekParameters getSeekParameters(long toleranceMs) {
+        if (toleranceMs <= 0) {
+            return SeekParameters.EXACT;
+        }
+        long toleranceUs = toleranceMs * 1000;
+        return new SeekParameters(toleranceUs, toleranceUs);
+    }
+
+    private void scrubTo(long positionMs) {
+        scrubTargetMs = positionMs;
+        if (!isScrubSeekPending) {
+            startScrubSeek();
+        }
+    }
+
+    private void startScrubSeek() {
+        isScrubSeekPending = true;
+        lastScrubSeekMs = scrubTargetMs;
+        scrubTargetMs = C.TIME_UNSET;
+        player.setSeekParameters(SeekParameters.CLOSEST_SYNC);
+        player.seekTo(lastScrubSeekMs);
+        mainHandler.postDelayed(scrubSeekTimeoutRunnable, SCRUB_SEEK_TIMEOUT_MS);
+    }
+
+    private void onScrubSeekProcessed() {
+        if (!isScrubSeekPending) {
+            return;
+        }
+        mainHandler.removeCallbacks(scrubSeekTimeoutRunnable);
+        isScrubSeekPending = false;
+        if (isScrubbing && scrubTargetMs != C.TIME_UNSET && player != null) {
+            startScrubSeek();
+        }
+    }
+
+    private void resetScrubbing() {
+        mainHandler.removeCallbacks(scrubSeekTimeoutRunnable);
+        isScrubbing = false;
+        isScrubSeekPending = false;
+        scrubTargetMs = C.TIME_UNSET;
+        lastScrubSeekMs = C.TIME_UNSET;
+    }
+
     public void setRateModifier(float newRate) {
         if (newRate <= 0) {
             DebugLog.w(TAG, "cannot set rate <= 0");
@@ -2390,6 +2620,86 @@ public class ReactExoplayerView extends FrameLayout implements
         }
     }
 
+    public void setViewportOversampling(float viewportOversampling) {
+        this.viewportOversampling = viewportOversampling;
+        viewportWidth = 0;
+        viewportHeight = 0;
+        updateViewportConstraint();
+    }
+
+    /**
+     * Limit the renditions to the smallest one covering the player view, scaled by viewportOversampling.
+     * The parameters are only set when the highest allowed rendition changes, each change makes the player select tracks again.
+     */
+    private void updateViewportConstraint() {
+        mainHandler.removeCallbacks(viewportConstraintRunnable);
+        if (trackSelector == null) {
+            return;
+        }
+        int width = 0;
+        int height = 0;
+        if (viewportOversampling > 0 && exoPlayerView.getWidth() > 0 && exoPlayerView.getHeight() > 0) {
+            width = Math.round(exoPlayerView.getWidth() * viewportOversampling);
+            height = Math.round(exoPlayerView.getHeight() * viewportOversampling);
+        }
+        if (width == viewportWidth && height == viewportHeight) {
+            return;
+        }
+        if (viewportWidth != 0 && width != 0) {
+            int maxPixelCount = getMaxViewportPixelCount(width, height);
+            if (maxPixelCount != -1 && maxPixelCount == getMaxViewportPixelCount(viewportWidth, viewportHeight)) {
+                // same renditions allowed, the applied viewport is kept
+                return;
+            }
+        }
+        viewportWidth = width;
+        viewportHeight = height;
+        if (width == 0) {
+            trackSelector.setParameters(trackSelector.buildUponParameters().clearViewportSizeConstraints());
+        } else {
+            trackSelector.setParameters(trackSelector.buildUponParameters().setViewportSize(width, height, false));
+        }
+    }
+
+    /**
+     * return the pixel count of the highest video rendition of the current tracks allowed in a viewport of `width` x `height`,
+     * as DefaultTrackSelector filters them: the smallest rendition covering the viewport, at the aspect ratio of the video.
+     * return -1 when the tracks are unknown, so that the constraint is always applied
+     */
+    private int getMaxViewportPixelCount(int width, int height) {
+        if (player == null) {
+            return -1;
+        }
+        int maxPixelCount = Integer.MAX_VALUE;
+        boolean hasVideo = false;
+        for (Tracks.Group group : player.getCurrentTracks().getGroups()) {
+            if (group.getType() != C.TRACK_TYPE_VIDEO) {
+                continue;
+            }
+            for (int i = 0; i < group.length; i++) {
+                Format format = group.getTrackFormat(i);
+                if (format.width <= 0 || format.height <= 0) {
+                    continue;
+                }
+                hasVideo = true;
+                // size of the video scaled to fit the viewport
+                int fitWidth = width;
+                int fitHeight = height;
+                if (format.width * height >= format.height * width) {
+                    fitHeight = Util.ceilDivide(width * format.height, format.width);
+                } else {
+                    fitWidth = Util.ceilDivide(height * format.width, format.height);
+                }
+                int pixelCount = format.width * format.height;
+                // same tolerance as DefaultTrackSelector
+                if (format.width >= (int) (fitWidth * 0.98f) && format.height >= (int) (fitHeight * 0.98f) && pixelCount < maxPixelCount) {
+                    maxPixelCount = pixelCount;
+                }
+            }
+        }
+        return hasVideo ? maxPixelCount : -1;
+    }
+
     public void setPlayInBackground(boolean playInBackground) {
         this.playInBackground = playInBackground;
     }
@@ -2415,6 +2725,9 @@ public class ReactExoplayerView extends FrameLayout implements
 
     public void setBufferingStrategy(BufferingStrategy.BufferingStrategyEnum _bufferingStrategy) {
         bufferingStrategy = _bufferingStrategy;
+        if (loadControl != null) {
+            loadControl.setBufferingStrategy(bufferingStrategy);
+        }
     }
 
     public boolean getPreventsDisplaySleepDuringVideoPlayback() {
@@ -40,8 +40,10 @@ class ReactExoplayerViewManager(private val config: ReactExoplayerConfig) : View
             "preventsDisplaySleepDuringVideoPlayback"
         private const val PROP_PROGRESS_UPDATE_INTERVAL = "progressUpdateInterval"
         private const val PROP_REPORT_BANDWIDTH = "reportBandwidth"
+        private const val PROP_MAX_EVENT_RATE = "maxEventRate"
         private const val PROP_RATE = "rate"
         private const val PROP_MAXIMUM_BIT_RATE = "maxBitRate"
+        private const val PROP_VIEWPORT_OVERSAMPLING = "viewportOversampling"
         private const val PROP_PLAY_IN_BACKGROUND = "playInBackground"
         private const val PROP_DISABLE_FOCUS = "disableFocus"
         private const val PROP_BUFFERING_STRATEGY = "bufferingStrategy"
@@ -181,6 +183,11 @@ class ReactExoplayerViewManager(private val config: ReactExoplayerConfig) : View
         videoView.setReportBandwidth(reportBandwidth)
     }
 
+    @ReactProp(name = PROP_MAX_EVENT_RATE, defaultFloat = 0f)
+    fun setMaxEventRate(videoView: ReactExoplayerView, maxEventRate: Float) {
+        videoView.setMaxEventRate(maxEventRate)
+    }
+
     @ReactProp(name = PROP_RATE)
     fun setRate(videoView: ReactExoplayerView, rate: Float) {
         videoView.setRateModifier(rate)
@@ -191,6 +198,11 @@ class ReactExoplayerViewManager(private val config: ReactExoplayerConfig) : View
         videoView.setMaxBitRateModifier(maxBitRate.toInt())
     }
 
+    @ReactProp(name = PROP_VIEWPORT_OVERSAMPLING, defaultFloat = 0f)
+    fun setViewportOversampling(videoView: ReactExoplayerView, viewportOversampling: Float) {
+        videoView.setViewportOversampling(viewportOversampling)
+    }
+
     @ReactProp(name = PROP_PLAY_IN_BACKGROUND, defaultBoolean = false)
     fun setPlayInBackground(videoView: ReactExoplayerView, playInBackground: Boolean) {
         videoView.setPlayInBackground(playInBackground)
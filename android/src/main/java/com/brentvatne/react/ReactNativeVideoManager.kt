@@ -1,10 +1,27 @@
 package com.brentvatne.react
 
 import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.exoplayer.RNVBufferBudget
+import com.brentvatne.exoplayer.RNVCache
+import com.brentvatne.exoplayer.RNVConnectionPrewarmer
+import com.brentvatne.exoplayer.RNVConnectivity
+import com.brentvatne.exoplayer.RNVDecoderCapabilities
+import com.brentvatne.exoplayer.RNVDownloadManager
+import com.brentvatne.exoplayer.RNVDrmManager
+import com.brentvatne.exoplayer.RNVHostHealth
+import com.brentvatne.exoplayer.RNVManifestCache
+import com.brentvatne.exoplayer.RNVMemoryMonitor
+import com.brentvatne.exoplayer.RNVPlaybackCapabilities
+import com.brentvatne.exoplayer.RNVPlaybackState
+import com.brentvatne.exoplayer.RNVPlayerPool
+import com.brentvatne.exoplayer.RNVPreloadManager
+import com.brentvatne.exoplayer.RNVProgressScheduler
+import com.brentvatne.exoplayer.RNVWorkerPool
+import java.util.concurrent.ConcurrentHashMap
 
 /**
  * ReactNativeVideoManager is a singleton class which allows to manipulate / the global state of the app
- * It handles the list of <Video view instanced and registration of plugins
+ * It handles the list of <Video view instanced, registration of plugins, the worker threads, the shared player pool, buffer budget, memory monitor, media cache, manifest cache, source preloading, DRM sessions and offline downloads, the playback states read synchronously from JS, progress ticks, decoder and playback capabilities, connection warmups, host health and network availability
  */
 class ReactNativeVideoManager : RNVPlugin {
     companion object {
@@ -25,6 +42,86 @@ class ReactNativeVideoManager : RNVPlugin {
     private var instanceList: ArrayList<Any> = ArrayList()
     private var pluginList: ArrayList<RNVPlugin> = ArrayList()
 
+    /**
+     * Worker threads running player background work
+     */
+    val workerPool = RNVWorkerPool()
+
+    /**
+     * Pool of idle players shared by all <Video views
+     */
+    val playerPool = RNVPlayerPool()
+
+    /**
+     * Buffer memory shared by all players according to their priority
+     */
+    val bufferBudget = RNVBufferBudget()
+
+    /**
+     * System memory pressure
+     */
+    val memoryMonitor = RNVMemoryMonitor(bufferBudget)
+
+    /**
+     * Media cache shared by all players
+     */
+    val cache = RNVCache()
+
+    /**
+     * Parsed DASH manifests shared by players and manifest readers
+     */
+    val manifestCache = RNVManifestCache()
+
+    /**
+     * Preloads of sources which are not displayed yet
+     */
+    val preloadManager = RNVPreloadManager(cache, manifestCache, workerPool)
+
+    /**
+     * DRM sessions and offline licenses
+     */
+    val drmManager = RNVDrmManager(cache, manifestCache, workerPool)
+
+    /**
+     * Offline downloads
+     */
+    val downloadManager = RNVDownloadManager(cache, workerPool)
+
+    /**
+     * Playback state of each <Video view, by react tag
+     */
+    val playbackStates = ConcurrentHashMap<Int, RNVPlaybackState>()
+
+    /**
+     * Progress ticks of all <Video views
+     */
+    val progressScheduler = RNVProgressScheduler()
+
+    /**
+     * Video decoder capabilities shared by players and the decoder info module
+     */
+    val decoderCapabilities = RNVDecoderCapabilities(workerPool)
+
+    /**
+     * Widevine level, HDR types and decoders of the device, probed once
+     */
+    val playbackCapabilities = RNVPlaybackCapabilities()
+
+    /**
+     * Connections opened ahead of the first requests of sources
+     */
+    val connectionPrewarmer = RNVConnectionPrewarmer()
+
+    /**
+     * Throughput, time to first byte and errors of the hosts serving media, selecting CDNs
+     */
+    val hostHealth = RNVHostHealth()
+
+    /**
+     * Network availability, resuming the loads held while offline
+     */
+    val connectivity = RNVConnectivity()
+
     /**
      * register a new ReactExoplayerViewManager in the managed list
      */
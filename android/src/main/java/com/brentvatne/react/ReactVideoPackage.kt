@@ -10,18 +10,21 @@ import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.uimanager.ViewManager
 
 class ReactVideoPackage(private val config: ReactExoplayerConfig? = null) : ReactPackage {
+    private var defaultConfig: ReactExoplayerConfig? = null
+
+    // modules and views shall share the same config (bandwidth meter)
+    private fun getEffectiveConfig(reactContext: ReactApplicationContext): ReactExoplayerConfig =
+        config ?: defaultConfig ?: DefaultReactExoplayerConfig(reactContext).also { defaultConfig = it }
 
     override fun createNativeModules(reactContext: ReactApplicationContext): List<NativeModule> =
         listOf(
             VideoDecoderInfoModule(reactContext),
-            VideoManagerModule(reactContext)
+            VideoManagerModule(reactContext, getEffectiveConfig(reactContext))
         )
 
     // Deprecated RN 0.47
     fun createJSModules(): List<Class<out JavaScriptModule>> = emptyList()
 
-    override fun createViewManagers(reactContext: ReactApplicationContext): List<ViewManager<*, *>> {
-        val effectiveConfig = config ?: DefaultReactExoplayerConfig(reactContext)
-        return listOf(ReactExoplayerViewManager(effectiveConfig))
-    }
+    override fun createViewManagers(reactContext: ReactApplicationContext): List<ViewManager<*, *>> =
+        listOf(ReactExoplayerViewManager(getEffectiveConfig(reactContext)))
 }
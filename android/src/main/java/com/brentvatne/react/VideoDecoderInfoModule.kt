@@ -1,72 +1,98 @@
 package com.brentvatne.react
 
-import android.media.MediaCodecList
-import android.media.MediaDrm
-import android.media.MediaFormat
-import android.media.UnsupportedSchemeException
-import android.os.Build
+import com.brentvatne.common.toolbox.ReactBridgeUtils
+import com.brentvatne.exoplayer.RNVDecoderCapabilities
+import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactContextBaseJavaModule
 import com.facebook.react.bridge.ReactMethod
-import java.util.UUID
+import com.facebook.react.bridge.ReadableArray
 
 class VideoDecoderInfoModule(reactContext: ReactApplicationContext?) : ReactContextBaseJavaModule(reactContext) {
     override fun getName(): String = REACT_CLASS
 
+    override fun initialize() {
+        super.initialize()
+        ReactNativeVideoManager.getInstance().decoderCapabilities.warmUp()
+    }
+
     @ReactMethod
     fun getWidevineLevel(p: Promise) {
-        var widevineLevel = 0
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            p.resolve(widevineLevel)
-            return
+        val playbackCapabilities = ReactNativeVideoManager.getInstance().playbackCapabilities
+        execute("getWidevineLevel") {
+            p.resolve(playbackCapabilities.getWidevineLevel())
         }
-        try {
-            val mediaDrm = MediaDrm(WIDEVINE_UUID)
-            val securityProperty = mediaDrm.getPropertyString(SECURITY_LEVEL_PROPERTY)
-            widevineLevel = when (securityProperty) {
-                "L1" -> 1
-                "L2" -> 2
-                "L3" -> 3
-                else -> 0
+    }
+
+    @ReactMethod
+    fun getPlaybackCapabilities(p: Promise) {
+        val playbackCapabilities = ReactNativeVideoManager.getInstance().playbackCapabilities
+        execute("getPlaybackCapabilities") {
+            try {
+                p.resolve(playbackCapabilities.get(reactApplicationContext).toWritableMap())
+            } catch (e: Exception) {
+                p.reject("PLAYBACK_CAPABILITIES_FAILED", e)
             }
-        } catch (e: UnsupportedSchemeException) {
-            e.printStackTrace()
         }
-        p.resolve(widevineLevel)
     }
 
     @ReactMethod
     fun isCodecSupported(mimeType: String?, width: Double, height: Double, p: Promise?) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
-            p?.resolve("unsupported")
+        if (mimeType == null) {
+            p?.resolve(RNVDecoderCapabilities.Support.UNSUPPORTED.value)
             return
         }
-        val mRegularCodecs = MediaCodecList(MediaCodecList.REGULAR_CODECS)
-        val format = MediaFormat.createVideoFormat(mimeType!!, width.toInt(), height.toInt())
-        val codecName = mRegularCodecs.findDecoderForFormat(format)
-        if (codecName == null) {
-            p?.resolve("unsupported")
-            return
+        val decoderCapabilities = ReactNativeVideoManager.getInstance().decoderCapabilities
+        val query = RNVDecoderCapabilities.Query(mimeType, width.toInt(), height.toInt())
+        execute("isCodecSupported") {
+            p?.resolve(toCodecSupport(decoderCapabilities.getSupport(query)))
         }
+    }
 
-        // Fallback for android < 10
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
-            p?.resolve("software")
-            return
+    @ReactMethod
+    fun getCodecSupports(queries: ReadableArray, p: Promise) {
+        val decoderCapabilities = ReactNativeVideoManager.getInstance().decoderCapabilities
+        val codecQueries = (0 until queries.size()).mapNotNull { queries.getMap(it) }.map { query ->
+            RNVDecoderCapabilities.Query(
+                ReactBridgeUtils.safeGetString(query, PROP_MIME_TYPE, "")!!,
+                ReactBridgeUtils.safeGetInt(query, PROP_WIDTH, 0),
+                ReactBridgeUtils.safeGetInt(query, PROP_HEIGHT, 0),
+                ReactBridgeUtils.safeGetFloat(query, PROP_FRAME_RATE, 0f),
+                ReactBridgeUtils.safeGetBool(query, PROP_SECURE, false)
+            )
         }
-        val isHardwareAccelerated = mRegularCodecs.codecInfos.any {
-            it.name.equals(codecName, ignoreCase = true) && it.isHardwareAccelerated
+        execute("getCodecSupports") {
+            val supports = Arguments.createArray()
+            decoderCapabilities.getSupports(codecQueries).forEach { supports.pushString(toCodecSupport(it)) }
+            p.resolve(supports)
         }
-        p?.resolve(if (isHardwareAccelerated) "software" else "hardware")
     }
 
     @ReactMethod
     fun isHEVCSupported(p: Promise) = isCodecSupported("video/hevc", 1920.0, 1080.0, p)
 
+    /**
+     * Run `task` on the worker pool, or on the calling native modules thread when the pool is full,
+     * so that the promise is always settled: queries are memoized, the inline run is short once warmed up
+     */
+    private fun execute(name: String, task: Runnable) {
+        if (ReactNativeVideoManager.getInstance().workerPool.tryExecute(WORKER_OWNER, name, task) == null) {
+            task.run()
+        }
+    }
+
+    // decoders which couldn't be listed were reported as unsupported
+    private fun toCodecSupport(support: RNVDecoderCapabilities.Support): String =
+        if (support == RNVDecoderCapabilities.Support.UNKNOWN) RNVDecoderCapabilities.Support.UNSUPPORTED.value else support.value
+
     companion object {
-        private val WIDEVINE_UUID = UUID(-0x121074568629b532L, -0x5c37d8232ae2de13L)
-        private const val SECURITY_LEVEL_PROPERTY = "securityLevel"
+        private const val WORKER_OWNER = "VideoDecoderInfoModule"
+        private const val PROP_MIME_TYPE = "mimeType"
+        private const val PROP_WIDTH = "width"
+        private const val PROP_HEIGHT = "height"
+        private const val PROP_FRAME_RATE = "frameRate"
+        private const val PROP_SECURE = "secure"
         private const val REACT_CLASS = "VideoDecoderInfoModule"
     }
 }
@@ -1,20 +1,40 @@
 package com.brentvatne.react
 
+import android.net.Uri
+import androidx.media3.exoplayer.offline.Download
 import com.brentvatne.common.api.Source
+import com.brentvatne.common.toolbox.DebugLog
+import com.brentvatne.common.toolbox.ReactBridgeUtils
+import com.brentvatne.exoplayer.DataSourceUtil
+import com.brentvatne.exoplayer.RNVDownloadManager
+import com.brentvatne.exoplayer.RNVPlayerPool
+import com.brentvatne.exoplayer.RNVPreloadManager
+import com.brentvatne.exoplayer.ReactExoplayerConfig
 import com.brentvatne.exoplayer.ReactExoplayerView
+import com.facebook.react.bridge.Arguments
 import com.facebook.react.bridge.Promise
 import com.facebook.react.bridge.ReactApplicationContext
 import com.facebook.react.bridge.ReactContextBaseJavaModule
 import com.facebook.react.bridge.ReactMethod
+import com.facebook.react.bridge.ReadableArray
 import com.facebook.react.bridge.ReadableMap
 import com.facebook.react.bridge.UiThreadUtil
+import com.facebook.react.bridge.WritableMap
+import com.facebook.react.modules.core.DeviceEventManagerModule
 import com.facebook.react.uimanager.UIManagerHelper
 import com.facebook.react.uimanager.common.UIManagerType
 import kotlin.math.roundToInt
 
-class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextBaseJavaModule(reactContext) {
+class VideoManagerModule(reactContext: ReactApplicationContext?, private val config: ReactExoplayerConfig) : ReactContextBaseJavaModule(reactContext) {
     override fun getName(): String = REACT_CLASS
 
+    override fun initialize() {
+        super.initialize()
+        val downloadManager = ReactNativeVideoManager.getInstance().downloadManager
+        downloadManager.listener = downloadListener
+        downloadManager.initialize(reactApplicationContext)
+    }
+
     private fun performOnPlayerView(reactTag: Int, callback: (ReactExoplayerView?) -> Unit) {
         UiThreadUtil.runOnUiThread {
             try {
@@ -44,10 +64,16 @@ class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextB
     }
 
     @ReactMethod
-    @Suppress("UNUSED_PARAMETER") // codegen compatibility
     fun seekCmd(reactTag: Int, time: Float, tolerance: Float) {
         performOnPlayerView(reactTag) {
-            it?.seekTo((time * 1000f).roundToInt().toLong())
+            it?.seekTo((time * 1000f).roundToInt().toLong(), tolerance.roundToInt().toLong())
+        }
+    }
+
+    @ReactMethod
+    fun setScrubbingCmd(reactTag: Int, scrubbing: Boolean) {
+        performOnPlayerView(reactTag) {
+            it?.setScrubbing(scrubbing)
         }
     }
 
@@ -93,7 +119,398 @@ class VideoManagerModule(reactContext: ReactApplicationContext?) : ReactContextB
         }
     }
 
+    @ReactMethod
+    fun getCacheMetrics(reactTag: Int, promise: Promise) {
+        performOnPlayerView(reactTag) {
+            if (it != null) {
+                promise.resolve(it.cacheMetrics.toWritableMap())
+            } else {
+                promise.reject("INVALID_VIEW", "no video view found for tag $reactTag")
+            }
+        }
+    }
+
+    @ReactMethod
+    fun getRequestTimings(reactTag: Int, promise: Promise) {
+        performOnPlayerView(reactTag) {
+            if (it != null) {
+                promise.resolve(it.requestTimings.getRequests())
+            } else {
+                promise.reject("INVALID_VIEW", "no video view found for tag $reactTag")
+            }
+        }
+    }
+
+    /**
+     * Synchronous, it reads the state last written by the player without going through the UI thread
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    fun getPlaybackState(reactTag: Int): WritableMap? = ReactNativeVideoManager.getInstance().playbackStates[reactTag]?.toWritableMap()
+
+    @ReactMethod
+    fun getEventStats(reactTag: Int, promise: Promise) {
+        performOnPlayerView(reactTag) {
+            if (it != null) {
+                promise.resolve(it.eventStats.toWritableMap())
+            } else {
+                promise.reject("INVALID_VIEW", "no video view found for tag $reactTag")
+            }
+        }
+    }
+
+    @ReactMethod
+    fun configurePlayerPool(poolConfig: ReadableMap?) {
+        val maxSize = ReactBridgeUtils.safeGetInt(poolConfig, PROP_POOL_MAX_SIZE, 0)
+        val idleTimeoutMs = ReactBridgeUtils.safeGetInt(poolConfig, PROP_POOL_IDLE_TIMEOUT_MS, RNVPlayerPool.DEFAULT_IDLE_TIMEOUT_MS.toInt())
+        val prewarmCount = ReactBridgeUtils.safeGetInt(poolConfig, PROP_POOL_PREWARM, 0)
+        UiThreadUtil.runOnUiThread {
+            val playerPool = ReactNativeVideoManager.getInstance().playerPool
+            playerPool.configure(maxSize, idleTimeoutMs.toLong())
+            if (prewarmCount > 0) {
+                playerPool.prewarm(reactApplicationContext, config.bandwidthMeter, prewarmCount)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun getPlayerPoolStats(promise: Promise) {
+        UiThreadUtil.runOnUiThread {
+            val stats = ReactNativeVideoManager.getInstance().playerPool.getStats()
+            val requests = stats.hits + stats.misses
+            promise.resolve(
+                Arguments.createMap().apply {
+                    putInt("size", stats.size)
+                    putInt("maxSize", stats.maxSize)
+                    putDouble("hits", stats.hits.toDouble())
+                    putDouble("misses", stats.misses.toDouble())
+                    putDouble("hitRate", if (requests > 0) stats.hits.toDouble() / requests else 0.0)
+                    putDouble("created", stats.created.toDouble())
+                    putDouble("recycled", stats.recycled.toDouble())
+                    putDouble("evicted", stats.evicted.toDouble())
+                }
+            )
+        }
+    }
+
+    @ReactMethod
+    fun getWorkerPoolStats(promise: Promise) {
+        promise.resolve(ReactNativeVideoManager.getInstance().workerPool.getStats().toWritableMap())
+    }
+
+    @ReactMethod
+    fun preload(source: ReadableMap?, options: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        if (parsedSource.drmProps?.persistentLicense == true) {
+            ReactNativeVideoManager.getInstance().drmManager.prefetchLicense(
+                reactApplicationContext,
+                parsedSource,
+                DataSourceUtil.getDefaultHttpDataSourceFactory(reactApplicationContext, null, parsedSource.headers)
+            ) { error ->
+                error?.let { DebugLog.w(TAG, "cannot prefetch license: $it") }
+            }
+        }
+        val bytes = ReactBridgeUtils.safeGetDouble(options, PROP_PRELOAD_BYTES, 0.0).toLong()
+        val durationMs = ReactBridgeUtils.safeGetDouble(options, PROP_PRELOAD_DURATION_MS, DEFAULT_PRELOAD_DURATION_MS).toLong()
+        val priority = ReactBridgeUtils.safeGetInt(options, PROP_PRELOAD_PRIORITY, 0)
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().preloadManager.preload(
+                reactApplicationContext,
+                parsedSource,
+                bytes,
+                durationMs,
+                priority,
+                config.bandwidthMeter
+            ) { result ->
+                if (result.status == RNVPreloadManager.Status.FAILED) {
+                    promise.reject("PRELOAD_FAILED", result.error ?: "preload failed for ${result.uri}")
+                } else {
+                    promise.resolve(
+                        Arguments.createMap().apply {
+                            putString("uri", result.uri)
+                            putBoolean("cancelled", result.status == RNVPreloadManager.Status.CANCELLED)
+                            putDouble("bytesLoaded", result.bytesLoaded.toDouble())
+                        }
+                    )
+                }
+            }
+        }
+    }
+
+    @ReactMethod
+    fun prefetchLicense(source: ReadableMap?, promise: Promise) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        ReactNativeVideoManager.getInstance().drmManager.prefetchLicense(
+            reactApplicationContext,
+            parsedSource,
+            DataSourceUtil.getDefaultHttpDataSourceFactory(reactApplicationContext, null, parsedSource.headers)
+        ) { error ->
+            if (error == null) {
+                promise.resolve(null)
+            } else {
+                promise.reject("PREFETCH_LICENSE_FAILED", error)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun clearLicenses() {
+        ReactNativeVideoManager.getInstance().drmManager.clearLicenses(reactApplicationContext)
+    }
+
+    @ReactMethod
+    fun cancelPreload(uri: String?) {
+        UiThreadUtil.runOnUiThread {
+            val preloadManager = ReactNativeVideoManager.getInstance().preloadManager
+            if (uri == null) {
+                preloadManager.cancelAll()
+            } else {
+                preloadManager.cancel(uri)
+            }
+        }
+    }
+
+    @ReactMethod
+    fun configurePreload(preloadConfig: ReadableMap?) {
+        val maxConcurrent = ReactBridgeUtils.safeGetInt(preloadConfig, PROP_PRELOAD_MAX_CONCURRENT, 2)
+        val maxBytes = ReactBridgeUtils.safeGetDouble(preloadConfig, PROP_PRELOAD_MAX_BYTES, RNVPreloadManager.DEFAULT_BYTE_BUDGET.toDouble()).toLong()
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().preloadManager.configure(maxConcurrent, maxBytes)
+        }
+    }
+
+    @ReactMethod
+    fun configureBufferBudget(budgetConfig: ReadableMap?) {
+        val maxSizeMB = ReactBridgeUtils.safeGetInt(budgetConfig, PROP_BUFFER_BUDGET_MAX_SIZE_MB, 0)
+        ReactNativeVideoManager.getInstance().bufferBudget.setMaxBytes(maxSizeMB.toLong() * 1024 * 1024)
+    }
+
+    @ReactMethod
+    fun getBufferBudgetStats(promise: Promise) {
+        promise.resolve(ReactNativeVideoManager.getInstance().bufferBudget.getStats().toWritableMap())
+    }
+
+    @ReactMethod
+    fun configureCache(cacheConfig: ReadableMap?) {
+        val cache = ReactNativeVideoManager.getInstance().cache
+        val maxSizeMB = ReactBridgeUtils.safeGetInt(cacheConfig, PROP_CACHE_MAX_SIZE_MB, 0)
+        if (maxSizeMB > 0) {
+            cache.setMaxSize(reactApplicationContext, maxSizeMB)
+        }
+        ReactBridgeUtils.safeGetArray(cacheConfig, PROP_CACHE_IGNORED_QUERY_PARAMETERS)?.let { names ->
+            cache.cacheKeyFactory.setIgnoredQueryParameters((0 until names.size()).mapNotNull { names.getString(it) })
+        }
+    }
+
+    @ReactMethod
+    fun getCacheStats(promise: Promise) {
+        val stats = ReactNativeVideoManager.getInstance().cache.getStats()
+        promise.resolve(
+            Arguments.createMap().apply {
+                putDouble("maxBytes", stats.maxBytes.toDouble())
+                putDouble("bytesUsed", stats.bytesUsed.toDouble())
+                putDouble("cachedBytesRead", stats.cachedBytesRead.toDouble())
+                putDouble("upstreamBytesRead", stats.upstreamBytesRead.toDouble())
+                putDouble("hitRatio", stats.hitRatio)
+                putDouble("evictions", stats.evictions.toDouble())
+                putDouble("evictedBytes", stats.evictedBytes.toDouble())
+            }
+        )
+    }
+
+    @ReactMethod
+    fun getManifestCacheStats(promise: Promise) {
+        promise.resolve(ReactNativeVideoManager.getInstance().manifestCache.getStats().toWritableMap())
+    }
+
+    @ReactMethod
+    fun clearCache(promise: Promise) {
+        try {
+            ReactNativeVideoManager.getInstance().cache.clear()
+            ReactNativeVideoManager.getInstance().manifestCache.clear()
+            promise.resolve(null)
+        } catch (e: Exception) {
+            promise.reject("CLEAR_CACHE_FAILED", e)
+        }
+    }
+
+    @ReactMethod
+    fun releaseCache() {
+        UiThreadUtil.runOnUiThread {
+            val manager = ReactNativeVideoManager.getInstance()
+            manager.preloadManager.cancelAll()
+            manager.cache.release()
+        }
+    }
+
+    @ReactMethod
+    fun getBandwidthEstimate(promise: Promise) {
+        val bandwidthHistory = config.bandwidthHistory
+        if (bandwidthHistory == null) {
+            promise.resolve(
+                Arguments.createMap().apply {
+                    putString("networkType", "unknown")
+                    putDouble("seededBitrate", 0.0)
+                    putDouble("seededAgeMs", -1.0)
+                    putDouble("bitrateEstimate", config.bandwidthMeter.bitrateEstimate.toDouble())
+                }
+            )
+            return
+        }
+        promise.resolve(bandwidthHistory.toWritableMap(config.bandwidthMeter))
+    }
+
+    @ReactMethod
+    fun clearBandwidthHistory() {
+        config.bandwidthHistory?.clear()
+    }
+
+    @ReactMethod
+    fun prewarmConnections(source: ReadableMap?, hosts: ReadableArray?) {
+        val parsedSource = Source.parse(source, reactApplicationContext)
+        val extraUris = (0 until (hosts?.size() ?: 0)).mapNotNull { hosts?.getString(it) }.map { Uri.parse(it) }
+        ReactNativeVideoManager.getInstance().connectionPrewarmer.prewarm(reactApplicationContext, parsedSource, extraUris)
+    }
+
+    @ReactMethod
+    fun getPrewarmTimings(promise: Promise) {
+        promise.resolve(ReactNativeVideoManager.getInstance().connectionPrewarmer.getTimings())
+    }
+
+    @ReactMethod
+    fun getHostHealth(promise: Promise) {
+        promise.resolve(ReactNativeVideoManager.getInstance().hostHealth.toWritableArray())
+    }
+
+    private val downloadListener = object : RNVDownloadManager.Listener {
+        override fun onDownloadsChanged(downloads: List<Download>) {
+            if (!reactApplicationContext.hasActiveReactInstance()) {
+                return
+            }
+            reactApplicationContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter::class.java)
+                .emit(EVENT_DOWNLOAD_PROGRESS, Arguments.createArray().apply { downloads.forEach { pushMap(downloadToMap(it)) } })
+        }
+    }
+
+    @ReactMethod
+    fun downloadMedia(source: ReadableMap?, options: ReadableMap?, promise: Promise) {
+        val trackOptions = RNVDownloadManager.TrackOptions(
+            ReactBridgeUtils.safeGetInt(options, PROP_DOWNLOAD_MAX_BITRATE, Int.MAX_VALUE),
+            ReactBridgeUtils.safeGetInt(options, PROP_DOWNLOAD_MAX_HEIGHT, Int.MAX_VALUE),
+            toStringList(ReactBridgeUtils.safeGetArray(options, PROP_DOWNLOAD_AUDIO_LANGUAGES)),
+            toStringList(ReactBridgeUtils.safeGetArray(options, PROP_DOWNLOAD_TEXT_LANGUAGES))
+        )
+        val id = ReactBridgeUtils.safeGetString(options, PROP_DOWNLOAD_ID)
+        UiThreadUtil.runOnUiThread {
+            val downloadManager = ReactNativeVideoManager.getInstance().downloadManager
+            downloadManager.download(reactApplicationContext, Source.parse(source, reactApplicationContext), id, trackOptions) { downloadId, error ->
+                if (downloadId != null) {
+                    promise.resolve(downloadId)
+                } else {
+                    promise.reject("DOWNLOAD_FAILED", error)
+                }
+            }
+        }
+    }
+
+    @ReactMethod
+    fun pauseDownload(id: String?) {
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().downloadManager.pause(reactApplicationContext, id)
+        }
+    }
+
+    @ReactMethod
+    fun resumeDownload(id: String?) {
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().downloadManager.resume(reactApplicationContext, id)
+        }
+    }
+
+    @ReactMethod
+    fun removeDownload(id: String) {
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().downloadManager.removeDownload(reactApplicationContext, id)
+        }
+    }
+
+    @ReactMethod
+    fun getDownloads(promise: Promise) {
+        UiThreadUtil.runOnUiThread {
+            val downloadManager = ReactNativeVideoManager.getInstance().downloadManager
+            promise.resolve(Arguments.createArray().apply { downloadManager.getDownloads(reactApplicationContext).forEach { pushMap(downloadToMap(it)) } })
+        }
+    }
+
+    @ReactMethod
+    fun configureDownloads(downloadConfig: ReadableMap?) {
+        val maxParallelDownloads = ReactBridgeUtils.safeGetInt(downloadConfig, PROP_DOWNLOAD_MAX_PARALLEL_DOWNLOADS, 2)
+        val requireUnmeteredNetwork = ReactBridgeUtils.safeGetBool(downloadConfig, PROP_DOWNLOAD_REQUIRE_UNMETERED_NETWORK, false)
+        UiThreadUtil.runOnUiThread {
+            ReactNativeVideoManager.getInstance().downloadManager.configure(reactApplicationContext, maxParallelDownloads, requireUnmeteredNetwork)
+        }
+    }
+
+    @ReactMethod
+    @Suppress("UNUSED_PARAMETER") // required by NativeEventEmitter
+    fun addListener(eventName: String) {
+        // Do nothing.
+    }
+
+    @ReactMethod
+    @Suppress("UNUSED_PARAMETER") // required by NativeEventEmitter
+    fun removeListeners(count: Int) {
+        // Do nothing.
+    }
+
+    private fun toStringList(array: ReadableArray?): List<String> =
+        if (array == null) emptyList() else (0 until array.size()).mapNotNull { array.getString(it) }
+
+    private fun downloadToMap(download: Download): WritableMap =
+        Arguments.createMap().apply {
+            putString("id", download.request.id)
+            putString("uri", download.request.uri.toString())
+            putString("state", downloadStateToString(download.state))
+            putBoolean("paused", download.stopReason != Download.STOP_REASON_NONE)
+            putDouble("percentDownloaded", download.percentDownloaded.toDouble())
+            putDouble("bytesDownloaded", download.bytesDownloaded.toDouble())
+            putDouble("contentLength", download.contentLength.toDouble())
+        }
+
+    private fun downloadStateToString(state: Int): String =
+        when (state) {
+            Download.STATE_QUEUED -> "queued"
+            Download.STATE_STOPPED -> "stopped"
+            Download.STATE_DOWNLOADING -> "downloading"
+            Download.STATE_COMPLETED -> "completed"
+            Download.STATE_FAILED -> "failed"
+            Download.STATE_REMOVING -> "removing"
+            Download.STATE_RESTARTING -> "restarting"
+            else -> "unknown"
+        }
+
     companion object {
         private const val REACT_CLASS = "VideoManager"
+        private const val TAG = "VideoManagerModule"
+        private const val PROP_POOL_MAX_SIZE = "maxSize"
+        private const val PROP_POOL_IDLE_TIMEOUT_MS = "idleTimeoutMs"
+        private const val PROP_POOL_PREWARM = "prewarm"
+        private const val PROP_PRELOAD_BYTES = "bytes"
+        private const val PROP_PRELOAD_DURATION_MS = "durationMs"
+        private const val PROP_PRELOAD_PRIORITY = "priority"
+        private const val PROP_PRELOAD_MAX_CONCURRENT = "maxConcurrent"
+        private const val PROP_PRELOAD_MAX_BYTES = "maxBytes"
+        private const val DEFAULT_PRELOAD_DURATION_MS = 5000.0
+        private const val PROP_CACHE_MAX_SIZE_MB = "maxSizeMB"
+        private const val PROP_CACHE_IGNORED_QUERY_PARAMETERS = "ignoredQueryParameters"
+        private const val PROP_BUFFER_BUDGET_MAX_SIZE_MB = "maxSizeMB"
+        private const val PROP_DOWNLOAD_ID = "id"
+        private const val PROP_DOWNLOAD_MAX_BITRATE = "maxBitrate"
+        private const val PROP_DOWNLOAD_MAX_HEIGHT = "maxHeight"
+        private const val PROP_DOWNLOAD_AUDIO_LANGUAGES = "audioLanguages"
+        private const val PROP_DOWNLOAD_TEXT_LANGUAGES = "textLanguages"
+        private const val PROP_DOWNLOAD_MAX_PARALLEL_DOWNLOADS = "maxParallelDownloads"
+        private const val PROP_DOWNLOAD_REQUIRE_UNMETERED_NETWORK = "requireUnmeteredNetwork"
+        private const val EVENT_DOWNLOAD_PROGRESS = "onVideoDownloadProgress"
     }
 }
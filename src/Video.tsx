@@ -23,7 +23,10 @@ import type {
   OnAudioFocusChangedData,
   OnAudioTracksData,
   OnBandwidthUpdateData,
+  OnCacheMetricsData,
   OnBufferData,
+  OnBufferDecisionData,
+  OnAbrSwitchData,
   OnControlsVisibilityChange,
   OnExternalPlaybackChangeData,
   OnGetLicenseData,
@@ -31,6 +34,7 @@ import type {
   OnPictureInPictureStatusChangedData,
   OnPlaybackStateChangedData,
   OnProgressData,
+  OnRequestTimingsData,
   OnSeekData,
   OnTextTrackDataChangedData,
   OnTimedMetadataData,
@@ -52,7 +56,10 @@ import type {
   OnReceiveAdEventData,
   ReactVideoProps,
   CmcdData,
+  EventStats,
+  PlaybackState,
   ReactVideoSource,
+  RequestTiming,
 } from './types';
 
 const Video = forwardRef<VideoRef, ReactVideoProps>(
@@ -84,6 +91,10 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       onEnd,
       onBuffer,
       onBandwidthUpdate,
+      onCacheMetrics,
+      onBufferDecision,
+      onAbrSwitch,
+      onRequestTimings,
       onControlsVisibilityChange,
       onExternalPlaybackChange,
       onFullscreenPlayerWillPresent,
@@ -185,6 +196,7 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
               base64Certificate: selectedDrm.base64Certificate,
               useExternalGetLicense: !!selectedDrm.getLicense,
               multiDrm: selectedDrm.multiDrm,
+              persistentLicense: selectedDrm.persistentLicense,
               localSourceEncryptionKeyScheme:
                 selectedDrm.localSourceEncryptionKeyScheme ||
                 localSourceEncryptionKeyScheme,
@@ -250,6 +262,8 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
             resolvedSource.textTracksAllowChunklessPreparation,
           minLoadRetryCount: _minLoadRetryCount,
           bufferConfig: _bufferConfig,
+          abr: resolvedSource.abr,
+          cdnBaseUrls: resolvedSource.cdnBaseUrls,
         };
       },
       [
@@ -364,6 +378,13 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       })();
     }, []);
 
+    const setScrubbing = useCallback((scrubbing: boolean) => {
+      if (Platform.OS !== 'android' || !NativeVideoManager.setScrubbingCmd) {
+        return;
+      }
+      NativeVideoManager.setScrubbingCmd(getReactTag(nativeRef), scrubbing);
+    }, []);
+
     const pause = useCallback(() => {
       return NativeVideoManager.setPlayerPauseStateCmd(
         getReactTag(nativeRef),
@@ -457,6 +478,43 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       return NativeVideoManager.getCurrentPosition(getReactTag(nativeRef));
     }, []);
 
+    const getCacheMetrics = useCallback(async () => {
+      if (Platform.OS !== 'android' || !NativeVideoManager.getCacheMetrics) {
+        throw new Error('getCacheMetrics is only available on Android');
+      }
+      return (await NativeVideoManager.getCacheMetrics(
+        getReactTag(nativeRef),
+      )) as OnCacheMetricsData;
+    }, []);
+
+    const getRequestTimings = useCallback(async () => {
+      if (Platform.OS !== 'android' || !NativeVideoManager.getRequestTimings) {
+        throw new Error('getRequestTimings is only available on Android');
+      }
+      return (await NativeVideoManager.getRequestTimings(
+        getReactTag(nativeRef),
+      )) as RequestTiming[];
+    }, []);
+
+    const getEventStats = useCallback(async () => {
+      if (Platform.OS !== 'android' || !NativeVideoManager.getEventStats) {
+        throw new Error('getEventStats is only available on Android');
+      }
+      return (await NativeVideoManager.getEventStats(
+        getReactTag(nativeRef),
+      )) as EventStats;
+    }, []);
+
+    const getPlaybackState = useCallback(() => {
+      if (Platform.OS !== 'android' || !NativeVideoManager.getPlaybackState) {
+        throw new Error('getPlaybackState is only available on Android');
+      }
+      const state = NativeVideoManager.getPlaybackState(
+        getReactTag(nativeRef),
+      );
+      return state as PlaybackState | null;
+    }, []);
+
     const restoreUserInterfaceForPictureInPictureStopCompleted = useCallback(
       (restored: boolean) => {
         setRestoreUserInterfaceForPIPStopCompletionHandler(restored);
@@ -609,6 +667,34 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       [onBandwidthUpdate],
     );
 
+    const _onCacheMetrics = useCallback(
+      (e: NativeSyntheticEvent<OnCacheMetricsData>) => {
+        onCacheMetrics?.(e.nativeEvent);
+      },
+      [onCacheMetrics],
+    );
+
+    const _onBufferDecision = useCallback(
+      (e: NativeSyntheticEvent<OnBufferDecisionData>) => {
+        onBufferDecision?.(e.nativeEvent);
+      },
+      [onBufferDecision],
+    );
+
+    const _onAbrSwitch = useCallback(
+      (e: NativeSyntheticEvent<OnAbrSwitchData>) => {
+        onAbrSwitch?.(e.nativeEvent);
+      },
+      [onAbrSwitch],
+    );
+
+    const _onRequestTimings = useCallback(
+      (e: NativeSyntheticEvent<OnRequestTimingsData>) => {
+        onRequestTimings?.(e.nativeEvent);
+      },
+      [onRequestTimings],
+    );
+
     const _onReceiveAdEvent = useCallback(
       (e: NativeSyntheticEvent<OnReceiveAdEventData>) => {
         onReceiveAdEvent?.(e.nativeEvent);
@@ -682,6 +768,7 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       ref,
       () => ({
         seek,
+        setScrubbing,
         presentFullscreenPlayer,
         dismissFullscreenPlayer,
         save,
@@ -690,6 +777,10 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
         restoreUserInterfaceForPictureInPictureStopCompleted,
         setVolume,
         getCurrentPosition,
+        getCacheMetrics,
+        getRequestTimings,
+        getEventStats,
+        getPlaybackState,
         setFullScreen,
         enterPictureInPicture,
         exitPictureInPicture,
@@ -697,6 +788,7 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
       }),
       [
         seek,
+        setScrubbing,
         presentFullscreenPlayer,
         dismissFullscreenPlayer,
         save,
@@ -705,6 +797,10 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
         restoreUserInterfaceForPictureInPictureStopCompleted,
         setVolume,
         getCurrentPosition,
+        getCacheMetrics,
+        getRequestTimings,
+        getEventStats,
+        getPlaybackState,
         setFullScreen,
         enterPictureInPicture,
         exitPictureInPicture,
@@ -856,6 +952,14 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
           onVideoBandwidthUpdate={
             onBandwidthUpdate ? _onBandwidthUpdate : undefined
           }
+          onVideoCacheMetrics={onCacheMetrics ? _onCacheMetrics : undefined}
+          onVideoBufferDecision={
+            onBufferDecision ? _onBufferDecision : undefined
+          }
+          onVideoAbrSwitch={onAbrSwitch ? _onAbrSwitch : undefined}
+          onVideoRequestTimings={
+            onRequestTimings ? _onRequestTimings : undefined
+          }
           onTimedMetadata={onTimedMetadata ? _onTimedMetadata : undefined}
           onAudioTracks={onAudioTracks ? _onAudioTracks : undefined}
           onTextTracks={onTextTracks ? _onTextTracks : undefined}
@@ -218,7 +218,12 @@ const Video = forwardRef<VideoRef, ReactVideoProps>(
         presentFullscreenPlayer,
         dismissFullscreenPlayer,
         setFullScreen,
+        setScrubbing: unsupported,
         save: unsupported,
+        getCacheMetrics: unsupported,
+        getRequestTimings: unsupported,
+        getEventStats: unsupported,
+        getPlaybackState: unsupported,
         enterPictureInPicture,
         exitPictureInPicture,
         restoreUserInterfaceForPictureInPictureStopCompleted: unsupported,
@@ -0,0 +1,23 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {BufferBudgetConfig, BufferBudgetStats} from './types';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoBufferBudget = {
+  configure(config: BufferBudgetConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoBufferBudget', 'configure'));
+    }
+    NativeVideoManager.configureBufferBudget?.(config);
+  },
+  async getStats(): Promise<BufferBudgetStats> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getBufferBudgetStats) {
+      throw new Error(errMsgGen('VideoBufferBudget', 'getStats'));
+    }
+    const stats = await NativeVideoManager.getBufferBudgetStats();
+    return stats as BufferBudgetStats;
+  },
+};
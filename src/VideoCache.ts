@@ -0,0 +1,44 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {CacheConfig, CacheStats, ManifestCacheStats} from './types';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoCache = {
+  configure(config: CacheConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'configure'));
+    }
+    NativeVideoManager.configureCache?.(config);
+  },
+  async getStats(): Promise<CacheStats> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getCacheStats) {
+      throw new Error(errMsgGen('VideoCache', 'getStats'));
+    }
+    return (await NativeVideoManager.getCacheStats()) as CacheStats;
+  },
+  async getManifestStats(): Promise<ManifestCacheStats> {
+    if (
+      Platform.OS !== 'android' ||
+      !NativeVideoManager.getManifestCacheStats
+    ) {
+      throw new Error(errMsgGen('VideoCache', 'getManifestStats'));
+    }
+    const stats = await NativeVideoManager.getManifestCacheStats();
+    return stats as ManifestCacheStats;
+  },
+  async clear() {
+    if (Platform.OS !== 'android' || !NativeVideoManager.clearCache) {
+      throw new Error(errMsgGen('VideoCache', 'clear'));
+    }
+    return NativeVideoManager.clearCache();
+  },
+  release() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoCache', 'release'));
+    }
+    NativeVideoManager.releaseCache?.();
+  },
+};
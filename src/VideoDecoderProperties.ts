@@ -1,6 +1,7 @@
 import {Platform} from 'react-native';
 
 import NativeVideoDecoderInfoModule from './specs/NativeVideoDecoderInfoModule';
+import type {CodecQuery, PlaybackCapabilities} from './types';
 
 const errMsgGen = (moduleName: string, propertyName: string) =>
   `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
@@ -26,4 +27,26 @@ export const VideoDecoderProperties = {
     }
     return NativeVideoDecoderInfoModule.isHEVCSupported();
   },
+  async getPlaybackCapabilities(): Promise<PlaybackCapabilities> {
+    if (
+      Platform.OS !== 'android' ||
+      !NativeVideoDecoderInfoModule.getPlaybackCapabilities
+    ) {
+      throw new Error(
+        errMsgGen('VideoDecoderProperties', 'getPlaybackCapabilities'),
+      );
+    }
+    const capabilities =
+      await NativeVideoDecoderInfoModule.getPlaybackCapabilities();
+    return capabilities as PlaybackCapabilities;
+  },
+  async getCodecSupports(queries: CodecQuery[]) {
+    if (
+      Platform.OS !== 'android' ||
+      !NativeVideoDecoderInfoModule.getCodecSupports
+    ) {
+      throw new Error(errMsgGen('VideoDecoderProperties', 'getCodecSupports'));
+    }
+    return NativeVideoDecoderInfoModule.getCodecSupports(queries);
+  },
 };
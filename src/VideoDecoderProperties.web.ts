@@ -1,5 +1,6 @@
 /// <reference lib="dom" />
 import type {VideoDecoderInfoModuleType} from './specs/NativeVideoDecoderInfoModule';
+import type {CodecQuery} from './types';
 
 const canPlay = (codec: string): boolean => {
   // most chrome based browser (and safari I think) supports matroska but reports they do not.
@@ -31,4 +32,12 @@ export const VideoDecoderProperties = {
       ? 'software'
       : 'unsupported';
   },
+
+  async getCodecSupports(
+    queries: CodecQuery[],
+  ): Promise<('unsupported' | 'hardware' | 'software')[]> {
+    return queries.map(({mimeType}) =>
+      canPlay(mimeType) ? 'software' : 'unsupported',
+    );
+  },
 } satisfies VideoDecoderInfoModuleType;
@@ -0,0 +1,76 @@
+import {NativeEventEmitter, NativeModules, Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {
+  DownloadConfig,
+  DownloadInfo,
+  DownloadOptions,
+  ReactVideoSource,
+} from './types';
+import {generateHeaderForNative, resolveAssetSourceForVideo} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+const DOWNLOAD_PROGRESS_EVENT = 'onVideoDownloadProgress';
+
+let eventEmitter: NativeEventEmitter | undefined;
+
+export const VideoDownloader = {
+  async download(
+    source: ReactVideoSource,
+    options: DownloadOptions = {},
+  ): Promise<string> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.downloadMedia) {
+      throw new Error(errMsgGen('VideoDownloader', 'download'));
+    }
+    const resolvedSource = resolveAssetSourceForVideo(source);
+    return await NativeVideoManager.downloadMedia(
+      {
+        uri: resolvedSource.uri,
+        type: resolvedSource.type || '',
+        requestHeaders: generateHeaderForNative(resolvedSource.headers),
+      },
+      options,
+    );
+  },
+  pause(id?: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloader', 'pause'));
+    }
+    NativeVideoManager.pauseDownload?.(id);
+  },
+  resume(id?: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloader', 'resume'));
+    }
+    NativeVideoManager.resumeDownload?.(id);
+  },
+  remove(id: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloader', 'remove'));
+    }
+    NativeVideoManager.removeDownload?.(id);
+  },
+  async getDownloads(): Promise<DownloadInfo[]> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getDownloads) {
+      throw new Error(errMsgGen('VideoDownloader', 'getDownloads'));
+    }
+    return (await NativeVideoManager.getDownloads()) as DownloadInfo[];
+  },
+  configure(config: DownloadConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloader', 'configure'));
+    }
+    NativeVideoManager.configureDownloads?.(config);
+  },
+  addProgressListener(listener: (downloads: DownloadInfo[]) => void) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDownloader', 'addProgressListener'));
+    }
+    if (!eventEmitter) {
+      eventEmitter = new NativeEventEmitter(NativeModules.VideoManager);
+    }
+    return eventEmitter.addListener(DOWNLOAD_PROGRESS_EVENT, listener);
+  },
+};
@@ -0,0 +1,33 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {ReactVideoSource} from './types';
+import {
+  generateDrmForNative,
+  generateHeaderForNative,
+  resolveAssetSourceForVideo,
+} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoDrm = {
+  async prefetchLicense(source: ReactVideoSource): Promise<void> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.prefetchLicense) {
+      throw new Error(errMsgGen('VideoDrm', 'prefetchLicense'));
+    }
+    const resolvedSource = resolveAssetSourceForVideo(source);
+    await NativeVideoManager.prefetchLicense({
+      uri: resolvedSource.uri,
+      type: resolvedSource.type || '',
+      requestHeaders: generateHeaderForNative(resolvedSource.headers),
+      drm: generateDrmForNative(resolvedSource.drm),
+    });
+  },
+  clearLicenses() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoDrm', 'clearLicenses'));
+    }
+    NativeVideoManager.clearLicenses?.();
+  },
+};
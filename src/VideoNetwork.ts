@@ -0,0 +1,62 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {
+  BandwidthEstimate,
+  HostHealth,
+  PrewarmTiming,
+  ReactVideoSource,
+} from './types';
+import {
+  generateDrmForNative,
+  generateHeaderForNative,
+  resolveAssetSourceForVideo,
+} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoNetwork = {
+  async getBandwidthEstimate(): Promise<BandwidthEstimate> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getBandwidthEstimate) {
+      throw new Error(errMsgGen('VideoNetwork', 'getBandwidthEstimate'));
+    }
+    const estimate = await NativeVideoManager.getBandwidthEstimate();
+    return estimate as BandwidthEstimate;
+  },
+  clearBandwidthHistory() {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoNetwork', 'clearBandwidthHistory'));
+    }
+    NativeVideoManager.clearBandwidthHistory?.();
+  },
+  prewarm(source: ReactVideoSource, hosts: string[] = []) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoNetwork', 'prewarm'));
+    }
+    const resolvedSource = resolveAssetSourceForVideo(source);
+    NativeVideoManager.prewarmConnections?.(
+      {
+        uri: resolvedSource.uri,
+        type: resolvedSource.type || '',
+        requestHeaders: generateHeaderForNative(resolvedSource.headers),
+        drm: generateDrmForNative(resolvedSource.drm),
+      },
+      hosts,
+    );
+  },
+  async getPrewarmTimings(): Promise<PrewarmTiming[]> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getPrewarmTimings) {
+      throw new Error(errMsgGen('VideoNetwork', 'getPrewarmTimings'));
+    }
+    const timings = await NativeVideoManager.getPrewarmTimings();
+    return timings as PrewarmTiming[];
+  },
+  async getHostHealth(): Promise<HostHealth[]> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getHostHealth) {
+      throw new Error(errMsgGen('VideoNetwork', 'getHostHealth'));
+    }
+    const hosts = await NativeVideoManager.getHostHealth();
+    return hosts as HostHealth[];
+  },
+};
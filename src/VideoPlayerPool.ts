@@ -0,0 +1,32 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {
+  PlayerPoolConfig,
+  PlayerPoolStats,
+  WorkerPoolStats,
+} from './types';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoPlayerPool = {
+  configure(config: PlayerPoolConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPlayerPool', 'configure'));
+    }
+    NativeVideoManager.configurePlayerPool?.(config);
+  },
+  async getStats(): Promise<PlayerPoolStats> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getPlayerPoolStats) {
+      throw new Error(errMsgGen('VideoPlayerPool', 'getStats'));
+    }
+    return (await NativeVideoManager.getPlayerPoolStats()) as PlayerPoolStats;
+  },
+  async getWorkerStats(): Promise<WorkerPoolStats> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.getWorkerPoolStats) {
+      throw new Error(errMsgGen('VideoPlayerPool', 'getWorkerStats'));
+    }
+    return (await NativeVideoManager.getWorkerPoolStats()) as WorkerPoolStats;
+  },
+};
@@ -0,0 +1,51 @@
+import {Platform} from 'react-native';
+
+import NativeVideoManager from './specs/NativeVideoManager';
+import type {
+  PreloadConfig,
+  PreloadOptions,
+  PreloadResult,
+  ReactVideoSource,
+} from './types';
+import {
+  generateDrmForNative,
+  generateHeaderForNative,
+  resolveAssetSourceForVideo,
+} from './utils';
+
+const errMsgGen = (moduleName: string, propertyName: string) =>
+  `The method or property ${moduleName}.${propertyName} is not available on ${Platform.OS}.`;
+
+export const VideoPreloader = {
+  async preload(
+    source: ReactVideoSource,
+    options: PreloadOptions = {},
+  ): Promise<PreloadResult> {
+    if (Platform.OS !== 'android' || !NativeVideoManager.preload) {
+      throw new Error(errMsgGen('VideoPreloader', 'preload'));
+    }
+    const resolvedSource = resolveAssetSourceForVideo(source);
+    return (await NativeVideoManager.preload(
+      {
+        uri: resolvedSource.uri,
+        type: resolvedSource.type || '',
+        requestHeaders: generateHeaderForNative(resolvedSource.headers),
+        bufferConfig: resolvedSource.bufferConfig,
+        drm: generateDrmForNative(resolvedSource.drm),
+      },
+      options,
+    )) as PreloadResult;
+  },
+  cancel(uri?: string) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPreloader', 'cancel'));
+    }
+    NativeVideoManager.cancelPreload?.(uri);
+  },
+  configure(config: PreloadConfig) {
+    if (Platform.OS !== 'android') {
+      throw new Error(errMsgGen('VideoPreloader', 'configure'));
+    }
+    NativeVideoManager.configurePreload?.(config);
+  },
+};
@@ -1,5 +1,12 @@
 import Video from './Video';
+export {VideoBufferBudget} from './VideoBufferBudget';
+export {VideoCache} from './VideoCache';
+export {VideoDownloader} from './VideoDownloader';
+export {VideoDrm} from './VideoDrm';
+export {VideoNetwork} from './VideoNetwork';
 export {VideoDecoderProperties} from './VideoDecoderProperties';
+export {VideoPlayerPool} from './VideoPlayerPool';
+export {VideoPreloader} from './VideoPreloader';
 export * from './types';
 export {Video};
 export default Video;
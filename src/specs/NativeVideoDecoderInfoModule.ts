@@ -1,5 +1,8 @@
 import {NativeModules} from 'react-native';
-import type {Int32} from 'react-native/Libraries/Types/CodegenTypes';
+import type {
+  Int32,
+  UnsafeObject,
+} from 'react-native/Libraries/Types/CodegenTypes';
 
 // @TODO rename to "Spec" when applying new arch
 export interface VideoDecoderInfoModuleType {
@@ -10,6 +13,10 @@ export interface VideoDecoderInfoModuleType {
     height: Int32,
   ) => Promise<'unsupported' | 'hardware' | 'software'>;
   isHEVCSupported: () => Promise<'unsupported' | 'hardware' | 'software'>;
+  getPlaybackCapabilities?: () => Promise<UnsafeObject>; // android
+  getCodecSupports?: (
+    queries: UnsafeObject[],
+  ) => Promise<('unsupported' | 'hardware' | 'software')[]>; // android
 }
 
 export default NativeModules.VideoDecoderInfoModule as VideoDecoderInfoModuleType;
@@ -27,6 +27,48 @@ export interface VideoManagerType {
   exitPictureInPictureCmd: (reactTag: number) => Promise<void>;
   save: (reactTag: Int32, option: UnsafeObject) => Promise<VideoSaveData>;
   getCurrentPosition: (reactTag: Int32) => Promise<Int32>;
+  getCacheMetrics?: (reactTag: Int32) => Promise<UnsafeObject>; // android
+  getRequestTimings?: (reactTag: Int32) => Promise<UnsafeObject[]>; // android
+  getEventStats?: (reactTag: Int32) => Promise<UnsafeObject>; // android
+  getPlaybackState?: (reactTag: Int32) => UnsafeObject | null; // android
+  setScrubbingCmd?: (reactTag: Int32, scrubbing: boolean) => void; // android
+  configurePlayerPool?: (config: UnsafeObject) => void; // android
+  getPlayerPoolStats?: () => Promise<UnsafeObject>; // android
+  getWorkerPoolStats?: () => Promise<UnsafeObject>; // android
+  preload?: (
+    source: UnsafeObject,
+    options: UnsafeObject,
+  ) => Promise<UnsafeObject>; // android
+  cancelPreload?: (uri?: string) => void; // android
+  configurePreload?: (config: UnsafeObject) => void; // android
+  configureBufferBudget?: (config: UnsafeObject) => void; // android
+  getBufferBudgetStats?: () => Promise<UnsafeObject>; // android
+  configureCache?: (config: UnsafeObject) => void; // android
+  getCacheStats?: () => Promise<UnsafeObject>; // android
+  getManifestCacheStats?: () => Promise<UnsafeObject>; // android
+  clearCache?: () => Promise<void>; // android
+  releaseCache?: () => void; // android
+  getBandwidthEstimate?: () => Promise<UnsafeObject>; // android
+  clearBandwidthHistory?: () => void; // android
+  prewarmConnections?: (
+    source: UnsafeObject,
+    hosts: string[],
+  ) => void; // android
+  getPrewarmTimings?: () => Promise<UnsafeObject[]>; // android
+  getHostHealth?: () => Promise<UnsafeObject[]>; // android
+  prefetchLicense?: (source: UnsafeObject) => Promise<void>; // android
+  clearLicenses?: () => void; // android
+  downloadMedia?: (
+    source: UnsafeObject,
+    options: UnsafeObject,
+  ) => Promise<string>; // android
+  pauseDownload?: (id?: string) => void; // android
+  resumeDownload?: (id?: string) => void; // android
+  removeDownload?: (id: string) => void; // android
+  getDownloads?: () => Promise<UnsafeObject[]>; // android
+  configureDownloads?: (config: UnsafeObject) => void; // android
+  addListener?: (eventName: string) => void; // android
+  removeListeners?: (count: Int32) => void; // android
 }
 
 export default NativeModules.VideoManager as VideoManagerType;
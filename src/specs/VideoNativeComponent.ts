@@ -53,6 +53,8 @@ export type VideoSrc = Readonly<{
   ad?: AdsConfig;
   minLoadRetryCount?: Int32; // Android
   bufferConfig?: BufferConfig; // Android
+  abr?: AbrConfig; // Android
+  cdnBaseUrls?: ReadonlyArray<string>; // Android
 }>;
 
 type DRMType = WithDefault<string, 'widevine'>;
@@ -66,11 +68,12 @@ type Drm = Readonly<{
   type?: DRMType;
   licenseServer?: string;
   headers?: Headers;
-  contentId?: string; // ios
+  contentId?: string; // ios, android
   certificateUrl?: string; // ios
   base64Certificate?: boolean; // ios default: false
   useExternalGetLicense?: boolean; // ios
   multiDrm?: WithDefault<boolean, false>; // android
+  persistentLicense?: WithDefault<boolean, false>; // android
   localSourceEncryptionKeyScheme?: string; // ios
 }>;
 
@@ -136,6 +139,12 @@ type BufferConfig = Readonly<{
   live?: BufferConfigLive;
 }>;
 
+type AbrConfig = Readonly<{
+  mode?: WithDefault<'throughput' | 'buffer' | 'hybrid', 'throughput'>;
+  bandwidthFraction?: Float;
+  bufferTargetMs?: Int32;
+}>;
+
 type SubtitleStyle = Readonly<{
   fontSize?: Float;
   paddingTop?: WithDefault<Float, 0>;
@@ -200,6 +209,69 @@ export type OnBandwidthUpdateData = Readonly<{
   trackId?: Int32;
 }>;
 
+export type OnCacheMetricsData = Readonly<{
+  instanceId: string;
+  cachedBytesRead: Double;
+  upstreamBytesRead: Double;
+  hitRatio: Double;
+  cacheReads: Double;
+  upstreamReads: Double;
+  ignoredForError: Double;
+  ignoredForUnsetLength: Double;
+  averageCacheLatencyMs: Double;
+  averageUpstreamLatencyMs: Double;
+  maxUpstreamLatencyMs: Double;
+}>;
+
+export type OnAbrSwitchData = Readonly<{
+  mode: WithDefault<'throughput' | 'buffer' | 'hybrid', 'throughput'>;
+  reason: WithDefault<
+    'initial' | 'throughput' | 'buffer' | 'manual' | 'trickPlay' | 'unknown',
+    'unknown'
+  >;
+  bitrate: Int32;
+  previousBitrate: Int32;
+  width: Int32;
+  height: Int32;
+  estimatedThroughput: Double;
+  bufferMs: Double;
+}>;
+
+export type OnRequestTimingsData = Readonly<{
+  instanceId: string;
+  requests: Int32;
+  errors: Int32;
+  cacheHits: Int32;
+  bytes: Double;
+  averageTtfbMs: Double;
+  maxTtfbMs: Double;
+  averageDurationMs: Double;
+  averageThroughput: Double;
+}>;
+
+export type OnBufferDecisionData = Readonly<{
+  isLoading: boolean;
+  reason: WithDefault<
+    | 'default'
+    | 'disabled'
+    | 'memoryPressure'
+    | 'bufferQuota'
+    | 'heapBudget'
+    | 'memoryReserve',
+    'default'
+  >;
+  memoryPressure: WithDefault<
+    'normal' | 'moderate' | 'low' | 'critical',
+    'normal'
+  >;
+  targetBufferMs: Double;
+  bufferedMs: Double;
+  allocatedBytes: Double;
+  quotaBytes: Double;
+  totalAllocatedBytes: Double;
+  playerCount: Int32;
+}>;
+
 export type OnSeekData = Readonly<{
   currentTime: Float;
   seekTime: Float;
@@ -331,6 +403,8 @@ export interface VideoNativeProps extends ViewProps {
   allowsExternalPlayback?: boolean; // ios, true
   disableFocus?: boolean; // android
   maxBitRate?: Float;
+  maxEventRate?: Float; // Android
+  viewportOversampling?: Float; // Android
   resizeMode?: WithDefault<string, 'none'>;
   repeat?: boolean;
   automaticallyWaitsToMinimizeStalling?: boolean;
@@ -400,6 +474,10 @@ export interface VideoNativeProps extends ViewProps {
   onTextTracks?: DirectEventHandler<OnTextTracksData>; // android
   onTextTrackDataChanged?: DirectEventHandler<OnTextTrackDataChangedData>; // iOS
   onVideoTracks?: DirectEventHandler<OnVideoTracksData>; // android
+  onVideoCacheMetrics?: DirectEventHandler<OnCacheMetricsData>; // android
+  onVideoBufferDecision?: DirectEventHandler<OnBufferDecisionData>; // android
+  onVideoAbrSwitch?: DirectEventHandler<OnAbrSwitchData>; // android
+  onVideoRequestTimings?: DirectEventHandler<OnRequestTimingsData>; // android
 }
 
 type NativeVideoComponentType = HostComponent<VideoNativeProps>;
@@ -1,9 +1,12 @@
 import type {WithDefault} from 'react-native/Libraries/Types/CodegenTypes';
 import type {
+  OnAbrSwitchData,
   OnAudioFocusChangedData,
   OnAudioTracksData,
   OnBandwidthUpdateData,
   OnBufferData,
+  OnBufferDecisionData,
+  OnCacheMetricsData,
   OnControlsVisibilityChange,
   OnExternalPlaybackChangeData,
   OnLoadStartData,
@@ -11,6 +14,7 @@ import type {
   OnPlaybackRateChangeData,
   OnPlaybackStateChangedData,
   OnProgressData,
+  OnRequestTimingsData,
   OnSeekData,
   OnTextTrackDataChangedData,
   OnTimedMetadataData,
@@ -235,11 +239,14 @@ export type OnReceiveAdEventData = Readonly<{
 }>;
 
 export interface ReactVideoEvents {
+  onAbrSwitch?: (e: OnAbrSwitchData) => void; //Android
   onAudioBecomingNoisy?: () => void; //Android, iOS
   onAudioFocusChanged?: (e: OnAudioFocusChangedData) => void; // Android
   onIdle?: () => void; // Android
   onBandwidthUpdate?: (e: OnBandwidthUpdateData) => void; //Android
   onBuffer?: (e: OnBufferData) => void; //Android, iOS
+  onBufferDecision?: (e: OnBufferDecisionData) => void; //Android
+  onCacheMetrics?: (e: OnCacheMetricsData) => void; //Android
   onControlsVisibilityChange?: (e: OnControlsVisibilityChange) => void; // Android, iOS
   onEnd?: () => void; //All
   onError?: (e: OnVideoErrorData) => void; //Android, iOS
@@ -258,6 +265,7 @@ export interface ReactVideoEvents {
   onProgress?: (e: OnProgressData) => void; //All
   onReadyForDisplay?: () => void; //Android, iOS
   onReceiveAdEvent?: (e: OnReceiveAdEventData) => void; //Android, iOS
+  onRequestTimings?: (e: OnRequestTimingsData) => void; //Android
   onRestoreUserInterfaceForPictureInPictureStop?: () => void; //iOS
   onSeek?: (e: OnSeekData) => void; //Android, iOS, Windows UWP
   onPlaybackStateChanged?: (e: OnPlaybackStateChangedData) => void; // Android, iOS
@@ -1,5 +1,11 @@
 import type {RefObject} from 'react';
-import {ReactVideoSource} from './video';
+import {
+  EventStats,
+  PlaybackState,
+  ReactVideoSource,
+  RequestTiming,
+} from './video';
+import type {OnCacheMetricsData} from '../specs/VideoNativeComponent';
 
 export type VideoSaveData = {
   uri: string;
@@ -7,6 +13,7 @@ export type VideoSaveData = {
 
 export interface VideoRef {
   seek: (time: number, tolerance?: number) => void;
+  setScrubbing: (scrubbing: boolean) => void; // android
   resume: () => void;
   pause: () => void;
   presentFullscreenPlayer: () => void;
@@ -17,6 +24,10 @@ export interface VideoRef {
   save: (options: object) => Promise<VideoSaveData> | void;
   setVolume: (volume: number) => void;
   getCurrentPosition: () => Promise<number>;
+  getCacheMetrics: () => Promise<OnCacheMetricsData>; // android
+  getRequestTimings: () => Promise<RequestTiming[]>; // android
+  getEventStats: () => Promise<EventStats>; // android
+  getPlaybackState: () => PlaybackState | null; // android
   setFullScreen: (fullScreen: boolean) => void;
   setSource: (source?: ReactVideoSource) => void;
   enterPictureInPicture: () => void;
@@ -42,6 +42,8 @@ export type ReactVideoSourceProperties = {
   ad?: AdConfig;
   minLoadRetryCount?: number; // Android
   bufferConfig?: BufferConfig;
+  abr?: AbrConfig; // Android
+  cdnBaseUrls?: string[]; // Android
 };
 
 export type ReactVideoSource = Readonly<
@@ -86,10 +88,11 @@ export type Drm = Readonly<{
   type?: DRMType;
   licenseServer?: string;
   headers?: Headers;
-  contentId?: string; // ios
+  contentId?: string; // ios, android
   certificateUrl?: string; // ios
   base64Certificate?: boolean; // ios default: false
   multiDrm?: boolean; // android
+  persistentLicense?: boolean; // android
   localSourceEncryptionKeyScheme?: string; // ios
   /* eslint-disable @typescript-eslint/no-unused-vars */
   getLicense?: (
@@ -149,6 +152,18 @@ export type BufferConfig = {
   live?: BufferConfigLive;
 };
 
+export enum AbrMode {
+  THROUGHPUT = 'throughput',
+  BUFFER = 'buffer',
+  HYBRID = 'hybrid',
+}
+
+export type AbrConfig = {
+  mode?: AbrMode | 'throughput' | 'buffer' | 'hybrid';
+  bandwidthFraction?: number;
+  bufferTargetMs?: number;
+};
+
 export enum SelectedTrackType {
   SYSTEM = 'system',
   DISABLED = 'disabled',
@@ -312,6 +327,8 @@ export interface ReactVideoProps extends ReactVideoEvents, ViewProps {
   /** @deprecated Use source.minLoadRetryCount */
   minLoadRetryCount?: number; // Android
   maxBitRate?: number;
+  maxEventRate?: number; // Android
+  viewportOversampling?: number; // Android
   mixWithOthers?: EnumValues<MixWithOthersType>; // iOS
   muted?: boolean;
   paused?: boolean;
@@ -350,3 +367,230 @@ export interface ReactVideoProps extends ReactVideoEvents, ViewProps {
   allowsExternalPlayback?: boolean; // iOS
   controlsStyles?: ControlsStyles; // Android
 }
+
+export type PlayerPoolConfig = {
+  maxSize?: number; // Android
+  idleTimeoutMs?: number; // Android
+  prewarm?: number; // Android
+};
+
+export type PlayerPoolStats = {
+  size: number;
+  maxSize: number;
+  hits: number;
+  misses: number;
+  hitRate: number;
+  created: number;
+  recycled: number;
+  evicted: number;
+};
+
+export type WorkerPoolStats = {
+  threads: number;
+  activeTasks: number;
+  queuedTasks: number;
+  completedTasks: number;
+  cancelledTasks: number;
+  rejectedTasks: number;
+  averageWaitMs: number;
+  maxWaitMs: number;
+  averageRunMs: number;
+  maxRunMs: number;
+};
+
+export type PlaybackState = {
+  currentTime: number;
+  bufferedTime: number;
+  duration: number;
+  rate: number;
+  state: 'idle' | 'buffering' | 'ready' | 'ended';
+  isPlaying: boolean;
+  bitrate: number;
+};
+
+export type EventStats = {
+  dispatched: number;
+  coalesced: number;
+  dropped: number;
+};
+
+export type RequestTiming = {
+  uri: string;
+  type:
+    | 'manifest'
+    | 'media'
+    | 'initialization'
+    | 'drm'
+    | 'timeSynchronization'
+    | 'ad'
+    | 'unknown';
+  trackType: 'video' | 'audio' | 'text' | 'muxed' | 'unknown';
+  bitrate: number;
+  width: number;
+  height: number;
+  startTimeMs: number;
+  ttfbMs: number;
+  durationMs: number;
+  bytes: number;
+  throughput: number;
+  httpStatus: number;
+  cacheStatus: 'hit' | 'miss' | 'partial' | 'bypass' | 'unknown';
+  error?: string;
+};
+
+export type BufferBudgetConfig = {
+  maxSizeMB?: number; // Android
+};
+
+export type BufferBudgetStats = {
+  maxBytes: number;
+  allocatedBytes: number;
+  players: {
+    priority: 'playing' | 'paused' | 'offscreen';
+    allocatedBytes: number;
+    quotaBytes: number;
+  }[];
+};
+
+export type PreloadOptions = {
+  bytes?: number; // Android
+  durationMs?: number; // Android
+  priority?: number; // Android
+};
+
+export type PreloadConfig = {
+  maxConcurrent?: number; // Android
+  maxBytes?: number; // Android
+};
+
+export type PreloadResult = {
+  uri: string;
+  cancelled: boolean;
+  bytesLoaded: number;
+};
+
+export type CacheConfig = {
+  maxSizeMB?: number; // Android
+  ignoredQueryParameters?: string[]; // Android
+};
+
+export type CacheStats = {
+  maxBytes: number;
+  bytesUsed: number;
+  cachedBytesRead: number;
+  upstreamBytesRead: number;
+  hitRatio: number;
+  evictions: number;
+  evictedBytes: number;
+};
+
+export type ManifestCacheStats = {
+  entries: number;
+  hits: number;
+  misses: number;
+  parses: number;
+  averageParseMs: number;
+  maxParseMs: number;
+  lastParseMs: number;
+};
+
+export type PrewarmTiming = {
+  origin: string;
+  protocol?: string;
+  reused: boolean;
+  dnsMs: number;
+  connectMs: number;
+  tlsMs: number;
+  responseMs: number;
+  totalMs: number;
+  error?: string;
+};
+
+export type HostHealth = {
+  origin: string;
+  score: number;
+  throughput: number;
+  ttfbMs: number;
+  errorRate: number;
+  requests: number;
+  errors: number;
+};
+
+export type CodecQuery = {
+  mimeType: string;
+  width?: number;
+  height?: number;
+  frameRate?: number;
+  secure?: boolean;
+};
+
+export type CodecCapabilities = {
+  mimeType: string;
+  supported: boolean;
+  hardware: boolean;
+  software: boolean;
+  secure: boolean;
+  tunneling: boolean;
+  maxWidth: number;
+  maxHeight: number;
+  maxFrameRate: number;
+};
+
+export type PlaybackCapabilities = {
+  widevineLevel: number;
+  hdrTypes: ('dolbyVision' | 'hdr10' | 'hlg' | 'hdr10Plus')[];
+  codecs: {
+    h264: CodecCapabilities;
+    hevc: CodecCapabilities;
+    vp9: CodecCapabilities;
+    av1: CodecCapabilities;
+  };
+};
+
+export type BandwidthEstimate = {
+  networkType:
+    | 'wifi'
+    | 'ethernet'
+    | '2g'
+    | '3g'
+    | '4g'
+    | '5gNsa'
+    | '5gSa'
+    | 'unknown';
+  seededBitrate: number;
+  seededAgeMs: number;
+  bitrateEstimate: number;
+};
+
+export type DownloadOptions = {
+  id?: string; // Android
+  maxBitrate?: number; // Android
+  maxHeight?: number; // Android
+  audioLanguages?: string[]; // Android
+  textLanguages?: string[]; // Android
+};
+
+export type DownloadConfig = {
+  maxParallelDownloads?: number; // Android
+  requireUnmeteredNetwork?: boolean; // Android
+};
+
+export type DownloadState =
+  | 'queued'
+  | 'stopped'
+  | 'downloading'
+  | 'completed'
+  | 'failed'
+  | 'removing'
+  | 'restarting'
+  | 'unknown';
+
+export type DownloadInfo = {
+  id: string;
+  uri: string;
+  state: DownloadState;
+  paused: boolean;
+  percentDownloaded: number;
+  bytesDownloaded: number;
+  contentLength: number;
+};
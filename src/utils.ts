@@ -1,6 +1,10 @@
 import type {Component, RefObject, ComponentClass} from 'react';
 import {Image, findNodeHandle, type ImageSourcePropType} from 'react-native';
-import type {ReactVideoSource, ReactVideoSourceProperties} from './types/video';
+import type {
+  Drm,
+  ReactVideoSource,
+  ReactVideoSourceProperties,
+} from './types/video';
 
 // eslint-disable-next-line @typescript-eslint/no-explicit-any
 export function generateHeaderForNative(obj?: Record<string, any>) {
@@ -10,6 +14,21 @@ export function generateHeaderForNative(obj?: Record<string, any>) {
   return Object.entries(obj).map(([key, value]) => ({key, value}));
 }
 
+// drm props used by the static helpers, which don't support iOS specific ones
+export function generateDrmForNative(drm?: Drm) {
+  if (!drm) {
+    return undefined;
+  }
+  return {
+    type: drm.type,
+    licenseServer: drm.licenseServer,
+    headers: generateHeaderForNative(drm.headers),
+    contentId: drm.contentId,
+    multiDrm: drm.multiDrm,
+    persistentLicense: drm.persistentLicense,
+  };
+}
+
 type Source = ImageSourcePropType | ReactVideoSource;
 
 export function resolveAssetSourceForVideo(